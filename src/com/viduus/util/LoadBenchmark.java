@@ -0,0 +1,75 @@
+package com.viduus.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import com.viduus.util.models.loader.DaeLoader;
+import com.viduus.util.models.loader.LoadOptions;
+import com.viduus.util.models.loader.ModelRegistry;
+import com.viduus.util.models.loader.ParserPool;
+
+/**
+ * Measures how many files per second are loaded from a directory of small models, once
+ * with the xml parsers reused through a {@link ParserPool} and once with new parsers for
+ * every file.
+ * <br><br>
+ * Usage: LoadBenchmark [directory] [rounds] [stream]
+ *
+ * @author Ethan Toney
+ */
+public class LoadBenchmark {
+
+	public static void main(String[] args) throws ParserConfigurationException, SAXException, IOException{
+		Path directory = Paths.get( args.length > 0 ? args[0] : "./models" );
+		int rounds = ( args.length > 1 ) ? Integer.parseInt(args[1]) : 5;
+		LoadOptions options = new LoadOptions();
+		options.stream_parse = args.length > 2 && args[2].equals("stream");
+
+		List<Path> files;
+		try( Stream<Path> listing = Files.list(directory) ){
+			files = listing.filter(file -> file.toString().endsWith(".dae")).sorted().collect(Collectors.toList());
+		}
+		System.out.println("Loading "+files.size()+" files from "+directory+(options.stream_parse ? " as streams" : ""));
+
+		ParserPool pool = new ParserPool();
+		double best_pooled = 0, best_unpooled = 0;
+		for( int round=0 ; round<rounds ; round++ ){
+			// A pool that keeps nothing creates new parsers for every file
+			best_unpooled = Math.max( best_unpooled, measure(files, options, new ParserPool(0)) );
+			best_pooled = Math.max( best_pooled, measure(files, options, pool) );
+		}
+		System.out.printf("New parsers:    %10.1f files/s%n", best_unpooled);
+		System.out.printf("Pooled parsers: %10.1f files/s%n", best_pooled);
+	}
+
+	/**
+	 * Loads every file once with a fresh registry, so no model is already loaded.
+	 * @return The number of files loaded per second.
+	 */
+	private static double measure( List<Path> files, LoadOptions options, ParserPool pool ) throws ParserConfigurationException, SAXException, IOException {
+		DaeLoader loader = new DaeLoader(options, new ModelRegistry(), pool);
+		// Printing the progress of every load would take longer than the loads
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try{
+			long start = System.nanoTime();
+			for( Path file : files )
+				loader.loadModel(file);
+			return files.size() / ((System.nanoTime() - start) / 1e9);
+		}finally{
+			System.setOut(out);
+		}
+	}
+
+}
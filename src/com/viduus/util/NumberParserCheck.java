@@ -0,0 +1,288 @@
+package com.viduus.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.viduus.util.models.util.NumberParser;
+
+/**
+ * Checks that {@link NumberParser} returns exactly what {@link Float#parseFloat(String)} and
+ * {@link Integer#parseInt(String)} return, and measures how much faster it is than parsing
+ * a String per number, which is how numbers were read before it.
+ * <br><br>
+ * The check runs a list of hard cases (subnormals, ties between two floats, the limits of
+ * the exponent, signs and mantissas longer than 19 digits) and then random inputs of the
+ * same kinds. Floats are compared bit for bit, so -0 and 0 differ, and an input must throw
+ * a NumberFormatException for both parsers or for neither. The exit code is 1 if any
+ * input differs.
+ * <br><br>
+ * Usage: NumberParserCheck [random inputs] [seed] [benchmark numbers]
+ *
+ * @author Ethan Toney
+ */
+public class NumberParserCheck {
+
+	private static final String[] FLOAT_CASES = {
+			// Zeros and signs
+			"0", "-0", "+0", "0.0", "-0.0", "+0.0", "0e0", "-0e-999", "0e999", "000.000", "+1", "-1", "-.5", "+.5", "5.", "-5.",
+			// Smallest subnormal, half of it and the ties around it
+			"1.4e-45", "-1.4e-45", "1.401298464324817e-45", "7e-46", "7.006492321624085e-46", "7.006492321624086e-46",
+			"7.0064923216240854e-46", "2.1019476964872256e-45", "2.8e-45", "1e-45", "1e-46", "1e-50", "1e-64", "1e-65",
+			// Largest subnormal and smallest normal
+			"1.1754942e-38", "1.17549421e-38", "1.1754943e-38", "1.17549435e-38", "1.1754943508222875e-38",
+			"1.1754942807573643e-38", "1.17549428e-38",
+			// Largest float, the tie above it and overflow
+			"3.4028235e38", "3.40282346e38", "3.4028234663852886e38", "3.4028235677973366e38", "3.4028235677973367e38",
+			"3.4028236e38", "-3.4028236e38", "1e38", "1e39", "-1e39", "1e40", "1e308", "1e309", "1e-400",
+			"340282356779733661637539395458142568448", "340282356779733661637539395458142568447",
+			// Ties between two floats, rounded to even
+			"16777217", "16777218", "16777219", "33554435", "8388608.5", "8388609.5", "0.5", "1.5", "2.5",
+			"1.00000005960464477539062500", "1.00000017881393432617187500", "1.000000059604644775390625",
+			"1.0000000596046447753906250000000000000000001", "1.0000000596046447753906249999999999999999999",
+			// Mantissas longer than 19 digits
+			"1234567890123456789", "12345678901234567890", "1234567890123456789012345678901234567890",
+			"0.1234567890123456789012345678901234567890", "3.14159265358979323846264338327950288419716939937510",
+			"0.000000000000000000000000000000000000000000001401298464324817070923729583289916131280",
+			"9999999999999999999", "99999999999999999999e-20", "18446744073709551615", "18446744073709551616",
+			// Exponents
+			"1e0", "1E0", "1e+0", "1e-0", "1e10", "1e-10", "1e11", "1e-11", "1.5e-17", "1.5e10", "2e-27", "2e-28",
+			"1e55", "1e56", "1e00000000000000000000000000000001", "1e-00000000000000000000000000000001",
+			// Not plain decimals, parsed by the fallback
+			"NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", "0x1p3", "1f", "1d", " 1", "1 ",
+			// Invalid
+			"", "-", "+", ".", "e5", "1e", "1e+", "1.2.3", "--1", "1-", "abc", "1,5"
+	};
+
+	private static final String[] INT_CASES = {
+			"0", "-0", "+0", "7", "-7", "+7", "0000123", "-0000123", "00000000000000000000000000000000000001",
+			"2147483647", "-2147483648", "2147483648", "-2147483649", "9999999999", "99999999999999999999",
+			"1234", "12345", "123456789", "-1000", "10000",
+			"", "-", "+", "1.0", "1e3", "12a4", "a234", "123/", "12:4", " 1", "1 ", "--1"
+	};
+
+	private static int mismatches = 0;
+
+	public static void main(String[] args){
+		int count = ( args.length > 0 ) ? Integer.parseInt(args[0]) : 1000000;
+		long seed = ( args.length > 1 ) ? Long.parseLong(args[1]) : System.nanoTime();
+		int benchmark_count = ( args.length > 2 ) ? Integer.parseInt(args[2]) : 1000000;
+		Random random = new Random(seed);
+
+		System.out.println("Checking "+(FLOAT_CASES.length + INT_CASES.length)+" fixed inputs and "+count+" random inputs with seed "+seed);
+		for( String text : FLOAT_CASES )
+			checkFloat(text);
+		for( String text : INT_CASES )
+			checkInt(text);
+		for( int i=0 ; i<count ; i++ ){
+			checkFloat(randomFloat(random));
+			checkInt(randomInt(random));
+		}
+
+		if( mismatches > 0 ){
+			System.out.println(mismatches+" inputs differ");
+		}else{
+			System.out.println("Every input matches");
+		}
+
+		if( benchmark_count > 0 )
+			benchmark(random, benchmark_count);
+
+		if( mismatches > 0 )
+			System.exit(1);
+	}
+
+	/**
+	 * Compares the bits of both float parsers, or that both throw.
+	 */
+	private static void checkFloat( String text ){
+		String expected, actual;
+		try{
+			expected = Integer.toHexString(Float.floatToRawIntBits(Float.parseFloat(text)));
+		}catch( NumberFormatException e ){
+			expected = "NumberFormatException";
+		}
+		try{
+			char[] chars = text.toCharArray();
+			actual = Integer.toHexString(Float.floatToRawIntBits(NumberParser.parseFloat(chars, 0, chars.length)));
+		}catch( NumberFormatException e ){
+			actual = "NumberFormatException";
+		}
+		report("float", text, expected, actual);
+	}
+
+	/**
+	 * Compares both int parsers, or that both throw.
+	 */
+	private static void checkInt( String text ){
+		String expected, actual;
+		try{
+			expected = Integer.toString(Integer.parseInt(text));
+		}catch( NumberFormatException e ){
+			expected = "NumberFormatException";
+		}
+		try{
+			char[] chars = text.toCharArray();
+			actual = Integer.toString(NumberParser.parseInt(chars, 0, chars.length));
+		}catch( NumberFormatException e ){
+			actual = "NumberFormatException";
+		}
+		report("int", text, expected, actual);
+	}
+
+	private static void report( String type, String text, String expected, String actual ){
+		if( expected.equals(actual) )
+			return;
+		// The first few are enough to find the cause
+		if( mismatches < 20 )
+			System.out.println("Mismatch for "+type+" \""+text+"\": expected "+expected+" but parsed "+actual);
+		mismatches++;
+	}
+
+	/**
+	 * @return A random float input, picked from the kinds of inputs the parser handles
+	 * differently.
+	 */
+	private static String randomFloat( Random random ){
+		String sign = random.nextInt(4) == 0 ? "-" : (random.nextInt(16) == 0 ? "+" : "");
+		switch( random.nextInt(6) ){
+			// Shortest text of any finite float, the way most exporters write them
+			case 0:
+				return Float.toString(randomFiniteFloat(random));
+
+			// Exact value of any finite float, cut to a random number of digits
+			case 1:
+				return sign + new BigDecimal(Math.abs(randomFiniteFloat(random))).round(new MathContext(1 + random.nextInt(30))).toString();
+
+			// Exactly halfway between two floats, or just above or below it
+			case 2:{
+				int bits = random.nextInt(0x7F7FFFFF);
+				BigDecimal tie = new BigDecimal(Float.intBitsToFloat(bits)).add(new BigDecimal(Float.intBitsToFloat(bits + 1))).divide(BigDecimal.valueOf(2));
+				String text = tie.toString();
+				int nudge = random.nextInt(3);
+				if( nudge > 0 ){
+					BigDecimal step = BigDecimal.ONE.movePointLeft(tie.scale() + 1 + random.nextInt(10));
+					text = ( nudge == 1 ? tie.add(step) : tie.subtract(step) ).toString();
+				}
+				return sign + text;
+			}
+
+			// Subnormals
+			case 3:
+				return sign + new BigDecimal(Float.intBitsToFloat(1 + random.nextInt(0x007FFFFF))).round(new MathContext(1 + random.nextInt(20))).toString();
+
+			// Random digits with the decimal point anywhere and any exponent
+			case 4:{
+				StringBuilder text = new StringBuilder(sign);
+				int digits = 1 + random.nextInt(random.nextBoolean() ? 9 : 30);
+				int point = random.nextInt(digits + 1);
+				for( int i=0 ; i<digits ; i++ ){
+					if( i == point )
+						text.append('.');
+					text.append((char) ('0' + random.nextInt(10)));
+				}
+				if( random.nextBoolean() )
+					text.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(3) == 0 ? "+" : "").append(random.nextInt(120) - 65);
+				return text.toString();
+			}
+
+			// Short decimals, the way most values in a Collada file look
+			default:
+				return sign + random.nextInt(1000) + "." + String.format("%06d", random.nextInt(1000000)).substring(0, 1 + random.nextInt(6));
+		}
+	}
+
+	private static float randomFiniteFloat( Random random ){
+		while( true ){
+			float value = Float.intBitsToFloat(random.nextInt());
+			if( !Float.isNaN(value) && !Float.isInfinite(value) )
+				return value;
+		}
+	}
+
+	/**
+	 * @return A random int input, sometimes with a sign, leading zeros or out of range.
+	 */
+	private static String randomInt( Random random ){
+		switch( random.nextInt(4) ){
+			case 0:
+				return Integer.toString(random.nextInt());
+			case 1:
+				return Integer.toString(random.nextInt(100000));
+			case 2:
+				return (random.nextBoolean() ? "+" : "-") + "0".repeat(random.nextInt(12)) + random.nextInt(100000);
+			default:
+				return Long.toString(random.nextLong() >> random.nextInt(64));
+		}
+	}
+
+	/**
+	 * Parses the same text the way a &lt;float_array&gt; and a &lt;p&gt; tag are parsed,
+	 * with {@link NumberParser} and with a String per number.
+	 */
+	private static void benchmark( Random random, int count ){
+		List<String> floats = new ArrayList<>(count);
+		List<String> ints = new ArrayList<>(count);
+		for( int i=0 ; i<count ; i++ ){
+			floats.add(String.format("%.6f", (random.nextFloat() - 0.5f) * 200));
+			ints.add(Integer.toString(random.nextInt(65536)));
+		}
+		char[] float_text = String.join(" ", floats).toCharArray();
+		char[] int_text = String.join(" ", ints).toCharArray();
+
+		System.out.println("Parsing "+count+" floats and "+count+" ints, best of 10 rounds");
+		long best_float_parser = Long.MAX_VALUE, best_float_string = Long.MAX_VALUE;
+		long best_int_parser = Long.MAX_VALUE, best_int_string = Long.MAX_VALUE;
+		double sum = 0;
+		for( int round=0 ; round<10 ; round++ ){
+			long start = System.nanoTime();
+			sum += parseFloats(float_text, true);
+			best_float_parser = Math.min(best_float_parser, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			sum += parseFloats(float_text, false);
+			best_float_string = Math.min(best_float_string, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			sum += parseInts(int_text, true);
+			best_int_parser = Math.min(best_int_parser, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			sum += parseInts(int_text, false);
+			best_int_string = Math.min(best_int_string, System.nanoTime() - start);
+		}
+		System.out.printf("Floats, String per number: %8.1f ns/number%n", best_float_string / (double) count);
+		System.out.printf("Floats, NumberParser:      %8.1f ns/number (%.2fx)%n", best_float_parser / (double) count, best_float_string / (double) best_float_parser);
+		System.out.printf("Ints, String per number:   %8.1f ns/number%n", best_int_string / (double) count);
+		System.out.printf("Ints, NumberParser:        %8.1f ns/number (%.2fx)%n", best_int_parser / (double) count, best_int_string / (double) best_int_parser);
+		// Printed so the parsing is not optimized away
+		System.out.println("Checksum "+sum);
+	}
+
+	private static double parseFloats( char[] text, boolean number_parser ){
+		double sum = 0;
+		int start = 0;
+		for( int end=0 ; end<=text.length ; end++ ){
+			if( end == text.length || text[end] == ' ' ){
+				sum += number_parser ? NumberParser.parseFloat(text, start, end) : Float.parseFloat(new String(text, start, end - start));
+				start = end + 1;
+			}
+		}
+		return sum;
+	}
+
+	private static long parseInts( char[] text, boolean number_parser ){
+		long sum = 0;
+		int start = 0;
+		for( int end=0 ; end<=text.length ; end++ ){
+			if( end == text.length || text[end] == ' ' ){
+				sum += number_parser ? NumberParser.parseInt(text, start, end) : Integer.parseInt(new String(text, start, end - start));
+				start = end + 1;
+			}
+		}
+		return sum;
+	}
+
+}
@@ -3,10 +3,14 @@
  */
 package com.viduus.util.models;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.math.Mat4;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
+import com.viduus.util.models.loader.DaeParseException;
 import com.viduus.util.models.visual_scene.SceneNode;
 
 /**
@@ -24,6 +28,30 @@ public class Bone {
 		id = node.getIdentifier();
 		transformation = node.transform;
 	}
+	
+	/**
+	 * Reads a bone back from a model cache. Its children are linked by {@link ModelData}
+	 * once every bone has been read.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Bone( ModelCacheReader reader ) throws DaeParseException {
+		id = reader.readString();
+		float[] values = reader.readFloats();
+		transformation = ( values == null ) ? null : new Mat4(values);
+	}
+	
+	/**
+	 * Writes this bone, without its children, to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write( ModelCacheWriter writer ) throws IOException {
+		writer.writeString(id);
+		writer.writeFloats( (transformation == null) ? null : transformation.getBackingArray() );
+	}
 
 	/**
 	 * 
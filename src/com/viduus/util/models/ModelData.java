@@ -1,9 +1,16 @@
 package com.viduus.util.models;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Set;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.animations.Animation;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.geometries.Mesh;
+import com.viduus.util.models.loader.DaeParseException;
 
 /**
  * Model class used to represent 3D models and their animations. This class is the output from the DaeLoader class.
@@ -15,6 +22,8 @@ public class ModelData{
 
 	private final String name, dae_version;
 	public final HashMap<String, Mesh> mesh;
+	public final HashMap<String, Bone> bones;
+	public final HashMap<String, Animation> animations;
 	
 	/**
 	 * Creates a new ModelData instance.
@@ -23,9 +32,137 @@ public class ModelData{
 	 * @param object_meshes - The mesh of vertices, normals, and texture points
 	 */
 	public ModelData(String model_name, String version, HashMap<String, Mesh> object_meshes) {
+		this( model_name, version, object_meshes, new HashMap<>(), new HashMap<>() );
+	}
+	
+	/**
+	 * Creates a new ModelData instance.
+	 * @param model_name - The identifier for this model
+	 * @param version - Collada version
+	 * @param object_meshes - The mesh of vertices, normals, and texture points
+	 * @param model_bones - The bones of the model's skeleton
+	 * @param object_animations - The animations of the model
+	 */
+	public ModelData(String model_name, String version, HashMap<String, Mesh> object_meshes, HashMap<String, Bone> model_bones, HashMap<String, Animation> object_animations) {
 		name = model_name;
 		dae_version = version;
 		mesh = object_meshes;
+		bones = model_bones;
+		animations = object_animations;
+	}
+	
+	/**
+	 * Reads a model back from a model cache.
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException Thrown if the cache is corrupted.
+	 */
+	public ModelData(ModelCacheReader reader) throws DaeParseException {
+		name = reader.readString();
+		dae_version = reader.readString();
+		
+		mesh = new HashMap<>();
+		int mesh_count = reader.readInt();
+		for( int i=0 ; i<mesh_count ; i++ )
+			mesh.put(reader.readString(), new Mesh(reader));
+		
+		bones = new HashMap<>();
+		int bone_count = reader.readInt();
+		for( int i=0 ; i<bone_count ; i++ )
+			bones.put(reader.readString(), new Bone(reader));
+		
+		// Link the bones once all of them exist
+		for( int i=0 ; i<bone_count ; i++ ){
+			String bone_id = reader.readString();
+			Bone bone = bones.get(bone_id);
+			String[] child_ids = reader.readStrings();
+			if( bone == null || child_ids == null )
+				throw new DaeParseException("Cached bone "+bone_id+" is missing.");
+			for( String child_id : child_ids ){
+				Bone child = bones.get(child_id);
+				if( child == null )
+					throw new DaeParseException("Cached child bone "+child_id+" of "+bone_id+" is missing.");
+				bone.children.add( child );
+			}
+		}
+		
+		animations = new HashMap<>();
+		int animation_count = reader.readInt();
+		for( int i=0 ; i<animation_count ; i++ )
+			animations.put(reader.readString(), new Animation(reader));
+	}
+	
+	/**
+	 * Writes this model to a model cache.
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(name);
+		writer.writeString(dae_version);
+		
+		writer.writeInt(mesh.size());
+		for( String key : mesh.keySet() ){
+			writer.writeString(key);
+			mesh.get(key).write(writer);
+		}
+		
+		writer.writeInt(bones.size());
+		for( String key : bones.keySet() ){
+			writer.writeString(key);
+			bones.get(key).write(writer);
+		}
+		for( String key : bones.keySet() ){
+			Bone bone = bones.get(key);
+			String[] children = new String[ bone.children.size() ];
+			for( int i=0 ; i<children.length ; i++ )
+				children[i] = bone.children.get(i).id;
+			writer.writeString(key);
+			writer.writeStrings(children);
+		}
+		
+		writer.writeInt(animations.size());
+		for( String key : animations.keySet() ){
+			writer.writeString(key);
+			animations.get(key).write(writer);
+		}
+	}
+	
+	/**
+	 * Gets a mesh of the model. Lazily loaded models parse the mesh the first time it is
+	 * requested, so use this instead of reading {@link #mesh} directly.
+	 * @param geometry_id - (String) Id of the geometry the mesh was loaded from.
+	 * @return The mesh or <b>null</b> if the model has no such mesh.
+	 * @throws DaeParseException Thrown if the mesh had to be parsed and could not be.
+	 */
+	public Mesh getMesh(String geometry_id) throws DaeParseException {
+		return mesh.get(geometry_id);
+	}
+	
+	/**
+	 * @return The ids of the geometries of all meshes of the model, including those a
+	 * lazily loaded model did not parse yet.
+	 */
+	public Set<String> getMeshIds() {
+		return Collections.unmodifiableSet(mesh.keySet());
+	}
+	
+	/**
+	 * Gets an animation of the model. Lazily loaded models parse the animation the first
+	 * time it is requested, so use this instead of reading {@link #animations} directly.
+	 * @param animation_id - (String) Id of the animation.
+	 * @return The animation or <b>null</b> if the model has no such animation.
+	 * @throws DaeParseException Thrown if the animation had to be parsed and could not be.
+	 */
+	public Animation getAnimation(String animation_id) throws DaeParseException {
+		return animations.get(animation_id);
+	}
+	
+	/**
+	 * @return The ids of all animations of the model, including those a lazily loaded model
+	 * did not parse yet.
+	 */
+	public Set<String> getAnimationIds() {
+		return Collections.unmodifiableSet(animations.keySet());
 	}
 	
 	/**
@@ -43,6 +180,20 @@ public class ModelData{
 	public String getDAEVersion() {
 		return this.dae_version;
 	}
+	
+	/**
+	 * Returns the number of bytes taken up by the buffers of the model. Used to weigh
+	 * models against the byte budget of a {@link com.viduus.util.models.loader.ModelRegistry}.
+	 * @return (long) - the size in bytes
+	 */
+	public long getByteSize() {
+		long size = 0;
+		for( Mesh m : mesh.values() )
+			size += m.getByteSize();
+		for( Animation animation : animations.values() )
+			size += animation.getByteSize();
+		return size;
+	}
 
 	/**
 	 * FIXME - Should be removed before release
@@ -3,14 +3,21 @@
  */
 package com.viduus.util.models.animations;
 
+import java.io.IOException;
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
 import com.viduus.util.models.util.Source;
 
 /**
@@ -68,12 +75,94 @@ public class Animation {
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on an &lt;animation&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Animation(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("animation") )
+			throw new DaeParseException("Animation constructor must take a <animation> tag.");
+
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			
+			if( child_name.equals("source") ){
+				Source source = new Source(reader);
+				sources.put(source.getId(), source);
+				
+			}else if( child_name.equals("sampler") ){
+				while( LoaderFunctions.nextChildElement(reader) ){
+					if( reader.getLocalName().equals("input") ){
+						String semantic = LoaderFunctions.getAttribute(reader, "semantic");
+						String source = LoaderFunctions.getAttribute(reader, "source").substring(1);
+						sampler.put(semantic, source);
+					}
+					LoaderFunctions.skipElement(reader);
+				}
+				
+			}else if( child_name.equals("channel") ){
+				target_url = LoaderFunctions.getAttribute(reader, "target");
+				LoaderFunctions.skipElement(reader);
+				
+			}else{
+				throw new DaeParseException(child_name+" animation tag is not implemented.");
+			}
+		}
+	}
+
+	/**
+	 * Reads an animation back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Animation(ModelCacheReader reader) throws DaeParseException {
+		id = reader.readString();
+		target_url = reader.readString();
+		
+		int source_count = reader.readInt();
+		for( int i=0 ; i<source_count ; i++ )
+			sources.put(reader.readString(), new Source(reader));
+		reader.readStringMap(sampler);
+	}
+
+	/**
+	 * Writes this animation to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		writer.writeString(target_url);
+		
+		writer.writeInt(sources.size());
+		for( String key : sources.keySet() ){
+			writer.writeString(key);
+			sources.get(key).write(writer);
+		}
+		writer.writeStringMap(sampler);
+	}
+
 	/**
 	 * @return
 	 */
 	public String getId() {
 		return id;
 	}
+	
+	/**
+	 * @return The number of bytes taken up by the sources of this animation.
+	 */
+	public long getByteSize() {
+		long size = 0;
+		for( Source source : sources.values() )
+			size += source.getByteSize();
+		return size;
+	}
 
 	/**
 	 * 
@@ -0,0 +1,320 @@
+package com.viduus.util.models.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.viduus.util.models.ModelData;
+import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.XxHash64;
+
+/**
+ * Stores processed models in binary files so later loads can skip xml and number parsing
+ * entirely. A cache holds the GPU ready vertex and index buffers of every polylist, the
+ * joint and weight values that are interleaved into them, the sources, materials, bones
+ * and animations of the model.
+ * <br><br>
+ * Caches are keyed by an {@link XxHash64} hash of the contents of the Collada file, the
+ * key of the load options and {@link #VERSION}. Hashing is skipped while the size and
+ * modification time of a Collada file match the ones it was last hashed with. Caches are
+ * either kept next to their Collada files or in one shared directory, where files are
+ * named after their key so every process that loads the same model with the same options
+ * shares one cache. Cache files are memory mapped when read and every array is copied out
+ * of the mapping with a single bulk copy.
+ * <br><br>
+ * Every file is written to a temporary file first and then renamed into place, so
+ * processes sharing a cache directory never read a partially written cache. A cache that
+ * does not match its key is ignored and replaced on the next load. The header of a cache
+ * also holds an {@link XxHash64} hash of the model data, which is checked before the model
+ * is built so a corrupted cache is rejected instead of loading as broken geometry.
+ *
+ * @author Ethan Toney
+ */
+public class ModelCache {
+
+	// "DAEC" and "DAEI" when read as little endian bytes
+	private static final int MAGIC = 0x43454144;
+	private static final int INDEX_MAGIC = 0x49454144;
+	// Offset of the hash of the model data in a cache file, the data follows the hash
+	private static final int CHECKSUM_OFFSET = 40;
+
+	/**
+	 * Version of the cache format. Must be increased whenever anything that is written to
+	 * the cache changes so old caches are rebuilt.
+	 */
+	public static final int VERSION = 10;
+
+	/**
+	 * Extension of cache files.
+	 */
+	public static final String FILE_EXTENSION = ".cache";
+
+	/**
+	 * Extension of the files of a cache directory that remember the content hash of a
+	 * Collada file.
+	 */
+	public static final String INDEX_EXTENSION = ".index";
+
+	private final Path directory;
+	private final ConcurrentHashMap<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+	/**
+	 * @param directory - (Path) Directory the caches are kept in, <b>null</b> to keep each
+	 * cache next to its Collada file.
+	 */
+	public ModelCache( Path directory ){
+		this.directory = directory;
+	}
+
+	/**
+	 * @return The directory the caches are kept in, <b>null</b> if each cache is kept next
+	 * to its Collada file.
+	 */
+	public Path getDirectory(){
+		return directory;
+	}
+
+	/**
+	 * @param source - (Path) A Collada file.
+	 * @param content_hash - (long) Hash of the contents of the file.
+	 * @param options_key - (long) Key of the options the model is loaded with.
+	 * @return The path of the cache for the given file.
+	 * @see com.viduus.util.models.loader.LoadOptions#getCacheKey()
+	 */
+	public Path getCacheFile( Path source, long content_hash, long options_key ){
+		if( directory == null )
+			return source.resolveSibling( source.getFileName() + FILE_EXTENSION );
+		long key = XxHash64.hash( options_key, XxHash64.hash(VERSION, content_hash) );
+		return directory.resolve( String.format("%016x", key) + FILE_EXTENSION );
+	}
+
+	/**
+	 * Reads the cached model of a Collada file.
+	 *
+	 * @param source - (Path) The Collada file.
+	 * @param options_key - (long) Key of the options the model is loaded with.
+	 * @return The cached model or <b>null</b> if there is no cache or the cache is out of
+	 * date.
+	 * @throws IOException Thrown if the cache could not be read or is corrupted.
+	 */
+	public ModelData read( Path source, long options_key ) throws IOException {
+		Fingerprint fingerprint = getFingerprint(source, options_key);
+		if( fingerprint == null )
+			return null;
+
+		ModelCacheReader reader = openCache( getCacheFile(source, fingerprint.content_hash, options_key) );
+		if( reader == null || reader.readLong() != options_key || reader.readLong() != fingerprint.content_hash )
+			return null;
+		// Size and modification time of the source
+		reader.readLong();
+		reader.readLong();
+		if( reader.readLong() != reader.hashRemaining() )
+			throw new DaeParseException("Model cache of "+source+" is corrupted.");
+
+		return new ModelData(reader);
+	}
+
+	/**
+	 * Writes the cache of a Collada file.
+	 *
+	 * @param model - (ModelData) The processed model.
+	 * @param source - (Path) The Collada file the model was loaded from.
+	 * @param options_key - (long) Key of the options the model was loaded with.
+	 * @throws IOException Thrown if the cache could not be written.
+	 */
+	public void write( ModelData model, Path source, long options_key ) throws IOException {
+		Fingerprint fingerprint = getFingerprint(source, options_key);
+		if( fingerprint == null )
+			return;
+
+		writeAtomically( getCacheFile(source, fingerprint.content_hash, options_key), (writer) -> {
+			writer.writeInt(MAGIC);
+			writer.writeInt(VERSION);
+			writer.writeLong(options_key);
+			writer.writeLong(fingerprint.content_hash);
+			writer.writeLong(fingerprint.size);
+			writer.writeLong(fingerprint.modified);
+			// Hash of the model data, filled in once the data is written
+			writer.writeLong(0);
+			model.write(writer);
+		}, true );
+	}
+
+	/**
+	 * Gets the content hash of a Collada file, only hashing the file if its size or
+	 * modification time changed since it was last hashed.
+	 *
+	 * @return The fingerprint of the file or <b>null</b> if it can not be hashed.
+	 */
+	private Fingerprint getFingerprint( Path source, long options_key ) throws IOException {
+		if( !Files.isRegularFile(source) )
+			return null;
+		Path key = source.toAbsolutePath().normalize();
+		long size = Files.size(source);
+		long modified = Files.getLastModifiedTime(source).toMillis();
+
+		Fingerprint fingerprint = fingerprints.get(key);
+		if( fingerprint != null && fingerprint.matches(size, modified) )
+			return fingerprint;
+
+		try{
+			fingerprint = readFingerprint(key, options_key);
+		}catch( DaeParseException e ){
+			// A corrupted cache is rehashed and then replaced
+			fingerprint = null;
+		}
+		if( fingerprint == null || !fingerprint.matches(size, modified) ){
+			if( size > Integer.MAX_VALUE )
+				return null;
+			long content_hash;
+			try( FileChannel channel = FileChannel.open(source, StandardOpenOption.READ) ){
+				content_hash = XxHash64.hash( channel.map(MapMode.READ_ONLY, 0, size), 0 );
+			}
+			fingerprint = new Fingerprint(size, modified, content_hash);
+			if( directory != null )
+				writeFingerprint(key, fingerprint);
+		}
+
+		fingerprints.put(key, fingerprint);
+		return fingerprint;
+	}
+
+	/**
+	 * Reads the fingerprint a Collada file was last hashed with. Inside a cache directory
+	 * it is kept in an index file named after the path of the Collada file, next to a
+	 * Collada file it is the header of the cache.
+	 */
+	private Fingerprint readFingerprint( Path source, long options_key ) throws IOException {
+		ModelCacheReader reader;
+		if( directory == null ){
+			reader = openCache( getCacheFile(source, 0, options_key) );
+			if( reader == null || reader.readLong() != options_key )
+				return null;
+			long content_hash = reader.readLong();
+			return new Fingerprint(reader.readLong(), reader.readLong(), content_hash);
+		}
+
+		reader = open( getIndexFile(source), INDEX_MAGIC );
+		if( reader == null )
+			return null;
+		return new Fingerprint(reader.readLong(), reader.readLong(), reader.readLong());
+	}
+
+	private void writeFingerprint( Path source, Fingerprint fingerprint ) throws IOException {
+		writeAtomically( getIndexFile(source), (writer) -> {
+			writer.writeInt(INDEX_MAGIC);
+			writer.writeInt(VERSION);
+			writer.writeLong(fingerprint.size);
+			writer.writeLong(fingerprint.modified);
+			writer.writeLong(fingerprint.content_hash);
+		}, false );
+	}
+
+	private Path getIndexFile( Path source ){
+		long key = XxHash64.hash( ByteBuffer.wrap(source.toString().getBytes(StandardCharsets.UTF_8)), 0 );
+		return directory.resolve( String.format("%016x", key) + INDEX_EXTENSION );
+	}
+
+	private ModelCacheReader openCache( Path cache_file ) throws IOException {
+		return open( cache_file, MAGIC );
+	}
+
+	/**
+	 * Memory maps a file of the cache and checks its magic number and version.
+	 *
+	 * @return A reader positioned after the version or <b>null</b> if the file does not
+	 * exist or belongs to another version.
+	 */
+	private static ModelCacheReader open( Path file, int magic ) throws IOException {
+		if( !Files.isRegularFile(file) )
+			return null;
+
+		ByteBuffer buffer;
+		try( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ){
+			if( channel.size() < 8 || channel.size() > Integer.MAX_VALUE )
+				return null;
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		ModelCacheReader reader = new ModelCacheReader(buffer);
+		if( reader.readInt() != magic || reader.readInt() != VERSION )
+			return null;
+		return reader;
+	}
+
+	/**
+	 * Writes a file to a temporary file in the same directory and then moves it into
+	 * place, replacing whatever another process might have written in the meantime.
+	 *
+	 * @param checksum - (boolean) True to store the hash of the bytes after
+	 * {@link #CHECKSUM_OFFSET} in the eight bytes at that offset.
+	 */
+	private static void writeAtomically( Path file, CacheContents contents, boolean checksum ) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		// Not made with Files.createTempFile so other users sharing the directory can read it
+		Path temp_file = parent.resolve( file.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp" );
+		try{
+			try( FileChannel channel = FileChannel.open(temp_file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW) ){
+				ModelCacheWriter writer = new ModelCacheWriter(channel);
+				contents.write(writer);
+				writer.flush();
+				if( checksum ){
+					long data_start = CHECKSUM_OFFSET + 8;
+					long hash = XxHash64.hash( channel.map(MapMode.READ_ONLY, data_start, channel.size() - data_start), 0 );
+					ByteBuffer hash_bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, hash);
+					while( hash_bytes.hasRemaining() )
+						channel.write(hash_bytes, CHECKSUM_OFFSET + hash_bytes.position());
+				}
+			}
+
+			try{
+				Files.move(temp_file, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}catch( AtomicMoveNotSupportedException e ){
+				Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}finally{
+			Files.deleteIfExists(temp_file);
+		}
+	}
+
+	/**
+	 * Writes the contents of a file of the cache.
+	 */
+	private interface CacheContents {
+		void write( ModelCacheWriter writer ) throws IOException;
+	}
+
+	/**
+	 * The content hash of a Collada file and the size and modification time it had when
+	 * it was hashed.
+	 */
+	private static class Fingerprint {
+
+		final long size;
+		final long modified;
+		final long content_hash;
+
+		Fingerprint( long size, long modified, long content_hash ){
+			this.size = size;
+			this.modified = modified;
+			this.content_hash = content_hash;
+		}
+
+		boolean matches( long size, long modified ){
+			return this.size == size && this.modified == modified;
+		}
+
+	}
+
+}
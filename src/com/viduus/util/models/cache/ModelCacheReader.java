@@ -0,0 +1,166 @@
+package com.viduus.util.models.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.XxHash64;
+
+/**
+ * Reads values written by a {@link ModelCacheWriter} out of a buffer, usually a memory
+ * mapped cache file. Arrays are copied out of the buffer with a single bulk copy each, so
+ * no text or numbers are parsed.
+ *
+ * @author Ethan Toney
+ */
+public class ModelCacheReader {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * @param buffer - (ByteBuffer) Buffer holding the cache, read from its position.
+	 */
+	public ModelCacheReader( ByteBuffer buffer ){
+		this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	public byte readByte() throws DaeParseException {
+		ensureRemaining(1);
+		return buffer.get();
+	}
+
+	public boolean readBoolean() throws DaeParseException {
+		return readByte() != 0;
+	}
+
+	public int readInt() throws DaeParseException {
+		ensureRemaining(4);
+		return buffer.getInt();
+	}
+
+	public long readLong() throws DaeParseException {
+		ensureRemaining(8);
+		return buffer.getLong();
+	}
+
+	public float readFloat() throws DaeParseException {
+		ensureRemaining(4);
+		return buffer.getFloat();
+	}
+
+	/**
+	 * @return The string or <b>null</b> if <b>null</b> was written.
+	 */
+	public String readString() throws DaeParseException {
+		byte[] bytes = readBytes();
+		return ( bytes == null ) ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return The array or <b>null</b> if <b>null</b> was written.
+	 */
+	public byte[] readBytes() throws DaeParseException {
+		int length = readLength(1);
+		if( length < 0 )
+			return null;
+		byte[] values = new byte[length];
+		buffer.get(values);
+		return values;
+	}
+
+	/**
+	 * @return The array or <b>null</b> if <b>null</b> was written.
+	 */
+	public short[] readShorts() throws DaeParseException {
+		int length = readLength(2);
+		if( length < 0 )
+			return null;
+		short[] values = new short[length];
+		buffer.asShortBuffer().get(values);
+		buffer.position(buffer.position() + length * 2);
+		return values;
+	}
+
+	/**
+	 * @return The array or <b>null</b> if <b>null</b> was written.
+	 */
+	public int[] readInts() throws DaeParseException {
+		int length = readLength(4);
+		if( length < 0 )
+			return null;
+		int[] values = new int[length];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + length * 4);
+		return values;
+	}
+
+	/**
+	 * @return The array or <b>null</b> if <b>null</b> was written.
+	 */
+	public float[] readFloats() throws DaeParseException {
+		int length = readLength(4);
+		if( length < 0 )
+			return null;
+		float[] values = new float[length];
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + length * 4);
+		return values;
+	}
+
+	/**
+	 * @return The array or <b>null</b> if <b>null</b> was written.
+	 */
+	public String[] readStrings() throws DaeParseException {
+		// Every string takes up at least the four bytes of its length
+		int length = readLength(4);
+		if( length < 0 )
+			return null;
+		String[] values = new String[length];
+		for( int i=0 ; i<length ; i++ )
+			values[i] = readString();
+		return values;
+	}
+
+	/**
+	 * Reads a map written by {@link ModelCacheWriter#writeStringMap(java.util.Map)} into the
+	 * given map.
+	 */
+	public void readStringMap( HashMap<String, String> values ) throws DaeParseException {
+		int size = readInt();
+		for( int i=0 ; i<size ; i++ )
+			values.put(readString(), readString());
+	}
+
+	/**
+	 * @return The {@link XxHash64} hash of the bytes after the current position, which is
+	 * left unchanged.
+	 */
+	public long hashRemaining(){
+		return XxHash64.hash(buffer, 0);
+	}
+
+	/**
+	 * Reads the length of an array and checks that the buffer holds all of its values.
+	 */
+	private int readLength( int value_size ) throws DaeParseException {
+		int length = readInt();
+		if( length >= 0 )
+			ensureRemaining( (long) length * value_size );
+		return length;
+	}
+
+	/**
+	 * Checks that the buffer holds at least the given number of bytes after the current
+	 * position. Called before allocating room for values read later, so a corrupted count
+	 * can not allocate more than the cache holds.
+	 * @param length - (long) Number of bytes that are going to be read.
+	 * @throws DaeParseException Thrown if the buffer holds less bytes.
+	 */
+	public void ensureRemaining( long length ) throws DaeParseException {
+		if( buffer.remaining() < length )
+			throw new DaeParseException("Model cache ended unexpectedly.");
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.viduus.util.models.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes the values of a processed model into the binary cache format read by
+ * {@link ModelCacheReader}. Values are little endian, arrays are written as their length
+ * followed by their values so they can be read back with a single bulk copy.
+ *
+ * @author Ethan Toney
+ */
+public class ModelCacheWriter {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * @param channel - (WritableByteChannel) Where the cache is written to.
+	 */
+	public ModelCacheWriter( WritableByteChannel channel ){
+		this.channel = channel;
+	}
+
+	public void writeByte( int value ) throws IOException {
+		ensureRemaining(1);
+		buffer.put((byte) value);
+	}
+
+	public void writeBoolean( boolean value ) throws IOException {
+		writeByte( value ? 1 : 0 );
+	}
+
+	public void writeInt( int value ) throws IOException {
+		ensureRemaining(4);
+		buffer.putInt(value);
+	}
+
+	public void writeLong( long value ) throws IOException {
+		ensureRemaining(8);
+		buffer.putLong(value);
+	}
+
+	public void writeFloat( float value ) throws IOException {
+		ensureRemaining(4);
+		buffer.putFloat(value);
+	}
+
+	/**
+	 * Writes a string that may be <b>null</b>.
+	 */
+	public void writeString( String value ) throws IOException {
+		if( value == null ){
+			writeInt(-1);
+			return;
+		}
+		writeBytes( value.getBytes(StandardCharsets.UTF_8) );
+	}
+
+	/**
+	 * Writes an array that may be <b>null</b>.
+	 */
+	public void writeBytes( byte[] values ) throws IOException {
+		if( values == null ){
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for( int i=0 ; i<values.length ; ){
+			int length = Math.min(values.length - i, buffer.remaining());
+			buffer.put(values, i, length);
+			i += length;
+			if( !buffer.hasRemaining() )
+				flush();
+		}
+	}
+
+	/**
+	 * Writes an array that may be <b>null</b>.
+	 */
+	public void writeShorts( short[] values ) throws IOException {
+		if( values == null ){
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for( int i=0 ; i<values.length ; ){
+			ensureRemaining(2);
+			int length = Math.min(values.length - i, buffer.remaining() / 2);
+			buffer.asShortBuffer().put(values, i, length);
+			buffer.position(buffer.position() + length * 2);
+			i += length;
+		}
+	}
+
+	/**
+	 * Writes an array that may be <b>null</b>.
+	 */
+	public void writeInts( int[] values ) throws IOException {
+		if( values == null ){
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for( int i=0 ; i<values.length ; ){
+			ensureRemaining(4);
+			int length = Math.min(values.length - i, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, i, length);
+			buffer.position(buffer.position() + length * 4);
+			i += length;
+		}
+	}
+
+	/**
+	 * Writes an array that may be <b>null</b>.
+	 */
+	public void writeFloats( float[] values ) throws IOException {
+		if( values == null ){
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for( int i=0 ; i<values.length ; ){
+			ensureRemaining(4);
+			int length = Math.min(values.length - i, buffer.remaining() / 4);
+			buffer.asFloatBuffer().put(values, i, length);
+			buffer.position(buffer.position() + length * 4);
+			i += length;
+		}
+	}
+
+	/**
+	 * Writes an array that may be <b>null</b>.
+	 */
+	public void writeStrings( String[] values ) throws IOException {
+		if( values == null ){
+			writeInt(-1);
+			return;
+		}
+		writeInt(values.length);
+		for( String value : values )
+			writeString(value);
+	}
+
+	/**
+	 * Writes a map of strings such as the semantic to source maps of inputs.
+	 */
+	public void writeStringMap( Map<String, String> values ) throws IOException {
+		writeInt(values.size());
+		for( Map.Entry<String, String> entry : values.entrySet() ){
+			writeString(entry.getKey());
+			writeString(entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes everything that is still buffered to the channel.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while( buffer.hasRemaining() )
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private void ensureRemaining( int length ) throws IOException {
+		if( buffer.remaining() < length )
+			flush();
+	}
+
+}
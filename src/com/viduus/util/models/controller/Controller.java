@@ -3,13 +3,20 @@
  */
 package com.viduus.util.models.controller;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.models.loader.DaeParseException;
-import com.viduus.util.models.util.Source;
+import com.viduus.util.models.loader.LoadCancelledException;
+import com.viduus.util.models.loader.LoadMonitor;
+import com.viduus.util.models.util.FloatArray;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.NameArray;
 
 /**
  * 
@@ -56,6 +63,35 @@ public class Controller {
 		max_joints_per_vert = new int[ skin.vertex_weights.size() ];
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;controller&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Controller(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("controller") )
+			throw new DaeParseException("Controller constructor must take a <controller> tag.");
+
+		id = LoaderFunctions.getAttribute(reader, "id");
+		name = LoaderFunctions.getAttribute(reader, "name");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			
+			if( child_name.equals("skin") ){
+				if( skin != null )
+					throw new DaeParseException("Multiple skin tags are not implemented.");
+				skin = new Skin(reader);
+				
+			}else{
+				throw new DaeParseException(child_name+" animation tag is not implemented.");
+			}
+		}
+		
+		joint_buffers = new float[ skin.vertex_weights.size() ][];
+		max_joints_per_vert = new int[ skin.vertex_weights.size() ];
+	}
+
 	/**
 	 * @return
 	 */
@@ -78,16 +114,21 @@ public class Controller {
 	}
 
 	/**
-	 * 
+	 * @throws LoadCancelledException Thrown if the load generating the buffer was cancelled.
 	 */
-	public void generateJointBuffer() {
+	public void generateJointBuffer() throws LoadCancelledException {
 		for( int i=0 ; i<skin.vertex_weights.size() ; i++ ){
 			if( joint_buffers[i] == null ){
 				VertexWeights this_weight = skin.vertex_weights.get(i);
 				
 				// get source data
-				Source joint_data = skin.sources.get(this_weight.sources.get("JOINT").substring(1));
-				Source weight_data = skin.sources.get(this_weight.sources.get("WEIGHT").substring(1));
+				NameArray joint_data = (NameArray) skin.sources.get(this_weight.sources.get("JOINT").substring(1)).array;
+				float[] weight_data = ((FloatArray) skin.sources.get(this_weight.sources.get("WEIGHT").substring(1)).array).data;
+				
+				// resolve every joint name to its bone index once
+				int[] joint_indexes = new int[joint_data.count];
+				for( int j=0 ; j<joint_data.count ; j++ )
+					joint_indexes[j] = skin.joint_bones.get(joint_data.data[j]).index;
 				
 				// allocate joint buffer
 				joint_buffers[i] = new float[2 * this_weight.vcount.length * this_weight.max_vcount];
@@ -96,7 +137,8 @@ public class Controller {
 				int v_index = 0;
 				
 				for( int j=0 ; j<this_weight.vcount.length ; j++ ){
-					byte vcount = this_weight.vcount[j];
+					LoadMonitor.checkCurrent(j);
+					int vcount = this_weight.vcount.get(j);
 					
 					for( int k=0 ; k<this_weight.max_vcount ; k++ ){
 						// add padding
@@ -106,10 +148,10 @@ public class Controller {
 							
 						// add actual values
 						}else{
-							short joint_index = this_weight.v_indexes[v_index++];
-							short weight_index = this_weight.v_indexes[v_index++];
-							joint_buffers[i][j_index++] = skin.joint_bones.get((String) joint_data.array.data[joint_index]).index;
-							joint_buffers[i][j_index++] = (float) weight_data.array.data[weight_index];
+							int joint_index = this_weight.v_indexes.get(v_index++);
+							int weight_index = this_weight.v_indexes.get(v_index++);
+							joint_buffers[i][j_index++] = joint_indexes[joint_index];
+							joint_buffers[i][j_index++] = weight_data[weight_index];
 						}
 					}
 				}
@@ -7,6 +7,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -15,6 +18,10 @@ import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.math.Mat4;
 import com.viduus.util.models.geometries.Polylist;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.Mat4Array;
+import com.viduus.util.models.util.NameArray;
+import com.viduus.util.models.util.NumberScanner;
 import com.viduus.util.models.util.Source;
 
 /**
@@ -53,11 +60,7 @@ public class Skin {
 				sources.put(source.getId(), source);
 				
 			}else if( child_name.equals("bind_shape_matrix") ){
-				float[] mat = new float[16];
-				String[] numbers = child.getTextContent().split(" ");
-				for( int j=0 ; j<numbers.length ; j++ )
-					mat[j] = Float.parseFloat(numbers[j]);
-				bind_shape_matrix = new Mat4(mat);
+				bind_shape_matrix = new Mat4(new NumberScanner(child.getTextContent()).readFloats(16));
 				
 			}else if( child_name.equals("joints") ){
 				NodeList sampler_elements = child.getChildNodes();
@@ -79,16 +82,62 @@ public class Skin {
 			}
 		}
 		
+		createJointBones();
+	}
+
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;skin&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Skin(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("skin") )
+			throw new DaeParseException("Animation constructor must take a <animation> tag.");
+
+		source_id = LoaderFunctions.getAttribute(reader, "source").substring(1);
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			
+			if( child_name.equals("source") ){
+				Source source = new Source(reader);
+				sources.put(source.getId(), source);
+				
+			}else if( child_name.equals("bind_shape_matrix") ){
+				bind_shape_matrix = new Mat4(new NumberScanner(reader).readFloats(16));
+				
+			}else if( child_name.equals("joints") ){
+				while( LoaderFunctions.nextChildElement(reader) ){
+					if( reader.getLocalName().equals("input") ){
+						String semantic = LoaderFunctions.getAttribute(reader, "semantic");
+						String source = LoaderFunctions.getAttribute(reader, "source").substring(1);
+						joints.put(semantic, source);
+					}
+					LoaderFunctions.skipElement(reader);
+				}
+				
+			}else if( child_name.equals("vertex_weights") ){
+				vertex_weights.add(new VertexWeights(reader));
+				
+			}else{
+				throw new DaeParseException(child_name+" animation tag is not implemented.");
+			}
+		}
+		
+		createJointBones();
+	}
+	
+	private void createJointBones() throws DaeParseException {
 		// Check for unsupported stuff
 		// TODO Support multiple <vertex_weights>
 		if( vertex_weights.size() > 1 )
 			throw new DaeParseException("Multiple <vertex_weights> tags are not supported.");
 		
 		// Create joint bones
-		Source joint_names = sources.get(joints.get("JOINT"));
-		Source joint_matricies = sources.get(joints.get("INV_BIND_MATRIX"));
-		for( int i=0 ; i<joint_names.array.count ; i++ ){
-			Joint n_joint = new Joint( (String)joint_names.array.data[i], i, (Mat4)joint_matricies.array.data[i] );
+		NameArray joint_names = (NameArray) sources.get(joints.get("JOINT")).array;
+		Mat4Array joint_matricies = (Mat4Array) sources.get(joints.get("INV_BIND_MATRIX")).array;
+		for( int i=0 ; i<joint_names.count ; i++ ){
+			Joint n_joint = new Joint( joint_names.data[i], i, joint_matricies.getMatrix(i) );
 			joint_bones.put(n_joint.name, n_joint);
 		}
 	}
@@ -2,12 +2,18 @@ package com.viduus.util.models.controller;
 
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.IndexArray;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.NumberScanner;
 
 /**
  * This class loads and holds all of the face data from collada file.
@@ -20,12 +26,12 @@ public class VertexWeights {
 	 * Number of vertices in a face. This should be constant
 	 */
 	public final int max_vcount;
-	public final byte[] vcount;
+	public final IndexArray vcount;
 	
 	/**
 	 *  Array of indexes that point to the vertex array
 	 */
-	public final short[] v_indexes;
+	public final IndexArray v_indexes;
 	
 	/**
 	 *  Source id for vertex
@@ -51,7 +57,7 @@ public class VertexWeights {
 
 		HashMap<String, Node> elements = new HashMap<>();
 		
-		vcount = new byte[count];
+		int[] counts = new int[count];
 		
 		// Index them into elements and parse input fields
 		for( int i=0 ; i<source_data.getLength() ; i++ ){
@@ -74,26 +80,92 @@ public class VertexWeights {
 		}
 		
 		// Load in vertex count array
-		Node vcount_node = elements.get("vcount");
-		String[] nums = vcount_node.getTextContent().split(" ");
+		int vert_count = loadVCount(new NumberScanner(elements.get("vcount").getTextContent()), counts);
+		max_vcount = getMaxVCount(counts);
+		vcount = new IndexArray(counts, max_vcount);
+		
+		// Load in vertex index array
+		v_indexes = new IndexArray(loadIndexes(new NumberScanner(elements.get("v").getTextContent()), vert_count*sources.size()));
+	}
+
+	/**
+	 * Constructs and loads the vertex weights from a stream reader positioned on a
+	 * &lt;vertex_weights&gt; start tag. The reader is left on the matching end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public VertexWeights(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("vertex_weights") )
+			throw new DaeParseException("VertexWeights constructor must be run on a <vertex_weights> tag.");
+		
+		int count = Integer.parseInt(LoaderFunctions.getAttribute(reader, "count"));
+		
+		int[] counts = new int[count];
+		int vert_count = -1;
+		int[] indexes = null;
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String node_name = reader.getLocalName();
+			
+			if( node_name.equals("input") ){
+				String semantic = LoaderFunctions.getAttribute(reader, "semantic");
+				String source = LoaderFunctions.getAttribute(reader, "source");
+				sources.put(semantic, source);
+				LoaderFunctions.skipElement(reader);
+				
+			}else if( node_name.equals("vcount") ){
+				vert_count = loadVCount(new NumberScanner(reader), counts);
+				
+			}else if( node_name.equals("v") ){
+				// The number of indexes is only known once the inputs and vcount are read
+				if( vert_count < 0 )
+					throw new DaeParseException("<v> tag must come after the <vcount> tag.");
+				indexes = loadIndexes(new NumberScanner(reader), vert_count*sources.size());
+				
+			}else{
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+		
+		if( indexes == null )
+			throw new DaeParseException("Missing <v> tag.");
+		max_vcount = getMaxVCount(counts);
+		
+		vcount = new IndexArray(counts, max_vcount);
+		v_indexes = new IndexArray(indexes);
+	}
+	
+	/**
+	 * Parses the text of a &lt;vcount&gt; tag into the given array.
+	 * 
+	 * @return The total number of indexes referenced.
+	 */
+	private static int loadVCount( NumberScanner scanner, int[] vcount ) throws DaeParseException {
 		int vert_count = 0;
-		int max_vcount = 0;
-		for( int i=0 ; i<count ; i++ ){
-			vcount[i] = Byte.parseByte(nums[i]);
-			if( vcount[i] > max_vcount )
-				max_vcount = vcount[i];
+		for( int i=0 ; i<vcount.length ; i++ ){
+			vcount[i] = scanner.nextInt();
 			vert_count += vcount[i];
 		}
-		this.max_vcount = max_vcount;
-		
-		// Load in vertex index array
-		int numb_inputs = sources.size();
-		v_indexes = new short[vert_count*numb_inputs];
-		Node index_node = elements.get("v");
-		String[] index_nums = index_node.getTextContent().split(" ");
-		for( int i=0 ; i<vert_count*numb_inputs ; i++ ){
-			v_indexes[i] = Short.parseShort(index_nums[i]);
+		scanner.skipRemaining();
+		return vert_count;
+	}
+	
+	private static int getMaxVCount( int[] vcount ){
+		int max_vcount = 0;
+		for( int count : vcount ){
+			if( count > max_vcount )
+				max_vcount = count;
 		}
+		return max_vcount;
+	}
+	
+	/**
+	 * Parses the text of a &lt;v&gt; tag.
+	 */
+	private static int[] loadIndexes( NumberScanner scanner, int length ) throws DaeParseException {
+		return scanner.readInts(length);
 	}
 
 	/**
@@ -3,14 +3,22 @@
  */
 package com.viduus.util.models.effects;
 
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.geometries.Mesh;
 import com.viduus.util.models.loader.DaeParseException;
 import com.viduus.util.models.util.Color;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -75,6 +83,60 @@ public class Effect {
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on an &lt;effect&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Effect(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		// Get properties of this effect
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String profile_name = reader.getLocalName();
+			
+			// Make sure that the profile is supported
+			if( !profile_name.equals("profile_COMMON") )
+				throw new DaeParseException("Unsupported effect profile '"+profile_name+"'!");
+			
+			while( LoaderFunctions.nextChildElement(reader) ){
+				String technique_node_name = reader.getLocalName();
+				
+				if( !technique_node_name.equals("technique") )
+					throw new DaeParseException("Effect profile:'"+profile_name+"' tag:'"+profile_name+"' is not supported!");
+				
+				String technique_name = LoaderFunctions.getAttribute(reader, "sid");
+				
+				// Check that the technique is supported
+				if( !technique_name.equals("common") )
+					throw new DaeParseException("Effect technique '"+technique_name+"' is not supported!");
+				
+				while( LoaderFunctions.nextChildElement(reader) ){
+					String type_node_name = reader.getLocalName();
+					
+					// Check that the type of technique is supported
+					if( type_node_name.equals("phong") ){
+						lighting_model = new PhongModel( reader );
+					}else{
+						throw new DaeParseException("Effect technique:'"+technique_name+"' type:'"+type_node_name+"' is not supported!");
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads an effect back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Effect(ModelCacheReader reader) throws DaeParseException {
+		id = reader.readString();
+		if( reader.readBoolean() )
+			lighting_model = LightingModel.read(reader);
+	}
+
 	/**
 	 * @return
 	 */
@@ -82,6 +144,19 @@ public class Effect {
 		return id;
 	}
 
+	/**
+	 * Writes this effect to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		writer.writeBoolean( lighting_model != null );
+		if( lighting_model != null )
+			lighting_model.write(writer);
+	}
+
 	/**
 	 * FIXME - Should be removed before release
 	 * <b>ONLY FOR TESTING PURPOSES</b>
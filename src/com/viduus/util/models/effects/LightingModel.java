@@ -3,6 +3,12 @@
  */
 package com.viduus.util.models.effects;
 
+import java.io.IOException;
+
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
+import com.viduus.util.models.loader.DaeParseException;
+
 /**
  * 
  *
@@ -10,9 +16,37 @@ package com.viduus.util.models.effects;
  */
 public abstract class LightingModel {
 
+	/**
+	 * Type ids written in front of a lighting model in a model cache.
+	 */
+	protected static final int PHONG = 1;
+
 	/**
 	 * 
 	 */
 	public abstract void printData();
 
+	/**
+	 * Writes this lighting model, starting with its type id, to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public abstract void write(ModelCacheWriter writer) throws IOException;
+
+	/**
+	 * Reads a lighting model written by {@link #write(ModelCacheWriter)} back from a
+	 * model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @return The lighting model.
+	 * @throws DaeParseException Thrown if the type id is unknown.
+	 */
+	public static LightingModel read(ModelCacheReader reader) throws DaeParseException {
+		int type = reader.readByte();
+		if( type == PHONG )
+			return new PhongModel(reader);
+		throw new DaeParseException("Unknown lighting model type "+type+" in model cache.");
+	}
+
 }
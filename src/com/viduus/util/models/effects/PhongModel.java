@@ -3,12 +3,20 @@
  */
 package com.viduus.util.models.effects;
 
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
 import com.viduus.util.models.util.Color;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -60,6 +68,91 @@ public class PhongModel extends LightingModel{
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;phong&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public PhongModel(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("phong") )
+			throw new DaeParseException("PhongModel constructor must be passed a <phong> tag.");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String data_type = reader.getLocalName();
+			
+			while( LoaderFunctions.nextChildElement(reader) ){
+				if( data_type.equals("emission") ){
+					emission = new Color(reader);
+				}else if( data_type.equals("ambient") ){
+					ambient = new Color(reader);
+				}else if( data_type.equals("diffuse") ){
+					diffuse = new Color(reader);
+				}else if( data_type.equals("specular") ){
+					specular = new Color(reader);
+				}else if( data_type.equals("shininess") ){
+					shininess = Float.parseFloat(reader.getElementText());
+				}else if( data_type.equals("reflective") ){
+					reflective = new Color(reader);
+				}else if( data_type.equals("reflectivity") ){
+					reflectivity = Float.parseFloat(reader.getElementText());
+				}else if( data_type.equals("transparent") ){
+					transparent = new Color(reader);
+				}else if( data_type.equals("transparency") ){
+					transparency = Float.parseFloat(reader.getElementText());
+				}else{
+					LoaderFunctions.skipElement(reader);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a phong model back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public PhongModel(ModelCacheReader reader) throws DaeParseException {
+		emission = readColor(reader);
+		ambient = readColor(reader);
+		diffuse = readColor(reader);
+		specular = readColor(reader);
+		reflective = readColor(reader);
+		transparent = readColor(reader);
+		shininess = reader.readFloat();
+		reflectivity = reader.readFloat();
+		transparency = reader.readFloat();
+		index_of_refraction = reader.readFloat();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.viduus.util.models.effects.LightingModel#write(com.viduus.util.models.cache.ModelCacheWriter)
+	 */
+	@Override
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeByte(PHONG);
+		writeColor(writer, emission);
+		writeColor(writer, ambient);
+		writeColor(writer, diffuse);
+		writeColor(writer, specular);
+		writeColor(writer, reflective);
+		writeColor(writer, transparent);
+		writer.writeFloat(shininess);
+		writer.writeFloat(reflectivity);
+		writer.writeFloat(transparency);
+		writer.writeFloat(index_of_refraction);
+	}
+
+	private static Color readColor(ModelCacheReader reader) throws DaeParseException {
+		return reader.readBoolean() ? new Color(reader) : null;
+	}
+
+	private static void writeColor(ModelCacheWriter writer, Color color) throws IOException {
+		writer.writeBoolean( color != null );
+		if( color != null )
+			color.write(writer);
+	}
+
 	/* (non-Javadoc)
 	 * @see com.viduus.util.models.effects.LightingModel#printData()
 	 */
@@ -0,0 +1,77 @@
+package com.viduus.util.models.geometries;
+
+import com.viduus.util.models.loader.LoadCancelledException;
+
+/**
+ * Generates the GPU and IBO buffers of the polylists of a mesh a part at a time, so that a
+ * load done in steps can stop in the middle of a large mesh and go on with it on its next
+ * step. The faces are welded and split into triangles a few thousand at a time, and the
+ * deadline is checked in between. Splitting the triangles into batches is done at once.
+ *
+ * @author Ethan Toney
+ */
+public class BufferGenerator {
+
+	private final Mesh mesh;
+	private final int max_bones_per_vertex;
+	private final float[] joint_buffer;
+
+	// Polylist whose buffers are being generated
+	private int polylist = 0;
+	private Polylist.BufferBuilder builder = null;
+
+	/**
+	 * @param mesh - (Mesh) Mesh whose buffers are generated.
+	 * @param max_bones_per_vertex - (int) Number of joints written for each vertex.
+	 * @param joint_buffer - (float[]) Joint ids and weights of each position,
+	 * <b>null</b> if the mesh is not skinned.
+	 */
+	BufferGenerator( Mesh mesh, int max_bones_per_vertex, float[] joint_buffer ){
+		this.mesh = mesh;
+		this.max_bones_per_vertex = max_bones_per_vertex;
+		this.joint_buffer = joint_buffer;
+	}
+
+	/**
+	 * Generates the buffers until they are done or the deadline has passed.
+	 *
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the buffers
+	 * are left for the next call.
+	 * @return True once the buffers of every polylist are generated.
+	 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
+	 */
+	public boolean generate( long deadline ) throws LoadCancelledException {
+		return generate( deadline, false );
+	}
+
+	/**
+	 * Generates the rest of the buffers at once.
+	 *
+	 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
+	 */
+	public void generate() throws LoadCancelledException {
+		generate( 0, true );
+	}
+
+	/**
+	 * @return The mesh whose buffers are generated.
+	 */
+	public Mesh getMesh(){
+		return mesh;
+	}
+
+	private boolean generate( long deadline, boolean whole ) throws LoadCancelledException {
+		while( polylist < mesh.polylists.size() ){
+			if( builder == null )
+				builder = mesh.polylists.get(polylist).startGpuBuffer(max_bones_per_vertex, joint_buffer);
+			if( !builder.build(deadline, whole) )
+				return false;
+			builder = null;
+			polylist++;
+			if( !whole && polylist < mesh.polylists.size() && System.nanoTime() - deadline >= 0 )
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -1,8 +1,13 @@
 package com.viduus.util.models.geometries;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
@@ -11,9 +16,15 @@ import org.w3c.dom.NodeList;
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.math.Mat3;
 import com.viduus.util.math.Mat4;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.loader.LoadCancelledException;
+import com.viduus.util.models.loader.LoadMonitor;
+import com.viduus.util.models.loader.LoadOptions;
 import com.viduus.util.models.materials.Material;
 import com.viduus.util.models.util.FloatArray;
+import com.viduus.util.models.util.LoaderFunctions;
 import com.viduus.util.models.util.Source;
 
 /**
@@ -41,6 +52,19 @@ public class Mesh{
 	 * @throws DaeParseException
 	 */
 	public Mesh(String geometry_id, String geometry_name, Node curr_mesh) throws DaeParseException{
+		this( geometry_id, geometry_name, curr_mesh, new LoadOptions() );
+	}
+	
+	/**
+	 * Creates a new mesh off of a mesh xml tag. Inputs the options skip are dropped, and
+	 * sources only used by them are never parsed.
+	 * @param geometry_id
+	 * @param geometry_name
+	 * @param curr_mesh - The mesh tag
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException
+	 */
+	public Mesh(String geometry_id, String geometry_name, Node curr_mesh, LoadOptions options) throws DaeParseException{
 		if( !curr_mesh.getNodeName().equals("mesh") )
 			throw new DaeParseException("Mesh constructor must take a <mesh> tag.");
 		
@@ -49,6 +73,8 @@ public class Mesh{
 		
 		// Get children data sources
 		NodeList data_sources = curr_mesh.getChildNodes();
+		// Sources are parsed once the inputs using them are known
+		List<Node> source_nodes = new ArrayList<>();
 		
 		for( int src_id=0 ; src_id<data_sources.getLength() ; src_id++ ){
 			// Get the current source
@@ -56,11 +82,11 @@ public class Mesh{
 			String source_name = curr_source.getNodeName();
 			
 			if( !source_name.equals("#text") ){
+				LoadMonitor.checkCurrent();
 				
 				// Load in FloatArrays
 				if( source_name.equals("source") ){
-					Source source_node = new Source(curr_source);
-					sources.put(source_node.getId(), source_node);
+					source_nodes.add(curr_source);
 					
 				// Load in vertex pointer
 				}else if( source_name.equals("vertices") ){
@@ -68,16 +94,165 @@ public class Mesh{
 					verticies.put(verticies_node.getId(), verticies_node);
 					
 				// Load in all of the faces
-				}else if( source_name.equals("polylist") ){
-					polylists.add(new Polylist(curr_source, this));
+				}else if( Polylist.isPrimitive(source_name) ){
+					polylists.add(new Polylist(curr_source, this, options));
 				}
 			}
 		}
+		
+		for( Node source_node : source_nodes ){
+			String source_id = LoaderFunctions.getAttributeFromMap(source_node.getAttributes(), "id");
+			if( isSourceUsed(source_id, options) ){
+				LoadMonitor.checkCurrent();
+				sources.put(source_id, new Source(source_node));
+			}
+		}
+	}
+	
+	/**
+	 * Creates a new mesh from a stream reader positioned on a mesh start tag. The
+	 * reader is left on the matching end tag.
+	 * 
+	 * @param geometry_id
+	 * @param geometry_name
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Mesh(String geometry_id, String geometry_name, XMLStreamReader reader) throws DaeParseException, XMLStreamException{
+		this( geometry_id, geometry_name, reader, new LoadOptions() );
+	}
+	
+	/**
+	 * Creates a new mesh from a stream reader positioned on a mesh start tag. Inputs the
+	 * options skip are dropped, and the numbers of sources only used by them are never
+	 * parsed. The reader is left on the matching end tag.
+	 * 
+	 * @param geometry_id
+	 * @param geometry_name
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Mesh(String geometry_id, String geometry_name, XMLStreamReader reader, LoadOptions options) throws DaeParseException, XMLStreamException{
+		this( geometry_id, geometry_name );
+		new MeshReader(this, reader, options).readWhole();
+	}
+	
+	/**
+	 * Creates an empty mesh, which is filled by a {@link MeshReader}.
+	 */
+	Mesh(String geometry_id, String geometry_name){
+		id = geometry_id;
+		name = geometry_name;
+	}
+	
+	/**
+	 * @param source_id - (String) Id of a source of this mesh.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @return True if an input the options load uses the source. Every source is used
+	 * when all inputs are loaded.
+	 */
+	boolean isSourceUsed(String source_id, LoadOptions options) {
+		if( options.loadsAllInputs() )
+			return true;
+		
+		String source_url = "#"+source_id;
+		for( Verticies verticies_node : verticies.values() ){
+			for( Map.Entry<String, String> input : verticies_node.sources.entrySet() ){
+				if( options.isInputLoaded(input.getKey()) && input.getValue().equals(source_url) )
+					return true;
+			}
+		}
+		// Polylists already dropped their skipped inputs
+		for( Polylist polylist : polylists ){
+			if( polylist.sources.containsValue(source_url) )
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Reads a processed mesh, including its materials, back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Mesh(ModelCacheReader reader) throws DaeParseException{
+		id = reader.readString();
+		name = reader.readString();
+		
+		int source_count = reader.readInt();
+		for( int i=0 ; i<source_count ; i++ )
+			sources.put(reader.readString(), new Source(reader));
+		
+		int verticies_count = reader.readInt();
+		for( int i=0 ; i<verticies_count ; i++ )
+			verticies.put(reader.readString(), new Verticies(reader));
+		
+		int polylist_count = reader.readInt();
+		for( int i=0 ; i<polylist_count ; i++ )
+			polylists.add(new Polylist(reader, this));
+		
+		int material_count = reader.readInt();
+		for( int i=0 ; i<material_count ; i++ ){
+			String symbol = reader.readString();
+			materials.put(symbol, reader.readBoolean() ? new Material(reader) : null);
+		}
+	}
+	
+	/**
+	 * Writes this mesh, including its materials, to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		writer.writeString(name);
+		
+		writer.writeInt(sources.size());
+		for( String key : sources.keySet() ){
+			writer.writeString(key);
+			sources.get(key).write(writer);
+		}
+		
+		writer.writeInt(verticies.size());
+		for( String key : verticies.keySet() ){
+			writer.writeString(key);
+			verticies.get(key).write(writer);
+		}
+		
+		writer.writeInt(polylists.size());
+		for( Polylist polylist : polylists )
+			polylist.write(writer);
+		
+		writer.writeInt(materials.size());
+		for( String symbol : materials.keySet() ){
+			Material material = materials.get(symbol);
+			writer.writeString(symbol);
+			writer.writeBoolean( material != null );
+			if( material != null )
+				material.write(writer);
+		}
 	}
 	
 	public String getName() {
 		return this.name;
 	}
+	
+	/**
+	 * @return The number of bytes taken up by the sources and polylists of this mesh.
+	 */
+	public long getByteSize() {
+		long size = 0;
+		for( Source source : sources.values() )
+			size += source.getByteSize();
+		for( Polylist polylist : polylists )
+			size += polylist.getByteSize();
+		return size;
+	}
 
 	/**
 	 * FIXME - Should be removed before release
@@ -103,22 +278,37 @@ public class Mesh{
 
 	/**
 	 * @param joint_buffers
+	 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
 	 */
-	public void setJointBuffer(int[] max_joints_per_vert, float[][] joint_buffers) {
-		// generate polylist's vbos.
-		for( Polylist polylist : polylists ){
-			polylist.generateGpuBuffer(max_joints_per_vert[0], joint_buffers[0]);
-		}
+	public void setJointBuffer(int[] max_joints_per_vert, float[][] joint_buffers) throws LoadCancelledException {
+		startJointBuffer(max_joints_per_vert, joint_buffers).generate();
 	}
 
 	/**
+	 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
+	 */
+	public void setJointBuffer() throws LoadCancelledException {
+		startJointBuffer().generate();
+	}
+
+	/**
+	 * Starts generating the polylist's vbos with the joints of a controller, to be done a
+	 * part at a time by the returned generator.
+	 * @param max_joints_per_vert
 	 * @param joint_buffers
+	 * @return The generator of the buffers.
 	 */
-	public void setJointBuffer() {
-		// generate polylist's vbos.
-		for( Polylist polylist : polylists ){
-			polylist.generateGpuBuffer(0, null);
-		}
+	public BufferGenerator startJointBuffer(int[] max_joints_per_vert, float[][] joint_buffers) {
+		return new BufferGenerator(this, max_joints_per_vert[0], joint_buffers[0]);
+	}
+
+	/**
+	 * Starts generating the polylist's vbos without joints, to be done a part at a time by
+	 * the returned generator.
+	 * @return The generator of the buffers.
+	 */
+	public BufferGenerator startJointBuffer() {
+		return new BufferGenerator(this, 0, null);
 	}
 
 	/**
@@ -0,0 +1,172 @@
+package com.viduus.util.models.geometries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.loader.LoadCancelledException;
+import com.viduus.util.models.loader.LoadMonitor;
+import com.viduus.util.models.loader.LoadOptions;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.Source;
+import com.viduus.util.models.util.SourceReader;
+import com.viduus.util.models.util.UnparsedSource;
+
+/**
+ * Reads a &lt;mesh&gt; tag from a stream a part at a time, so that a load done in steps can
+ * stop in the middle of a large mesh and go on with it on its next step. The numbers of
+ * the sources and faces are parsed a chunk at a time, and the deadline is checked between
+ * chunks and between the small tags of the mesh.
+ *
+ * @author Ethan Toney
+ */
+public class MeshReader {
+
+	private final Mesh mesh;
+	private final XMLStreamReader reader;
+	private final LoadOptions options;
+
+	// Sources come before the inputs using them, so when inputs are skipped the
+	// numbers of the sources are only parsed at the end
+	private final List<UnparsedSource> unparsed_sources = new ArrayList<>();
+	// Number of unparsed sources looked at, -1 while the tags of the mesh are read
+	private int checked_sources = -1;
+
+	// Tag being read, null between tags
+	private SourceReader source_reader = null;
+	private PolylistReader polylist_reader = null;
+	private boolean done = false;
+
+	/**
+	 * Creates a reader of the mesh a stream reader is positioned on. Inputs the options
+	 * skip are dropped, and the numbers of sources only used by them are never parsed.
+	 *
+	 * @param geometry_id - (String) Id of the geometry of the mesh.
+	 * @param geometry_name - (String) Name of the geometry of the mesh.
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;mesh&gt; start tag. The
+	 * reader is left on the matching end tag once the mesh is read.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException
+	 */
+	public MeshReader( String geometry_id, String geometry_name, XMLStreamReader reader, LoadOptions options ) throws DaeParseException {
+		this( new Mesh(geometry_id, geometry_name), reader, options );
+	}
+
+	/**
+	 * Creates a reader filling the given empty mesh.
+	 */
+	MeshReader( Mesh mesh, XMLStreamReader reader, LoadOptions options ) throws DaeParseException {
+		if( !reader.getLocalName().equals("mesh") )
+			throw new DaeParseException("Mesh constructor must take a <mesh> tag.");
+
+		this.mesh = mesh;
+		this.reader = reader;
+		this.options = options;
+	}
+
+	/**
+	 * Reads the mesh until it is done or the deadline has passed.
+	 *
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the mesh is
+	 * left for the next call.
+	 * @return True once the mesh is read.
+	 * @throws DaeParseException
+	 * @throws LoadCancelledException Thrown if the load reading the mesh was cancelled.
+	 * @throws XMLStreamException
+	 */
+	public boolean read( long deadline ) throws DaeParseException, XMLStreamException {
+		return read( deadline, false );
+	}
+
+	/**
+	 * Reads the rest of the mesh at once.
+	 *
+	 * @throws DaeParseException
+	 * @throws LoadCancelledException Thrown if the load reading the mesh was cancelled.
+	 * @throws XMLStreamException
+	 */
+	public void readWhole() throws DaeParseException, XMLStreamException {
+		read( 0, true );
+	}
+
+	/**
+	 * @return The mesh, which is only complete once it is read.
+	 */
+	public Mesh getMesh(){
+		return mesh;
+	}
+
+	private boolean read( long deadline, boolean whole ) throws DaeParseException, XMLStreamException {
+		while( !done ){
+			if( source_reader != null ){
+				if( whole )
+					source_reader.readWhole();
+				else if( !source_reader.read(deadline) )
+					return false;
+				Source source = source_reader.getSource();
+				mesh.sources.put(source.getId(), source);
+				source_reader = null;
+
+			}else if( polylist_reader != null ){
+				if( !polylist_reader.read(deadline, whole) )
+					return false;
+				mesh.polylists.add(new Polylist(polylist_reader, mesh, options));
+				polylist_reader = null;
+
+			}else if( checked_sources < 0 ){
+				readElement();
+
+			}else if( checked_sources < unparsed_sources.size() ){
+				UnparsedSource unparsed_source = unparsed_sources.get(checked_sources++);
+				if( mesh.isSourceUsed(unparsed_source.getId(), options) ){
+					LoadMonitor.checkCurrent();
+					source_reader = unparsed_source.newParser();
+				}
+
+			}else{
+				done = true;
+			}
+
+			if( !done && !whole && System.nanoTime() - deadline >= 0 )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Starts reading the next tag of the mesh. Sources and faces are read by the next
+	 * calls, the other tags are small enough to be read at once.
+	 */
+	private void readElement() throws DaeParseException, XMLStreamException {
+		if( !LoaderFunctions.nextChildElement(reader) ){
+			checked_sources = 0;
+			return;
+		}
+		LoadMonitor.checkCurrent();
+		String source_name = reader.getLocalName();
+
+		// Load in FloatArrays
+		if( source_name.equals("source") && options.loadsAllInputs() ){
+			source_reader = new SourceReader(reader);
+
+		}else if( source_name.equals("source") ){
+			unparsed_sources.add(new UnparsedSource(reader));
+
+		// Load in vertex pointer
+		}else if( source_name.equals("vertices") ){
+			Verticies verticies_node = new Verticies(reader);
+			mesh.verticies.put(verticies_node.getId(), verticies_node);
+
+		// Load in all of the faces
+		}else if( Polylist.isPrimitive(source_name) ){
+			polylist_reader = new PolylistReader(reader);
+
+		}else{
+			LoaderFunctions.skipElement(reader);
+		}
+	}
+
+}
@@ -1,15 +1,29 @@
 package com.viduus.util.models.geometries;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.loader.LoadCancelledException;
+import com.viduus.util.models.loader.LoadMonitor;
+import com.viduus.util.models.loader.LoadOptions;
 import com.viduus.util.models.util.FloatArray;
+import com.viduus.util.models.util.IndexArray;
 import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.NumberScanner;
 
 /**
  * This class loads and holds all of the face data from collada file.
@@ -21,14 +35,14 @@ public class Polylist {
 	private final Mesh mesh;
 	
 	/**
-	 * Number of vertices in a face. This should be constant
+	 * Number of vertices of each face, 3 for every face of a &lt;triangles&gt; tag
 	 */
-	public final byte[] vcount;
+	public final IndexArray vcount;
 	
 	/**
 	 *  Array of indexes that point to the vertex array
 	 */
-	public final short[] v_indexes;
+	public final IndexArray v_indexes;
 	
 	/**
 	 *  Source id for vertex
@@ -36,14 +50,62 @@ public class Polylist {
 	public final HashMap<String, String> sources = new HashMap<>();
 	
 	/**
-	 * This polylist's GPU (Graphics Processing Unit) buffer
+	 * Position of the index of each input among the indexes of a face corner. Only the
+	 * first input of each semantic is kept, like in sources.
+	 */
+	public final HashMap<String, Integer> offsets = new HashMap<>();
+	
+	/**
+	 * Number of indexes of each face corner, inputs sharing an offset share an index
+	 */
+	public int index_stride = 0;
+	
+	/**
+	 * This polylist's GPU (Graphics Processing Unit) buffer, holding each unique vertex once
 	 */
 	public float[] gpu_buffer = null;
 	
 	/**
-	 * This polylist's IBO (Index Buffer Object) buffer
+	 * This polylist's IBO (Index Buffer Object) buffer, holding the indexes of the vertices
+	 * of the triangles the faces are split into, 3 per triangle. Indexes are unsigned shorts
+	 * unless the GPU buffer has more vertices than they address.
+	 */
+	public IndexArray ibo_buffer = null;
+	
+	/**
+	 * Ranges of the GPU and IBO buffers drawn together. Holds a single batch covering both
+	 * buffers unless the polylist was split, the indexes of each batch are then relative to
+	 * its first vertex.
 	 */
-	public short[] ibo_buffer = null;
+	public List<PolylistBatch> batches = null;
+	
+	/**
+	 * Largest number of vertices of a batch, 0 if the polylist is never split
+	 */
+	private final int max_batch_vertices;
+	
+	/**
+	 * True if the triangles are reordered for the post-transform vertex cache
+	 */
+	private final boolean optimize_vertex_cache;
+	
+	/**
+	 * Vertices shaded per triangle (ACMR) by a post-transform cache of
+	 * {@link VertexCacheOptimizer#CACHE_SIZE} vertices, before and after the triangles were
+	 * reordered for it. 0 unless the triangles are reordered.
+	 */
+	public float acmr_before = 0, acmr_after = 0;
+	
+	/**
+	 * Vertices shaded per vertex (ATVR) by the same cache, before and after the triangles
+	 * were reordered. 0 unless the triangles are reordered.
+	 */
+	public float atvr_before = 0, atvr_after = 0;
+	
+	/**
+	 * Number of faces welded or split into triangles between two looks at the deadline
+	 */
+	private static final int FACES_PER_CHECK = 4096;
 	
 	/**
 	 * The number of elements per vertex.  Will be 0 until "getGPUBuffer" is called
@@ -61,10 +123,27 @@ public class Polylist {
 	 * @see Node
 	 */
 	public Polylist(Node source_node, Mesh mesh) throws DaeParseException {
-		if( !source_node.getNodeName().equals("polylist") )
-			throw new DaeParseException("Polylist constructor must be run on a <polylist> tag.");
+		this( source_node, mesh, new LoadOptions() );
+	}
+
+	/**
+	 * Constructs and loads the Polyface data with a given &lt;polylist&gt;, &lt;triangles&gt;
+	 * or &lt;polygons&gt; xml tag Node, dropping the inputs the options skip. Holes of
+	 * polygons are dropped.
+	 * 
+	 * @param source_node - (Node) XML polylist Node
+	 * @param mesh - (Mesh) The mesh this polylist belongs to.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException 
+	 */
+	public Polylist(Node source_node, Mesh mesh, LoadOptions options) throws DaeParseException {
+		String primitive = source_node.getNodeName();
+		if( !isPrimitive(primitive) )
+			throw new DaeParseException("Polylist constructor must be run on a <polylist>, <triangles> or <polygons> tag.");
 		
 		this.mesh = mesh;
+		this.max_batch_vertices = options.getMaxBatchVertices();
+		this.optimize_vertex_cache = options.optimize_vertex_cache;
 		
 		NodeList source_data = source_node.getChildNodes();
 		NamedNodeMap source_attributes = source_node.getAttributes();
@@ -73,8 +152,12 @@ public class Polylist {
 		material_symbol = LoaderFunctions.getAttributeFromMap(source_attributes, "material");
 
 		HashMap<String, Node> elements = new HashMap<>();
+		// Each face of a <polygons> tag has a <p> tag of its own
+		List<int[]> polygons = new ArrayList<>();
+		List<String> semantics = new ArrayList<>();
+		List<Integer> input_offsets = new ArrayList<>();
 		
-		vcount = new byte[count];
+		int[] counts = new int[count];
 		
 		// Index them into elements and parse input fields
 		for( int i=0 ; i<source_data.getLength() ; i++ ){
@@ -88,31 +171,328 @@ public class Polylist {
 			if( node_name.equals("input") ){
 				String semantic = node_attrs.getNamedItem("semantic").getTextContent();
 				String source = node_attrs.getNamedItem("source").getTextContent();
-				sources.put(semantic, source);
+				int offset = parseOffset(semantic, LoaderFunctions.getAttributeFromMap(node_attrs, "offset"), semantics.size());
+				addInput(semantic, source, offset);
+				semantics.add(semantic);
+				input_offsets.add(offset);
 			
+			}else if( node_name.equals("p") && primitive.equals("polygons") ){
+				polygons.add(new NumberScanner(curr_node.getTextContent()).readAllInts());
+				
+			// Polygon with holes, only its outline is kept
+			}else if( node_name.equals("ph") ){
+				NodeList outline = curr_node.getChildNodes();
+				for( int j=0 ; j<outline.getLength() ; j++ ){
+					if( outline.item(j).getNodeName().equals("p") )
+						polygons.add(new NumberScanner(outline.item(j).getTextContent()).readAllInts());
+				}
+				
 			// Happens for vcount and p
 			}else{
 				elements.put(node_name, curr_node);
 			}
 		}
 		
-		// Load in vertex count array
-		Node vcount_node = elements.get("vcount");
-		String[] nums = vcount_node.getTextContent().split(" ");
+		int[] indexes;
+		if( primitive.equals("polygons") ){
+			indexes = joinPolygons(polygons, counts, getStride(input_offsets));
+			
+		}else{
+			// Load in vertex count array
+			int vert_count;
+			if( primitive.equals("triangles") ){
+				Arrays.fill(counts, 3);
+				vert_count = count * 3;
+			}else{
+				vert_count = loadVCount(new NumberScanner(elements.get("vcount").getTextContent()), counts);
+			}
+			
+			// Load in vertex index array
+			indexes = loadIndexes(new NumberScanner(elements.get("p").getTextContent()), vert_count*getStride(input_offsets));
+		}
+		
+		vcount = new IndexArray(counts);
+		v_indexes = new IndexArray(dropInputs(semantics, input_offsets, indexes, options));
+	}
+
+	/**
+	 * Constructs and loads the Polyface data from a stream reader positioned on a
+	 * &lt;polylist&gt;, &lt;triangles&gt; or &lt;polygons&gt; start tag. The reader is
+	 * left on the matching end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @param mesh - (Mesh) The mesh this polylist belongs to.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Polylist(XMLStreamReader reader, Mesh mesh) throws DaeParseException, XMLStreamException {
+		this( reader, mesh, new LoadOptions() );
+	}
+
+	/**
+	 * Constructs and loads the Polyface data from a stream reader positioned on a
+	 * &lt;polylist&gt;, &lt;triangles&gt; or &lt;polygons&gt; start tag, dropping the
+	 * inputs the options skip. Holes of polygons are dropped. The reader is left on the
+	 * matching end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @param mesh - (Mesh) The mesh this polylist belongs to.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Polylist(XMLStreamReader reader, Mesh mesh, LoadOptions options) throws DaeParseException, XMLStreamException {
+		this( new PolylistReader(reader).readWhole(), mesh, options );
+	}
+
+	/**
+	 * Constructs the Polyface data from faces read by a {@link PolylistReader}, dropping
+	 * the inputs the options skip.
+	 * 
+	 * @param read - (PolylistReader) Reader that read the whole tag.
+	 * @param mesh - (Mesh) The mesh this polylist belongs to.
+	 * @param options - (LoadOptions) Which inputs are loaded.
+	 * @throws DaeParseException 
+	 */
+	Polylist(PolylistReader read, Mesh mesh, LoadOptions options) throws DaeParseException {
+		this.mesh = mesh;
+		this.max_batch_vertices = options.getMaxBatchVertices();
+		this.optimize_vertex_cache = options.optimize_vertex_cache;
+		
+		material_symbol = read.material_symbol;
+		for( int i=0 ; i<read.semantics.size() ; i++ )
+			addInput(read.semantics.get(i), read.input_sources.get(i), read.input_offsets.get(i));
+		
+		vcount = new IndexArray(read.counts);
+		v_indexes = new IndexArray(dropInputs(read.semantics, read.input_offsets, read.indexes, options));
+	}
+	
+	/**
+	 * @param tag_name - (String) Name of a tag inside a &lt;mesh&gt; tag.
+	 * @return True if the tag holds faces a Polylist can be loaded from.
+	 */
+	public static boolean isPrimitive( String tag_name ){
+		return tag_name.equals("polylist") || tag_name.equals("triangles") || tag_name.equals("polygons");
+	}
+	
+	/**
+	 * Reads the face data, including the generated GPU buffers, back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @param mesh - (Mesh) The mesh this polylist belongs to.
+	 * @throws DaeParseException
+	 */
+	public Polylist(ModelCacheReader reader, Mesh mesh) throws DaeParseException {
+		this.mesh = mesh;
+		
+		material_symbol = reader.readString();
+		vcount = new IndexArray(reader);
+		v_indexes = new IndexArray(reader);
+		reader.readStringMap(sources);
+		index_stride = reader.readInt();
+		int offset_count = reader.readInt();
+		for( int i=0 ; i<offset_count ; i++ )
+			offsets.put(reader.readString(), reader.readInt());
+		elements_per_vertex = reader.readInt();
+		gpu_buffer = reader.readFloats();
+		ibo_buffer = reader.readBoolean() ? new IndexArray(reader) : null;
+		max_batch_vertices = reader.readInt();
+		optimize_vertex_cache = reader.readBoolean();
+		acmr_before = reader.readFloat();
+		acmr_after = reader.readFloat();
+		atvr_before = reader.readFloat();
+		atvr_after = reader.readFloat();
+		int batch_count = reader.readInt();
+		if( batch_count >= 0 ){
+			// Every batch is four ints
+			reader.ensureRemaining( batch_count * 16L );
+			batches = new ArrayList<>(batch_count);
+			for( int i=0 ; i<batch_count ; i++ )
+				batches.add(new PolylistBatch(reader));
+		}
+	}
+	
+	/**
+	 * Writes the face data, including the generated GPU buffers, to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(material_symbol);
+		vcount.write(writer);
+		v_indexes.write(writer);
+		writer.writeStringMap(sources);
+		writer.writeInt(index_stride);
+		writer.writeInt(offsets.size());
+		for( String semantic : offsets.keySet() ){
+			writer.writeString(semantic);
+			writer.writeInt(offsets.get(semantic));
+		}
+		writer.writeInt(elements_per_vertex);
+		writer.writeFloats(gpu_buffer);
+		writer.writeBoolean(ibo_buffer != null);
+		if( ibo_buffer != null )
+			ibo_buffer.write(writer);
+		writer.writeInt(max_batch_vertices);
+		writer.writeBoolean(optimize_vertex_cache);
+		writer.writeFloat(acmr_before);
+		writer.writeFloat(acmr_after);
+		writer.writeFloat(atvr_before);
+		writer.writeFloat(atvr_after);
+		writer.writeInt(batches != null ? batches.size() : -1);
+		if( batches != null ){
+			for( PolylistBatch batch : batches )
+				batch.write(writer);
+		}
+	}
+	
+	/**
+	 * Parses the text of a &lt;vcount&gt; tag into the given array.
+	 * 
+	 * @return The total number of vertices referenced by the faces.
+	 */
+	private static int loadVCount( NumberScanner scanner, int[] vcount ) throws DaeParseException {
 		int vert_count = 0;
-		for( int i=0 ; i<count ; i++ ){
-			vcount[i] = Byte.parseByte(nums[i]);
+		for( int i=0 ; i<vcount.length ; i++ ){
+			vcount[i] = scanner.nextInt();
 			vert_count += vcount[i];
 		}
+		scanner.skipRemaining();
+		return vert_count;
+	}
+	
+	/**
+	 * Joins the indexes of the &lt;p&gt; tags of a &lt;polygons&gt; tag.
+	 * 
+	 * @param polygons - (List) Indexes of each polygon.
+	 * @param vcount - (int[]) Receives the number of vertices of each polygon.
+	 * @param input_count - (int) Number of indexes per vertex.
+	 * @return The indexes of all polygons.
+	 */
+	static int[] joinPolygons( List<int[]> polygons, int[] vcount, int input_count ) throws DaeParseException {
+		if( polygons.size() != vcount.length )
+			throw new DaeParseException("Expected "+vcount.length+" polygons but found "+polygons.size()+".");
+		
+		int length = 0;
+		for( int[] polygon : polygons )
+			length += polygon.length;
 		
-		// Load in vertex index array
-		int numb_inputs = sources.size();
-		v_indexes = new short[vert_count*numb_inputs];
-		Node index_node = elements.get("p");
-		String[] index_nums = index_node.getTextContent().split(" ");
-		for( int i=0 ; i<vert_count*numb_inputs ; i++ ){
-			v_indexes[i] = Short.parseShort(index_nums[i]);
+		int[] indexes = new int[length];
+		int index = 0;
+		for( int i=0 ; i<vcount.length ; i++ ){
+			int[] polygon = polygons.get(i);
+			if( input_count == 0 || polygon.length % input_count != 0 )
+				throw new DaeParseException("Polygon has "+polygon.length+" indexes, which is not a multiple of its "+input_count+" inputs.");
+			vcount[i] = polygon.length / input_count;
+			System.arraycopy(polygon, 0, indexes, index, polygon.length);
+			index += polygon.length;
 		}
+		return indexes;
+	}
+	
+	/**
+	 * Parses the offset of an input of the faces.
+	 * 
+	 * @param offset - (String) Value of the 'offset' field, <b>null</b> to use the position
+	 * of the input.
+	 * @param position - (int) Number of inputs before this one.
+	 * @return The position of the index of the input among the indexes of a face corner.
+	 */
+	static int parseOffset( String semantic, String offset, int position ) throws DaeParseException {
+		int input_offset;
+		try{
+			input_offset = ( offset != null ) ? Integer.parseInt(offset.trim()) : position;
+		}catch( NumberFormatException e ){
+			throw new DaeParseException("Invalid offset '"+offset+"' of input "+semantic+".");
+		}
+		if( input_offset < 0 )
+			throw new DaeParseException("Invalid offset '"+offset+"' of input "+semantic+".");
+		return input_offset;
+	}
+	
+	/**
+	 * Adds an input of the faces. Only the first input of each semantic is read, so the
+	 * second set of texture coordinates of a mesh is left out.
+	 */
+	private void addInput( String semantic, String source, int offset ){
+		if( !sources.containsKey(semantic) ){
+			sources.put(semantic, source);
+			offsets.put(semantic, offset);
+		}
+	}
+	
+	/**
+	 * @return The number of indexes per face corner, one more than the largest offset.
+	 */
+	static int getStride( List<Integer> input_offsets ){
+		int stride = 0;
+		for( int offset : input_offsets )
+			stride = Math.max(stride, offset + 1);
+		return stride;
+	}
+	
+	/**
+	 * Removes the inputs the options skip from the sources and from the interleaved indexes.
+	 * The index of an offset is kept as long as an input that is loaded still uses it. Sets
+	 * the index stride and moves the offsets to the indexes that are kept.
+	 * 
+	 * @param semantics - (List) Semantics of the inputs.
+	 * @param input_offsets - (List) Offset of each input.
+	 * @return The indexes of the inputs that are kept.
+	 */
+	private int[] dropInputs( List<String> semantics, List<Integer> input_offsets, int[] indexes, LoadOptions options ){
+		int stride = getStride(input_offsets);
+		boolean[] keep = new boolean[stride];
+		for( int i=0 ; i<semantics.size() ; i++ ){
+			if( options.isInputLoaded(semantics.get(i)) ){
+				keep[input_offsets.get(i)] = true;
+			}else{
+				sources.remove(semantics.get(i));
+				offsets.remove(semantics.get(i));
+			}
+		}
+		
+		// New position of each kept offset
+		int[] moved = new int[stride];
+		int kept = 0;
+		for( int i=0 ; i<stride ; i++ )
+			moved[i] = keep[i] ? kept++ : -1;
+		index_stride = kept;
+		if( kept == stride )
+			return indexes;
+		
+		for( String semantic : offsets.keySet() )
+			offsets.put(semantic, moved[offsets.get(semantic)]);
+		
+		int[] kept_indexes = new int[indexes.length / stride * kept];
+		int kept_index = 0;
+		for( int i=0 ; i<indexes.length ; i++ ){
+			if( keep[i % stride] )
+				kept_indexes[kept_index++] = indexes[i];
+		}
+		return kept_indexes;
+	}
+	
+	/**
+	 * Parses the text of a &lt;p&gt; tag.
+	 */
+	private static int[] loadIndexes( NumberScanner scanner, int length ) throws DaeParseException {
+		return scanner.readInts(length);
+	}
+	
+	/**
+	 * @return The number of bytes taken up by the face data and the generated GPU buffers.
+	 */
+	public long getByteSize() {
+		long size = vcount.getByteSize() + v_indexes.getByteSize();
+		if( gpu_buffer != null )
+			size += gpu_buffer.length * 4L;
+		if( ibo_buffer != null )
+			size += ibo_buffer.getByteSize();
+		if( batches != null )
+			size += batches.size() * 16L;
+		return size;
 	}
 
 	/**
@@ -123,13 +503,13 @@ public class Polylist {
 		OutputHandler.println("Polyface:[material_symbol:"+material_symbol+", count:'"+v_indexes.length+"', vertex_source:'"+sources.get("VERTEX")+"', normal_source:'"+sources.get("NORMAL")+"', texture_source:'"+sources.get("TEXCOORD")+"']");
 	}
 	
-	public short[] getIBOBuffer() {
-		if(ibo_buffer != null)
-			return ibo_buffer;
-		
-		ibo_buffer = new short[ this.vcount.length * 3 ];
-		for( short i = 0 ; i < ibo_buffer.length ; i++ )
-			ibo_buffer[i] = i;
+	/**
+	 * @return The indexes of the vertices of every triangle, 3 per triangle.
+	 * @throws RuntimeException Thrown if the GPU buffer was not generated yet.
+	 */
+	public IndexArray getIBOBuffer() {
+		if(ibo_buffer == null)
+			throw new RuntimeException("Must generate GPU buffer before getting the IBO buffer.");
 		
 		return ibo_buffer;
 	}
@@ -141,59 +521,263 @@ public class Polylist {
 		return gpu_buffer;
 	}
 
-	public void generateGpuBuffer(int max_bones_per_vertex, float[] joint_buffer) {
-		int gpu_index = 0, index = 0;
-
-	    FloatArray vertexes = this.sources.containsKey("VERTEX") ? (FloatArray) mesh.sources.get(mesh.verticies.get(this.sources.get("VERTEX").substring(1)).sources.get("POSITION").substring(1)).array : null;
-	    FloatArray normals = this.sources.containsKey("NORMAL") ? (FloatArray) mesh.sources.get(this.sources.get("NORMAL").substring(1)).array : null;
-	    FloatArray textures = this.sources.containsKey("TEXCOORD") ? (FloatArray) mesh.sources.get(this.sources.get("TEXCOORD").substring(1)).array : null;
-	
-	    elements_per_vertex = (vertexes != null ? vertexes.stride : 0) + 
-					    	   (normals != null ? normals.stride : 0) + 
-					    	   (textures != null ? textures.stride : 0) + 
-					    	   2 * max_bones_per_vertex;
-	    
-		gpu_buffer = new float[ this.vcount.length * 3 * elements_per_vertex ];
-	    
-		for( byte verts : this.vcount ){
+	/**
+	 * Generates the GPU buffer holding every unique vertex of the faces and the IBO buffer
+	 * holding the vertex indexes of the triangles the faces are split into. Face corners
+	 * with the same position, normal, texture coordinate and joints share a single vertex.
+	 * Convex faces are split into a fan and concave ones by ear clipping, and the triangles
+	 * are reordered for the vertex cache if the options ask for it. The indexes
+	 * are unsigned shorts when there are at most 65536 vertices, and ints otherwise. If the
+	 * options limit the vertices of a batch and there are more, the faces are split into
+	 * batches instead.
+	 * 
+	 * @param max_bones_per_vertex - (int) Number of joints written for each vertex.
+	 * @param joint_buffer - (float[]) Joint ids and weights of each position,
+	 * <b>null</b> if the mesh is not skinned.
+	 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
+	 */
+	public void generateGpuBuffer(int max_bones_per_vertex, float[] joint_buffer) throws LoadCancelledException {
+		startGpuBuffer(max_bones_per_vertex, joint_buffer).build(0, true);
+	}
+	
+	/**
+	 * Starts generating the GPU and IBO buffers, see {@link #generateGpuBuffer(int, float[])}.
+	 * The buffers are generated a part at a time by the returned builder.
+	 */
+	BufferBuilder startGpuBuffer(int max_bones_per_vertex, float[] joint_buffer) {
+		return new BufferBuilder(max_bones_per_vertex, joint_buffer);
+	}
+	
+	/**
+	 * Generates the GPU and IBO buffers of this polylist a part at a time. The faces are
+	 * welded and split into triangles a few thousand at a time, and the deadline is checked
+	 * in between.
+	 */
+	final class BufferBuilder {
+		
+		private final int max_bones_per_vertex;
+		private final float[] joint_buffer;
+		private final FloatArray vertexes, normals, textures;
+		private final int vert_offset, norm_offset, text_offset;
+		
+		// Welding, up to the face, index and corner reached
+		private final VertexWelder welder;
+		private final int[] corner_vertices;
+		private final float[] vertex;
+		private final int[] vert_i, norm_i, text_i;
+		private int face = 0, index = 0, corner = 0;
+		
+		// Splitting the faces into triangles, once every face is welded
+		private final int triangle_count;
+		private float[] vertices;
+		private int vertex_count;
+		private int[] triangles;
+		private Triangulator triangulator;
+		private int triangulated_faces = 0, triangulated_corners = 0, written = 0;
+		
+		private VertexCacheOptimizer optimizer;
+		
+		private BufferBuilder(int max_bones_per_vertex, float[] joint_buffer) {
+			this.max_bones_per_vertex = max_bones_per_vertex;
+			this.joint_buffer = joint_buffer;
 			
-			short[] vert_i = new short[verts];
-			short[] norm_i = new short[verts];
-			short[] text_i = new short[verts];
-			for( int i = 0 ; i < verts ; i++ ){
-				if(vertexes != null)
-					vert_i[i] = this.v_indexes[index++];
-				if(normals != null)
-					norm_i[i] = this.v_indexes[index++];
-				if(textures != null)
-					text_i[i] = this.v_indexes[index++];
+		    vertexes = sources.containsKey("VERTEX") ? (FloatArray) mesh.sources.get(mesh.verticies.get(sources.get("VERTEX").substring(1)).sources.get("POSITION").substring(1)).array : null;
+		    normals = sources.containsKey("NORMAL") ? (FloatArray) mesh.sources.get(sources.get("NORMAL").substring(1)).array : null;
+		    textures = sources.containsKey("TEXCOORD") ? (FloatArray) mesh.sources.get(sources.get("TEXCOORD").substring(1)).array : null;
+		
+		    elements_per_vertex = (vertexes != null ? vertexes.stride : 0) + 
+						    	   (normals != null ? normals.stride : 0) + 
+						    	   (textures != null ? textures.stride : 0) + 
+						    	   2 * max_bones_per_vertex;
+		    
+		    int corner_count = 0, max_verts = 0, triangle_count = 0;
+		    for( int i = 0 ; i < vcount.length ; i++ ){
+		    	corner_count += vcount.get(i);
+		    	max_verts = Math.max(max_verts, vcount.get(i));
+		    	triangle_count += Math.max(0, vcount.get(i) - 2);
+		    }
+		    this.triangle_count = triangle_count;
+		    
+		    welder = new VertexWelder(elements_per_vertex, corner_count);
+		    corner_vertices = new int[corner_count];
+		    vertex = new float[elements_per_vertex];
+		    vert_i = new int[max_verts];
+		    norm_i = new int[max_verts];
+		    text_i = new int[max_verts];
+		    
+			vert_offset = offsets.getOrDefault("VERTEX", 0);
+			norm_offset = offsets.getOrDefault("NORMAL", 0);
+			text_offset = offsets.getOrDefault("TEXCOORD", 0);
+		}
+		
+		/**
+		 * Generates the buffers until they are done or the deadline has passed.
+		 * 
+		 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the
+		 * buffers are left for the next call.
+		 * @param whole - (boolean) True to generate the rest of the buffers at once.
+		 * @return True once the buffers are generated.
+		 * @throws LoadCancelledException Thrown if the load generating the buffers was cancelled.
+		 */
+		boolean build(long deadline, boolean whole) throws LoadCancelledException {
+			while( face < vcount.length ){
+				weldFaces( Math.min(vcount.length, face + FACES_PER_CHECK) );
+				if( !whole && System.nanoTime() - deadline >= 0 )
+					return false;
 			}
 			
-			for( int i = 0; i < verts; i++ ){
-				int offset = -1;
-				
-				if(vertexes != null) {
-					for( int j = 0 ; j < vertexes.stride; j++ )
-						gpu_buffer[ gpu_index * elements_per_vertex + (++offset)] = vertexes.data[vert_i[i] * vertexes.stride + j];
+			if( triangles == null ){
+				vertices = welder.getVertices();
+				vertex_count = welder.getVertexCount();
+				triangles = new int[ triangle_count * 3 ];
+				triangulator = new Triangulator(vertexes != null && vertexes.stride >= 3 ? vertices : null, elements_per_vertex);
+			}
+			while( triangulated_faces < vcount.length ){
+				triangulateFaces( Math.min(vcount.length, triangulated_faces + FACES_PER_CHECK) );
+				if( !whole && System.nanoTime() - deadline >= 0 )
+					return false;
+			}
+			
+			// Reordered before the split into batches, so that each batch keeps the order
+			if( optimize_vertex_cache ){
+				int cache_size = VertexCacheOptimizer.CACHE_SIZE;
+				if( optimizer == null ){
+					// Measured in place, the order is lost once the optimizer starts
+					acmr_before = VertexCacheOptimizer.getACMR(triangles, 0, triangles.length, vertex_count, cache_size);
+					atvr_before = VertexCacheOptimizer.getATVR(triangles, 0, triangles.length, vertex_count, cache_size);
+					optimizer = new VertexCacheOptimizer(triangles, 0, triangles.length, vertex_count);
 				}
+				if( !optimizer.optimize(deadline, whole) )
+					return false;
+				acmr_after = VertexCacheOptimizer.getACMR(triangles, 0, triangles.length, vertex_count, cache_size);
+				atvr_after = VertexCacheOptimizer.getATVR(triangles, 0, triangles.length, vertex_count, cache_size);
+				OutputHandler.println(String.format("Polylist[material_symbol:%s, triangles:%d] ACMR %.3f -> %.3f, ATVR %.3f -> %.3f",
+						material_symbol, triangles.length / 3, acmr_before, acmr_after, atvr_before, atvr_after));
+			}
+			
+			if( max_batch_vertices > 0 && vertex_count > max_batch_vertices ){
+				splitBatches(vertices, vertex_count, triangles);
+			}else{
+				gpu_buffer = vertices;
+				ibo_buffer = new IndexArray(triangles, Math.max(0, vertex_count - 1));
+				batches = new ArrayList<>(1);
+				batches.add(new PolylistBatch(0, vertex_count, 0, triangles.length));
+			}
+			return true;
+		}
+		
+		/**
+		 * Welds the corners of the faces up to the given face.
+		 */
+		private void weldFaces(int end_face) throws LoadCancelledException {
+			for( ; face < end_face ; face++ ){
+				LoadMonitor.checkCurrent(face);
+				int verts = vcount.get(face);
 				
-				if(normals != null) {
-					for( int j = 0 ; j < normals.stride; j++ )
-						gpu_buffer[ gpu_index * elements_per_vertex + (++offset)] = normals.data[norm_i[i] * normals.stride + j];
+				for( int i = 0 ; i < verts ; i++, index += index_stride ){
+					if(vertexes != null)
+						vert_i[i] = v_indexes.get(index + vert_offset);
+					if(normals != null)
+						norm_i[i] = v_indexes.get(index + norm_offset);
+					if(textures != null)
+						text_i[i] = v_indexes.get(index + text_offset);
 				}
 				
-				if(textures != null) {
-					for( int j = 0 ; j < textures.stride; j++ )
-						gpu_buffer[ gpu_index * elements_per_vertex + (++offset)] = textures.data[norm_i[i] * textures.stride + j];
+				for( int i = 0; i < verts; i++ ){
+					int offset = -1;
+					
+					if(vertexes != null) {
+						for( int j = 0 ; j < vertexes.stride; j++ )
+							vertex[++offset] = vertexes.data[vert_i[i] * vertexes.stride + j];
+					}
+					
+					if(normals != null) {
+						for( int j = 0 ; j < normals.stride; j++ )
+							vertex[++offset] = normals.data[norm_i[i] * normals.stride + j];
+					}
+					
+					if(textures != null) {
+						for( int j = 0 ; j < textures.stride; j++ )
+							vertex[++offset] = textures.data[text_i[i] * textures.stride + j];
+					}
+					
+					if(joint_buffer != null) {
+						for( int j = 0 ; j < max_bones_per_vertex*2 ; j++ )
+							vertex[++offset] = joint_buffer[ 2 * max_bones_per_vertex * vert_i[i] + j ];
+					}
+					
+					corner_vertices[corner++] = welder.add(vertex);
 				}
-				
-				if(joint_buffer != null) {
-					for( int j = 0 ; j < max_bones_per_vertex*2 ; j++ )
-						gpu_buffer[ gpu_index * elements_per_vertex + (++offset)] = joint_buffer[ 2 * max_bones_per_vertex * vert_i[i] + j ];
+			}
+		}
+		
+		/**
+		 * Splits the faces up to the given face into triangles, faces with less than 3
+		 * vertices are dropped.
+		 */
+		private void triangulateFaces(int end_face) {
+			for( ; triangulated_faces < end_face ; triangulated_faces++ ){
+				int verts = vcount.get(triangulated_faces);
+				written += triangulator.triangulate(corner_vertices, triangulated_corners, verts, triangles, written);
+				triangulated_corners += verts;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Splits the triangles into batches of at most max_batch_vertices vertices. Triangles
+	 * are kept in order, and the vertices shared by triangles of different batches are
+	 * copied into each of them.
+	 * 
+	 * @param vertices - (float[]) The welded vertices.
+	 * @param vertex_count - (int) Number of welded vertices.
+	 * @param triangles - (int[]) Index of the welded vertex of every triangle corner.
+	 */
+	private void splitBatches( float[] vertices, int vertex_count, int[] triangles ) {
+		// Batch number of the last batch each welded vertex was copied into, and its index there
+		int[] vertex_batch = new int[vertex_count];
+		int[] vertex_index = new int[vertex_count];
+		float[] batch_vertices = new float[ vertices.length + vertices.length / 8 ];
+		int[] indexes = new int[triangles.length];
+		
+		batches = new ArrayList<>();
+		int batch = 1, first_vertex = 0, first_index = 0, batch_vertex_count = 0, max_vertex_count = 0;
+		
+		for( int corner = 0 ; corner < triangles.length ; ){
+			int added = 0;
+			for( int i = 0 ; i < 3 ; i++ ){
+				if( vertex_batch[triangles[corner + i]] != batch )
+					added++;
+			}
+			
+			// A batch always takes at least one triangle
+			if( batch_vertex_count > 0 && batch_vertex_count + added > max_batch_vertices ){
+				batches.add(new PolylistBatch(first_vertex, batch_vertex_count, first_index, corner - first_index));
+				first_vertex += batch_vertex_count;
+				first_index = corner;
+				batch_vertex_count = 0;
+				batch++;
+			}
+			
+			for( int i = 0 ; i < 3 ; i++, corner++ ){
+				int vertex = triangles[corner];
+				if( vertex_batch[vertex] != batch ){
+					vertex_batch[vertex] = batch;
+					vertex_index[vertex] = batch_vertex_count++;
+					
+					int offset = (first_vertex + vertex_index[vertex]) * elements_per_vertex;
+					if( offset + elements_per_vertex > batch_vertices.length )
+						batch_vertices = Arrays.copyOf(batch_vertices, batch_vertices.length * 2);
+					System.arraycopy(vertices, vertex * elements_per_vertex, batch_vertices, offset, elements_per_vertex);
 				}
-				
-				gpu_index++;
+				indexes[corner] = vertex_index[vertex];
 			}
+			max_vertex_count = Math.max(max_vertex_count, batch_vertex_count);
 		}
+		batches.add(new PolylistBatch(first_vertex, batch_vertex_count, first_index, triangles.length - first_index));
+		
+		gpu_buffer = Arrays.copyOf(batch_vertices, (first_vertex + batch_vertex_count) * elements_per_vertex);
+		ibo_buffer = new IndexArray(indexes, Math.max(0, max_vertex_count - 1));
 	}
 }
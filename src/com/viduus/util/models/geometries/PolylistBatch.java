@@ -0,0 +1,78 @@
+package com.viduus.util.models.geometries;
+
+import java.io.IOException;
+
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * A range of a polylist's GPU and IBO buffers that is drawn with a single draw call. The
+ * indexes of a batch are relative to its first vertex, so a polylist split into batches
+ * of at most 65536 vertices is drawn with 16 bit indexes, each batch with its vertex
+ * attributes offset to its first vertex or with a base vertex.
+ *
+ * @author Ethan Toney
+ */
+public class PolylistBatch {
+
+	/**
+	 * Index of the first vertex of this batch in the GPU buffer
+	 */
+	public final int first_vertex;
+
+	/**
+	 * Number of vertices of this batch
+	 */
+	public final int vertex_count;
+
+	/**
+	 * Position of the first index of this batch in the IBO buffer
+	 */
+	public final int first_index;
+
+	/**
+	 * Number of indexes of this batch
+	 */
+	public final int index_count;
+
+	/**
+	 * @param first_vertex - (int) Index of the first vertex of the batch in the GPU buffer.
+	 * @param vertex_count - (int) Number of vertices of the batch.
+	 * @param first_index - (int) Position of the first index of the batch in the IBO buffer.
+	 * @param index_count - (int) Number of indexes of the batch.
+	 */
+	public PolylistBatch(int first_vertex, int vertex_count, int first_index, int index_count) {
+		this.first_vertex = first_vertex;
+		this.vertex_count = vertex_count;
+		this.first_index = first_index;
+		this.index_count = index_count;
+	}
+
+	/**
+	 * Reads a batch back from a model cache.
+	 *
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public PolylistBatch(ModelCacheReader reader) throws DaeParseException {
+		first_vertex = reader.readInt();
+		vertex_count = reader.readInt();
+		first_index = reader.readInt();
+		index_count = reader.readInt();
+	}
+
+	/**
+	 * Writes this batch to a model cache.
+	 *
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeInt(first_vertex);
+		writer.writeInt(vertex_count);
+		writer.writeInt(first_index);
+		writer.writeInt(index_count);
+	}
+
+}
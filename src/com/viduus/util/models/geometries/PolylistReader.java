@@ -0,0 +1,173 @@
+package com.viduus.util.models.geometries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.NumberListReader;
+import com.viduus.util.models.util.NumberScanner;
+
+/**
+ * Reads a &lt;polylist&gt;, &lt;triangles&gt; or &lt;polygons&gt; tag from a stream a part
+ * at a time, so that a load done in steps can stop in the middle of a large &lt;p&gt; tag
+ * and go on with it on its next step. Holes of polygons are dropped.
+ *
+ * @author Ethan Toney
+ */
+final class PolylistReader {
+
+	private final XMLStreamReader reader;
+	private final String primitive;
+	final String material_symbol;
+
+	/*
+	 * Inputs in the order of the tag
+	 */
+	final List<String> semantics = new ArrayList<>();
+	final List<String> input_sources = new ArrayList<>();
+	final List<Integer> input_offsets = new ArrayList<>();
+
+	// Number of vertices of each face
+	int[] counts;
+	// Indexes of the inputs of every face corner, null until the <p> tag is read
+	int[] indexes = null;
+
+	private int vert_count = -1;
+	// Each face of a <polygons> tag has a <p> tag of its own
+	private final List<int[]> polygons = new ArrayList<>();
+	// Numbers of the <vcount> or <p> tag being read, null between tags
+	private NumberListReader vcount_list = null;
+	private NumberListReader index_list = null;
+	private boolean done = false;
+
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;polylist&gt;,
+	 * &lt;triangles&gt; or &lt;polygons&gt; start tag. The reader is left on the matching
+	 * end tag once the faces are read.
+	 * @throws DaeParseException
+	 */
+	PolylistReader( XMLStreamReader reader ) throws DaeParseException {
+		primitive = reader.getLocalName();
+		if( !Polylist.isPrimitive(primitive) )
+			throw new DaeParseException("Polylist constructor must be run on a <polylist>, <triangles> or <polygons> tag.");
+
+		this.reader = reader;
+		int count = Integer.parseInt(LoaderFunctions.getAttribute(reader, "count"));
+		material_symbol = LoaderFunctions.getAttribute(reader, "material");
+
+		counts = new int[count];
+		if( primitive.equals("triangles") ){
+			Arrays.fill(counts, 3);
+			vert_count = count * 3;
+		}
+	}
+
+	/**
+	 * Reads the faces until they are done or the deadline has passed.
+	 *
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the faces
+	 * are left for the next call.
+	 * @param whole - (boolean) True to read the rest of the faces at once.
+	 * @return True once the faces are read.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	boolean read( long deadline, boolean whole ) throws DaeParseException, XMLStreamException {
+		while( !done ){
+			if( vcount_list != null ){
+				if( !readList(vcount_list, deadline, whole) )
+					return false;
+				counts = vcount_list.getInts();
+				vert_count = 0;
+				for( int vertices : counts )
+					vert_count += vertices;
+				vcount_list = null;
+
+			}else if( index_list != null ){
+				if( !readList(index_list, deadline, whole) )
+					return false;
+				indexes = index_list.getInts();
+				index_list = null;
+
+			}else if( LoaderFunctions.nextChildElement(reader) ){
+				readElement();
+				if( !whole && System.nanoTime() - deadline >= 0 )
+					return false;
+
+			}else{
+				if( primitive.equals("polygons") )
+					indexes = Polylist.joinPolygons(polygons, counts, Polylist.getStride(input_offsets));
+				if( indexes == null )
+					throw new DaeParseException("Missing <p> tag.");
+				done = true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the rest of the faces at once.
+	 *
+	 * @return This reader.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	PolylistReader readWhole() throws DaeParseException, XMLStreamException {
+		read( 0, true );
+		return this;
+	}
+
+	/**
+	 * Reads the child of the faces the stream is positioned on, except for the numbers of
+	 * &lt;vcount&gt; and &lt;p&gt; tags which are read by the next calls.
+	 */
+	private void readElement() throws DaeParseException, XMLStreamException {
+		String node_name = reader.getLocalName();
+
+		if( node_name.equals("input") ){
+			String semantic = LoaderFunctions.getAttribute(reader, "semantic");
+			input_offsets.add(Polylist.parseOffset(semantic, LoaderFunctions.getAttribute(reader, "offset"), semantics.size()));
+			input_sources.add(LoaderFunctions.getAttribute(reader, "source"));
+			semantics.add(semantic);
+			LoaderFunctions.skipElement(reader);
+
+		}else if( node_name.equals("vcount") ){
+			vcount_list = NumberListReader.ofInts(new NumberScanner(reader), counts.length);
+
+		}else if( node_name.equals("p") && primitive.equals("polygons") ){
+			polygons.add(new NumberScanner(reader).readAllInts());
+
+		}else if( node_name.equals("p") ){
+			// The number of indexes is only known once the inputs and vcount are read
+			if( vert_count < 0 )
+				throw new DaeParseException("<p> tag must come after the <vcount> tag.");
+			index_list = NumberListReader.ofInts(new NumberScanner(reader), vert_count*Polylist.getStride(input_offsets));
+
+		// Polygon with holes, only its outline is kept
+		}else if( node_name.equals("ph") ){
+			while( LoaderFunctions.nextChildElement(reader) ){
+				if( reader.getLocalName().equals("p") )
+					polygons.add(new NumberScanner(reader).readAllInts());
+				else
+					LoaderFunctions.skipElement(reader);
+			}
+
+		}else{
+			LoaderFunctions.skipElement(reader);
+		}
+	}
+
+	private static boolean readList( NumberListReader list, long deadline, boolean whole ) throws DaeParseException {
+		if( whole ){
+			list.readWhole();
+			return true;
+		}
+		return list.read(deadline);
+	}
+
+}
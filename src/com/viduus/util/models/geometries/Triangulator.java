@@ -0,0 +1,157 @@
+package com.viduus.util.models.geometries;
+
+/**
+ * Splits faces into triangles that keep the winding of the face. Convex faces are split
+ * into a fan around their first corner. Concave faces are split by ear clipping in the
+ * plane the face is projected onto, which falls back to a fan if the face crosses itself
+ * or has no area.
+ *
+ * @author Ethan Toney
+ */
+final class Triangulator {
+
+	private final float[] vertices;
+	private final int stride;
+	// Projected corners of the face being split and the corners not clipped yet
+	private float[] xs = new float[16];
+	private float[] ys = new float[16];
+	private int[] ring = new int[16];
+
+	/**
+	 * @param vertices - (float[]) The vertices the faces index, each starting with its
+	 * position. <b>null</b> if there are no positions, every face is then split into a fan.
+	 * @param stride - (int) Number of floats per vertex.
+	 */
+	Triangulator( float[] vertices, int stride ){
+		this.vertices = vertices;
+		this.stride = stride;
+	}
+
+	/**
+	 * Splits a face into triangles. Faces with less than 3 corners have no triangles.
+	 * @param corners - (int[]) Vertex index of the corners of the faces.
+	 * @param first - (int) Position of the first corner of the face.
+	 * @param count - (int) Number of corners of the face.
+	 * @param triangles - (int[]) Receives the vertex indexes of the triangles.
+	 * @param offset - (int) Position of the first index written.
+	 * @return The number of indexes written, 3 for each of the count-2 triangles.
+	 */
+	int triangulate( int[] corners, int first, int count, int[] triangles, int offset ){
+		if( count < 3 )
+			return 0;
+		if( count == 3 || vertices == null || !project(corners, first, count) || isConvex(count) )
+			return fan(corners, first, count, triangles, offset);
+
+		for( int i=0 ; i<count ; i++ )
+			ring[i] = i;
+		int size = count, written = 0, i = 0, misses = 0;
+		while( size > 3 ){
+			int prev = ring[(i + size - 1) % size], curr = ring[i], next = ring[(i + 1) % size];
+			if( isEar(prev, curr, next, size) ){
+				triangles[offset + written++] = corners[first + prev];
+				triangles[offset + written++] = corners[first + curr];
+				triangles[offset + written++] = corners[first + next];
+				System.arraycopy(ring, i + 1, ring, i, size - i - 1);
+				size--;
+				i = ( i == size ) ? 0 : i;
+				misses = 0;
+			}else if( ++misses > size ){
+				// No ear left, the face crosses itself
+				for( int j=1 ; j<size-1 ; j++ ){
+					triangles[offset + written++] = corners[first + ring[0]];
+					triangles[offset + written++] = corners[first + ring[j]];
+					triangles[offset + written++] = corners[first + ring[j + 1]];
+				}
+				return written;
+			}else{
+				i = (i + 1) % size;
+			}
+		}
+		triangles[offset + written++] = corners[first + ring[0]];
+		triangles[offset + written++] = corners[first + ring[1]];
+		triangles[offset + written++] = corners[first + ring[2]];
+		return written;
+	}
+
+	private static int fan( int[] corners, int first, int count, int[] triangles, int offset ){
+		int written = 0;
+		for( int i=1 ; i<count-1 ; i++ ){
+			triangles[offset + written++] = corners[first];
+			triangles[offset + written++] = corners[first + i];
+			triangles[offset + written++] = corners[first + i + 1];
+		}
+		return written;
+	}
+
+	/**
+	 * Projects the corners of a face onto the axis plane most facing its normal, flipped
+	 * so that the projected corners wind counter clockwise.
+	 * @return False if the face has no area.
+	 */
+	private boolean project( int[] corners, int first, int count ){
+		if( xs.length < count ){
+			xs = new float[count];
+			ys = new float[count];
+			ring = new int[count];
+		}
+
+		// Newell's method, which also works for concave faces
+		float nx = 0, ny = 0, nz = 0;
+		for( int i=0 ; i<count ; i++ ){
+			int a = corners[first + i] * stride, b = corners[first + (i + 1) % count] * stride;
+			nx += (vertices[a + 1] - vertices[b + 1]) * (vertices[a + 2] + vertices[b + 2]);
+			ny += (vertices[a + 2] - vertices[b + 2]) * (vertices[a] + vertices[b]);
+			nz += (vertices[a] - vertices[b]) * (vertices[a + 1] + vertices[b + 1]);
+		}
+		float ax = Math.abs(nx), ay = Math.abs(ny), az = Math.abs(nz);
+		if( ax + ay + az == 0 )
+			return false;
+
+		// Axes of the plane, and whether dropping the third one mirrors the face
+		int u, v;
+		boolean flip;
+		if( ax >= ay && ax >= az ){
+			u = 1; v = 2; flip = nx < 0;
+		}else if( ay >= az ){
+			u = 2; v = 0; flip = ny < 0;
+		}else{
+			u = 0; v = 1; flip = nz < 0;
+		}
+		for( int i=0 ; i<count ; i++ ){
+			int a = corners[first + i] * stride;
+			xs[i] = vertices[a + u];
+			ys[i] = flip ? -vertices[a + v] : vertices[a + v];
+		}
+		return true;
+	}
+
+	private boolean isConvex( int count ){
+		for( int i=0 ; i<count ; i++ ){
+			if( cross(i, (i + 1) % count, (i + 2) % count) < 0 )
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isEar( int prev, int curr, int next, int size ){
+		if( cross(prev, curr, next) <= 0 )
+			return false;
+		for( int j=0 ; j<size ; j++ ){
+			int p = ring[j];
+			if( p == prev || p == curr || p == next )
+				continue;
+			if( cross(prev, curr, p) >= 0 && cross(curr, next, p) >= 0 && cross(next, prev, p) >= 0 )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Twice the signed area of the projected triangle a, b, c, positive when it
+	 * winds counter clockwise.
+	 */
+	private float cross( int a, int b, int c ){
+		return (xs[b] - xs[a]) * (ys[c] - ys[a]) - (ys[b] - ys[a]) * (xs[c] - xs[a]);
+	}
+
+}
@@ -0,0 +1,343 @@
+package com.viduus.util.models.geometries;
+
+import java.util.Arrays;
+
+import com.viduus.util.models.util.IndexArray;
+
+/**
+ * Reorders triangles so that the GPU shades fewer vertices, following Tom Forsyth's
+ * "Linear-Speed Vertex Cache Optimisation". Each vertex is scored by how recently it was
+ * used and by how many of its triangles are left, and the triangle with the best score
+ * among those touching the simulated cache is emitted next. Only the triangles of the
+ * vertices in the cache are rescored after each step, so the time taken grows linearly
+ * with the number of triangles.
+ * <br><br>
+ * The result is measured with the average cache miss ratio (ACMR), the number of vertices
+ * shaded per triangle, and the average transformed vertex ratio (ATVR), the number of
+ * vertices shaded per vertex used. The ACMR is at least 0.5 for large closed meshes and 3
+ * at worst, the ATVR is 1 at best.
+ *
+ * @author Ethan Toney
+ */
+public class VertexCacheOptimizer {
+
+	/**
+	 * Number of vertices of the simulated post-transform cache
+	 */
+	public static final int CACHE_SIZE = 32;
+
+	private static final float CACHE_DECAY_POWER = 1.5f;
+	private static final float LAST_TRIANGLE_SCORE = 0.75f;
+	private static final float VALENCE_BOOST_SCALE = 2.0f;
+	private static final float VALENCE_BOOST_POWER = 0.5f;
+	private static final int MAX_SCORED_VALENCE = 64;
+
+	private static final float[] cache_scores = new float[CACHE_SIZE];
+	private static final float[] valence_scores = new float[MAX_SCORED_VALENCE];
+	static {
+		for( int i=0 ; i<CACHE_SIZE ; i++ ){
+			// The vertices of the last triangle get a fixed score, so it is not simply repeated
+			if( i < 3 )
+				cache_scores[i] = LAST_TRIANGLE_SCORE;
+			else
+				cache_scores[i] = (float) Math.pow(1 - (i - 3) / (float) (CACHE_SIZE - 3), CACHE_DECAY_POWER);
+		}
+		for( int i=1 ; i<MAX_SCORED_VALENCE ; i++ )
+			valence_scores[i] = VALENCE_BOOST_SCALE * (float) Math.pow(i, -VALENCE_BOOST_POWER);
+	}
+
+	/**
+	 * Number of triangles emitted between two looks at the deadline
+	 */
+	private static final int TRIANGLES_PER_CHECK = 4096;
+
+	private final int[] indexes;
+	private final int first, triangle_count;
+
+	// Triangles of each vertex, those not emitted yet at the front of its range
+	private int[] remaining;
+	private int[] adjacency_offset;
+	private int[] adjacency;
+
+	private int[] cache_position;
+	private float[] vertex_score;
+	private boolean[] emitted;
+	private int best = -1;
+
+	private int[] cache = new int[CACHE_SIZE + 3];
+	private int[] next_cache = new int[CACHE_SIZE + 3];
+	private int cache_count = 0;
+	private int[] output;
+	private int written = 0, next_unemitted = 0;
+
+	/**
+	 * Creates an optimizer reordering the triangles of a range of indexes in place. The
+	 * corners of each triangle keep their order, so its winding is kept.
+	 *
+	 * @param indexes - (int[]) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param vertex_count - (int) Number above every vertex index of the range.
+	 */
+	VertexCacheOptimizer( int[] indexes, int first, int count, int vertex_count ){
+		this.indexes = indexes;
+		this.first = first;
+		this.triangle_count = count / 3;
+		if( triangle_count < 2 )
+			return;
+
+		remaining = new int[vertex_count];
+		for( int i=0 ; i<triangle_count*3 ; i++ )
+			remaining[indexes[first + i]]++;
+		adjacency_offset = new int[vertex_count + 1];
+		for( int v=0 ; v<vertex_count ; v++ )
+			adjacency_offset[v + 1] = adjacency_offset[v] + remaining[v];
+		adjacency = new int[triangle_count * 3];
+		int[] filled = new int[vertex_count];
+		for( int t=0 ; t<triangle_count ; t++ ){
+			for( int k=0 ; k<3 ; k++ ){
+				int v = indexes[first + t*3 + k];
+				adjacency[adjacency_offset[v] + filled[v]++] = t;
+			}
+		}
+
+		cache_position = new int[vertex_count];
+		Arrays.fill(cache_position, -1);
+		vertex_score = new float[vertex_count];
+		for( int v=0 ; v<vertex_count ; v++ )
+			vertex_score[v] = score(-1, remaining[v]);
+
+		emitted = new boolean[triangle_count];
+		float best_score = -1;
+		for( int t=0 ; t<triangle_count ; t++ ){
+			int corner = first + t*3;
+			float score = vertex_score[indexes[corner]] + vertex_score[indexes[corner + 1]] + vertex_score[indexes[corner + 2]];
+			if( score > best_score ){
+				best_score = score;
+				best = t;
+			}
+		}
+		output = new int[triangle_count * 3];
+	}
+
+	/**
+	 * Reorders the triangles of a range of indexes in place. The corners of each triangle
+	 * keep their order, so its winding is kept.
+	 *
+	 * @param indexes - (int[]) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param vertex_count - (int) Number above every vertex index of the range.
+	 */
+	static void optimize( int[] indexes, int first, int count, int vertex_count ){
+		new VertexCacheOptimizer(indexes, first, count, vertex_count).optimize(0, true);
+	}
+
+	/**
+	 * Emits triangles until every one of them is emitted or the deadline has passed, the
+	 * range is then reordered.
+	 *
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the
+	 * triangles are left for the next call.
+	 * @param whole - (boolean) True to emit every triangle that is left at once.
+	 * @return True once the range is reordered.
+	 */
+	boolean optimize( long deadline, boolean whole ){
+		if( triangle_count < 2 || written == triangle_count * 3 )
+			return true;
+
+		int first_step = written / 3;
+		for( int step=first_step ; step<triangle_count ; step++ ){
+			if( !whole && step > first_step && step % TRIANGLES_PER_CHECK == 0 && System.nanoTime() - deadline >= 0 )
+				return false;
+
+			// Nothing left around the cache, continue with the first triangle not emitted
+			if( best < 0 ){
+				while( emitted[next_unemitted] )
+					next_unemitted++;
+				best = next_unemitted;
+			}
+			emitted[best] = true;
+
+			int a = indexes[first + best*3], b = indexes[first + best*3 + 1], c = indexes[first + best*3 + 2];
+			int next_count = 0;
+			for( int k=0 ; k<3 ; k++ ){
+				int v = indexes[first + best*3 + k];
+				output[written++] = v;
+
+				// Move the triangle behind the triangles of the vertex not emitted yet
+				int start = adjacency_offset[v], end = start + remaining[v] - 1;
+				for( int j=start ; j<=end ; j++ ){
+					if( adjacency[j] == best ){
+						adjacency[j] = adjacency[end];
+						adjacency[end] = best;
+						break;
+					}
+				}
+				remaining[v]--;
+
+				// Degenerate triangles use a vertex more than once
+				if( k == 0 || (k == 1 && v != a) || (k == 2 && v != a && v != b) )
+					next_cache[next_count++] = v;
+			}
+			for( int i=0 ; i<cache_count ; i++ ){
+				int v = cache[i];
+				if( v != a && v != b && v != c )
+					next_cache[next_count++] = v;
+			}
+
+			int[] swap = cache;
+			cache = next_cache;
+			next_cache = swap;
+
+			// Rescore the cached vertices, including the ones pushed out of it
+			for( int i=0 ; i<next_count ; i++ ){
+				int v = cache[i];
+				cache_position[v] = ( i < CACHE_SIZE ) ? i : -1;
+				vertex_score[v] = score(cache_position[v], remaining[v]);
+			}
+			cache_count = Math.min(next_count, CACHE_SIZE);
+
+			best = -1;
+			float best_score = -1;
+			for( int i=0 ; i<next_count ; i++ ){
+				int v = cache[i];
+				for( int j=adjacency_offset[v] ; j<adjacency_offset[v] + remaining[v] ; j++ ){
+					int t = adjacency[j];
+					int corner = first + t*3;
+					float score = vertex_score[indexes[corner]] + vertex_score[indexes[corner + 1]] + vertex_score[indexes[corner + 2]];
+					if( score > best_score ){
+						best_score = score;
+						best = t;
+					}
+				}
+			}
+		}
+
+		System.arraycopy(output, 0, indexes, first, written);
+		return true;
+	}
+
+	private static float score( int cache_position, int remaining ){
+		if( remaining == 0 )
+			return -1;
+		float score = ( cache_position >= 0 ) ? cache_scores[cache_position] : 0;
+		if( remaining < MAX_SCORED_VALENCE )
+			return score + valence_scores[remaining];
+		return score + VALENCE_BOOST_SCALE * (float) Math.pow(remaining, -VALENCE_BOOST_POWER);
+	}
+
+	/**
+	 * Gets the average cache miss ratio of a range of triangles drawn with a first in first
+	 * out post-transform cache.
+	 *
+	 * @param indexes - (IndexArray) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param cache_size - (int) Number of vertices the cache holds.
+	 * @return The number of vertices shaded per triangle.
+	 */
+	public static float getACMR( IndexArray indexes, int first, int count, int cache_size ){
+		if( count < 3 )
+			return 0;
+		return countMisses(indexes, first, count, cache_size) / (float) (count / 3);
+	}
+
+	/**
+	 * Gets the average transformed vertex ratio of a range of triangles drawn with a first
+	 * in first out post-transform cache.
+	 *
+	 * @param indexes - (IndexArray) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param cache_size - (int) Number of vertices the cache holds.
+	 * @return The number of vertices shaded per vertex used by the triangles.
+	 */
+	public static float getATVR( IndexArray indexes, int first, int count, int cache_size ){
+		int max_index = maxIndex(indexes, first, count);
+		boolean[] used = new boolean[max_index + 1];
+		int vertices = 0;
+		for( int i=first ; i<first+count ; i++ ){
+			if( !used[indexes.get(i)] ){
+				used[indexes.get(i)] = true;
+				vertices++;
+			}
+		}
+		if( vertices == 0 )
+			return 0;
+		return countMisses(indexes, first, count, cache_size) / (float) vertices;
+	}
+
+	/**
+	 * Gets the average cache miss ratio of a range of triangles that are not packed into an
+	 * {@link IndexArray} yet, without copying them.
+	 *
+	 * @param indexes - (int[]) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param vertex_count - (int) Number of vertices the indexes refer to.
+	 * @param cache_size - (int) Number of vertices the cache holds.
+	 * @return The number of vertices shaded per triangle.
+	 */
+	static float getACMR( int[] indexes, int first, int count, int vertex_count, int cache_size ){
+		if( count < 3 )
+			return 0;
+		return countMisses(indexes, first, count, vertex_count, cache_size) / (float) (count / 3);
+	}
+
+	/**
+	 * Gets the average transformed vertex ratio of a range of triangles that are not packed
+	 * into an {@link IndexArray} yet, without copying them.
+	 *
+	 * @param indexes - (int[]) Vertex indexes of the triangles, 3 per triangle.
+	 * @param first - (int) Position of the first index of the range.
+	 * @param count - (int) Number of indexes of the range.
+	 * @param vertex_count - (int) Number of vertices the indexes refer to.
+	 * @param cache_size - (int) Number of vertices the cache holds.
+	 * @return The number of vertices shaded per vertex used by the triangles.
+	 */
+	static float getATVR( int[] indexes, int first, int count, int vertex_count, int cache_size ){
+		boolean[] used = new boolean[vertex_count];
+		int vertices = 0;
+		for( int i=first ; i<first+count ; i++ ){
+			if( !used[indexes[i]] ){
+				used[indexes[i]] = true;
+				vertices++;
+			}
+		}
+		if( vertices == 0 )
+			return 0;
+		return countMisses(indexes, first, count, vertex_count, cache_size) / (float) vertices;
+	}
+
+	private static int countMisses( int[] indexes, int first, int count, int vertex_count, int cache_size ){
+		int[] shaded_at = new int[vertex_count];
+		int misses = 0;
+		for( int i=first ; i<first+count ; i++ ){
+			int v = indexes[i];
+			if( shaded_at[v] == 0 || misses - shaded_at[v] >= cache_size )
+				shaded_at[v] = ++misses;
+		}
+		return misses;
+	}
+
+	private static int countMisses( IndexArray indexes, int first, int count, int cache_size ){
+		// A vertex is cached while fewer than cache_size vertices were shaded after it
+		int[] shaded_at = new int[maxIndex(indexes, first, count) + 1];
+		int misses = 0;
+		for( int i=first ; i<first+count ; i++ ){
+			int v = indexes.get(i);
+			if( shaded_at[v] == 0 || misses - shaded_at[v] >= cache_size )
+				shaded_at[v] = ++misses;
+		}
+		return misses;
+	}
+
+	private static int maxIndex( IndexArray indexes, int first, int count ){
+		int max_index = 0;
+		for( int i=first ; i<first+count ; i++ )
+			max_index = Math.max(max_index, indexes.get(i));
+		return max_index;
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.viduus.util.models.geometries;
+
+import java.util.Arrays;
+
+/**
+ * Merges identical vertices of a GPU buffer. Vertices are looked up by the bits of their
+ * floats in an open addressing hash table of vertex indexes, so no key objects are created
+ * and no float is boxed. Two vertices are identical when every one of their floats has the
+ * same bits, so 0.0 and -0.0 are kept apart.
+ *
+ * @author Ethan Toney
+ */
+final class VertexWelder {
+
+	private final int stride;
+	private float[] vertices;
+	private int vertex_count = 0;
+	// Index + 1 of the vertex in each slot, 0 for an empty slot
+	private final int[] table;
+	private final int mask;
+
+	/**
+	 * @param stride - (int) Number of floats per vertex.
+	 * @param max_vertices - (int) Number of vertices that will be added at most.
+	 */
+	VertexWelder( int stride, int max_vertices ){
+		this.stride = stride;
+		this.vertices = new float[ Math.max(1, max_vertices) * stride ];
+		// At most half full, so probes stay short without ever growing
+		int capacity = Integer.highestOneBit( Math.max(1, max_vertices) * 2 - 1 ) << 1;
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Adds a vertex unless an identical one was already added.
+	 * @param vertex - (float[]) Holds the floats of the vertex, the first <i>stride</i> are
+	 * used.
+	 * @return Index of the vertex among the unique vertices.
+	 */
+	int add( float[] vertex ){
+		int slot = hash(vertex) & mask;
+		while( table[slot] != 0 ){
+			int index = table[slot] - 1;
+			if( matches(index, vertex) )
+				return index;
+			slot = (slot + 1) & mask;
+		}
+
+		int index = vertex_count++;
+		System.arraycopy(vertex, 0, vertices, index * stride, stride);
+		table[slot] = index + 1;
+		return index;
+	}
+
+	/**
+	 * @return The number of unique vertices.
+	 */
+	int getVertexCount(){
+		return vertex_count;
+	}
+
+	/**
+	 * @return The floats of the unique vertices in the order they were first added.
+	 */
+	float[] getVertices(){
+		return Arrays.copyOf(vertices, vertex_count * stride);
+	}
+
+	private int hash( float[] vertex ){
+		int hash = 0;
+		for( int i=0 ; i<stride ; i++ )
+			hash = (hash ^ Float.floatToIntBits(vertex[i])) * 0x9E3779B1;
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean matches( int index, float[] vertex ){
+		int offset = index * stride;
+		for( int i=0 ; i<stride ; i++ ){
+			if( Float.floatToIntBits(vertices[offset + i]) != Float.floatToIntBits(vertex[i]) )
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -3,13 +3,20 @@
  */
 package com.viduus.util.models.geometries;
 
+import java.io.IOException;
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -46,6 +53,51 @@ public class Verticies {
 		}
 	}
 	
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;vertices&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Verticies(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("vertices") )
+			throw new DaeParseException("Verticies constructor must be called on an <vertices> node.");
+		
+		sources = new HashMap<>();
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("input") ){
+				String semantic = LoaderFunctions.getAttribute(reader, "semantic");
+				String source = LoaderFunctions.getAttribute(reader, "source");
+				sources.put(semantic, source);
+			}
+			LoaderFunctions.skipElement(reader);
+		}
+	}
+	
+	/**
+	 * Reads the vertex inputs back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Verticies(ModelCacheReader reader) throws DaeParseException {
+		sources = new HashMap<>();
+		id = reader.readString();
+		reader.readStringMap(sources);
+	}
+	
+	/**
+	 * Writes the vertex inputs to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		writer.writeStringMap(sources);
+	}
+	
 	public String getId(){
 		return id;
 	}
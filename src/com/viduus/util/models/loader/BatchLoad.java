@@ -0,0 +1,239 @@
+package com.viduus.util.models.loader;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.xml.sax.SAXException;
+
+import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.ModelData;
+
+/**
+ * Loads every Collada file of a directory that matches a glob. Files are loaded
+ * asynchronously by a {@link DaeLoader}, but only as long as the sizes of the files
+ * that are currently loading stay within a byte budget, so the memory taken up by parsing
+ * stays bounded no matter how many files there are. A single file larger than the budget
+ * is loaded on its own.
+ * <br><br>
+ * Results are handed to a {@link BatchLoadListener} as each file finishes. A file that
+ * fails to load is reported and does not stop the rest of the batch. An exception thrown
+ * by the listener is recorded as the failure of the file it was handed.
+ *
+ * @author Ethan Toney
+ */
+public class BatchLoad {
+
+	private final DaeLoader loader;
+	private final Path directory;
+	private final PathMatcher matcher;
+	private final long byte_budget;
+	private final BatchLoadListener listener;
+	private final CompletableFuture<BatchLoad> completion = new CompletableFuture<>();
+	private final HashMap<Path, Throwable> failures = new HashMap<>();
+	private long bytes_in_flight = 0;
+	private int files_in_flight = 0;
+	private int file_count = 0;
+	private int loaded_count = 0;
+	// Set once every file of the batch was started
+	private boolean scheduled = false;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * @param loader - (DaeLoader) Loads the files.
+	 * @param directory - (Path) Directory that is searched for files, including its
+	 * sub directories.
+	 * @param glob - (String) Glob the paths of the files relative to the directory must
+	 * match, such as "**.dae".
+	 * @param byte_budget - (long) Number of bytes of files that may be loading at once.
+	 * @param listener - (BatchLoadListener) Receives the result of every file.
+	 */
+	BatchLoad( DaeLoader loader, Path directory, String glob, long byte_budget, BatchLoadListener listener ){
+		this.loader = loader;
+		this.directory = directory;
+		this.matcher = FileSystems.getDefault().getPathMatcher("glob:"+glob);
+		this.byte_budget = byte_budget;
+		this.listener = listener;
+	}
+
+	/**
+	 * Finds the files of the batch and starts loading them, blocking while the byte budget
+	 * is used up. Runs on its own thread.
+	 */
+	void run(){
+		List<Path> files;
+		try( Stream<Path> paths = Files.walk(directory) ){
+			files = paths.filter((path) -> Files.isRegularFile(path) && matcher.matches(directory.relativize(path)))
+					.sorted()
+					.collect(Collectors.toList());
+		}catch( IOException | RuntimeException e ){
+			completion.completeExceptionally(e);
+			return;
+		}
+		OutputHandler.println("Loading "+files.size()+" models from "+directory);
+
+		try{
+			for( Path file : files ){
+				long file_size;
+				try{
+					file_size = Files.size(file);
+				}catch( IOException e ){
+					synchronized( this ){
+						file_count++;
+					}
+					report(file, null, e);
+					continue;
+				}
+				if( !reserve(file_size) )
+					break;
+				loader.loadModelAsync(file).whenComplete((model, error) -> {
+					try{
+						report(file, model, error);
+					}finally{
+						release(file_size);
+					}
+				});
+			}
+		}catch( InterruptedException e ){
+			cancelled = true;
+		}
+		finishScheduling();
+	}
+
+	/**
+	 * Waits until the file fits into the byte budget and reserves its size.
+	 * @return <b>false</b> if the batch was cancelled while waiting.
+	 */
+	private synchronized boolean reserve( long file_size ) throws InterruptedException {
+		while( !cancelled && files_in_flight > 0 && bytes_in_flight + file_size > byte_budget )
+			wait();
+		if( cancelled )
+			return false;
+		file_count++;
+		files_in_flight++;
+		bytes_in_flight += file_size;
+		return true;
+	}
+
+	/**
+	 * Reports the result of a file to the listener.
+	 */
+	private void report( Path file, ModelData model, Throwable error ){
+		if( error instanceof CompletionException )
+			error = error.getCause();
+		if( error instanceof SAXException )
+			error = new DaeParseException("Could not parse model "+file+": "+error.getMessage(), error);
+		if( error == null && model == null )
+			error = new DaeParseException("Model "+file+" is either corrupted or is not an acceptable version.");
+
+		// Counted before the listener is called, so a listener that throws can not lose the file
+		synchronized( this ){
+			if( error == null )
+				loaded_count++;
+			else
+				failures.put(file, error);
+		}
+
+		try{
+			if( error == null ){
+				listener.modelLoaded(file, model);
+			}else{
+				OutputHandler.println("Could not load model "+file+": "+error);
+				listener.modelFailed(file, error);
+			}
+		}catch( Throwable e ){
+			OutputHandler.println("Listener of model "+file+" failed: "+e);
+			if( error != null )
+				e.addSuppressed(error);
+			synchronized( this ){
+				if( error == null )
+					loaded_count--;
+				failures.put(file, e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the size of a file that finished loading to the byte budget.
+	 */
+	private void release( long file_size ){
+		boolean done;
+		synchronized( this ){
+			files_in_flight--;
+			bytes_in_flight -= file_size;
+			notifyAll();
+			done = ( scheduled && files_in_flight == 0 );
+		}
+		if( done )
+			completion.complete(this);
+	}
+
+	/**
+	 * Called once no more files will be started.
+	 */
+	private void finishScheduling(){
+		boolean done;
+		synchronized( this ){
+			scheduled = true;
+			done = ( files_in_flight == 0 );
+		}
+		if( done )
+			completion.complete(this);
+	}
+
+	/**
+	 * Stops starting new loads. Loads that already started still finish and are reported.
+	 */
+	public synchronized void cancel(){
+		cancelled = true;
+		notifyAll();
+	}
+
+	/**
+	 * @return Completes with this batch once every file that was started finished loading.
+	 */
+	public CompletableFuture<BatchLoad> getCompletion(){
+		return completion;
+	}
+
+	/**
+	 * @return The number of files that were started, including the ones whose size could not
+	 * be read. Once the batch is complete it is the number of files loaded plus the number
+	 * of failures.
+	 */
+	public synchronized int getFileCount(){
+		return file_count;
+	}
+
+	/**
+	 * @return The number of files that were loaded.
+	 */
+	public synchronized int getLoadedCount(){
+		return loaded_count;
+	}
+
+	/**
+	 * @return The files that could not be loaded mapped to their errors.
+	 */
+	public synchronized Map<Path, Throwable> getFailures(){
+		return Collections.unmodifiableMap(new HashMap<>(failures));
+	}
+
+	/**
+	 * @return <b>true</b> if the batch was cancelled.
+	 */
+	public boolean isCancelled(){
+		return cancelled;
+	}
+
+}
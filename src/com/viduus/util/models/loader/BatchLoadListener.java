@@ -0,0 +1,32 @@
+package com.viduus.util.models.loader;
+
+import java.nio.file.Path;
+
+import com.viduus.util.models.ModelData;
+
+/**
+ * Receives the results of a {@link BatchLoad} as each of its files finishes. Called from
+ * the threads the files were loaded on, so implementations must be thread-safe.
+ *
+ * @author Ethan Toney
+ */
+public interface BatchLoadListener {
+
+	/**
+	 * Called once a file of the batch was loaded.
+	 * @param file - (Path) The Collada file.
+	 * @param model - (ModelData) The loaded model.
+	 */
+	void modelLoaded( Path file, ModelData model );
+
+	/**
+	 * Called when a file of the batch could not be loaded. The rest of the batch keeps
+	 * loading.
+	 * @param file - (Path) The Collada file.
+	 * @param error - (Throwable) Why the file could not be loaded. A
+	 * {@link DaeParseException} for files that are not valid Collada files, xml errors
+	 * included.
+	 */
+	void modelFailed( Path file, Throwable error );
+
+}
@@ -0,0 +1,404 @@
+package com.viduus.util.models.loader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The byte ranges of the library elements of a Collada file, found by a single pass over
+ * its bytes without building anything. Used by {@link LazyModelData} to parse each element
+ * on its own once it is first needed.
+ * <br><br>
+ * The scanner only understands as much xml as it needs to find where elements start and
+ * end: tags, their quoted attributes, comments, CDATA sections, processing instructions
+ * and a doctype. The file has to be UTF-8 or ASCII, since each element is later parsed from
+ * its bytes alone without the file's xml declaration.
+ *
+ * @author Ethan Toney
+ */
+class DaeIndex {
+
+	/**
+	 * Byte range of an indexed element, from the '&lt;' of its start tag to just past the
+	 * '&gt;' of its end tag.
+	 */
+	static class Element {
+
+		final String id, name;
+		final int start;
+		int end;
+		// For controllers the geometry of their skin, for nodes the targets of their instances
+		final List<String> references = new ArrayList<>(1);
+		// True for nodes with nodes of their own, such as armatures
+		boolean has_sub_nodes = false;
+
+		Element( String id, String name, int start ){
+			this.id = id;
+			this.name = name;
+			this.start = start;
+		}
+
+	}
+
+	// Version attribute of the root COLLADA tag
+	String version;
+	final LinkedHashMap<String, Element> effects = new LinkedHashMap<>();
+	final LinkedHashMap<String, Element> materials = new LinkedHashMap<>();
+	final LinkedHashMap<String, Element> geometries = new LinkedHashMap<>();
+	final LinkedHashMap<String, Element> controllers = new LinkedHashMap<>();
+	final LinkedHashMap<String, Element> animations = new LinkedHashMap<>();
+	// Nodes of type NODE directly inside a visual scene
+	final LinkedHashMap<String, Element> nodes = new LinkedHashMap<>();
+
+	private final ByteBuffer buffer;
+	private final int limit;
+	// Names of the open elements, the root first
+	private final ArrayList<String> open_elements = new ArrayList<>();
+	// Element being recorded and the depth of its start tag
+	private Element current;
+	private int current_depth;
+	// Byte ranges of the attribute names and values of the last start tag
+	private int[] attributes = new int[16];
+	private int attribute_count;
+
+	private DaeIndex( ByteBuffer buffer ){
+		this.buffer = buffer;
+		this.limit = buffer.limit();
+	}
+
+	/**
+	 * Indexes the library elements of a Collada file.
+	 * @param buffer - (ByteBuffer) Bytes of the Collada file, from 0 to the limit. Not
+	 * modified.
+	 * @return The index, its version is <b>null</b> if the root tag is not a COLLADA tag.
+	 * @throws DaeParseException Thrown if the file is not well formed or not UTF-8.
+	 */
+	static DaeIndex index( ByteBuffer buffer ) throws DaeParseException {
+		DaeIndex index = new DaeIndex(buffer);
+		index.scan();
+		return index;
+	}
+
+	private void scan() throws DaeParseException {
+		int i = 0;
+		if( limit >= 2 && ((byteAt(0) == 0xFE && byteAt(1) == 0xFF) || (byteAt(0) == 0xFF && byteAt(1) == 0xFE)) )
+			throw new DaeParseException("Only UTF-8 Collada files can be loaded lazily.");
+		// UTF-8 byte order mark
+		if( limit >= 3 && byteAt(0) == 0xEF && byteAt(1) == 0xBB && byteAt(2) == 0xBF )
+			i = 3;
+
+		while( (i = indexOf('<', i)) >= 0 ){
+			int next = byteAt(i + 1);
+			if( next == '?' ){
+				int end = indexOf("?>", i + 2);
+				if( startsWith("<?xml", i) )
+					checkEncoding(i, end);
+				i = end + 2;
+
+			}else if( next == '!' ){
+				if( startsWith("<!--", i) )
+					i = indexOf("-->", i + 4) + 3;
+				else if( startsWith("<![CDATA[", i) )
+					i = indexOf("]]>", i + 9) + 3;
+				else
+					i = skipDoctype(i);
+
+			}else if( next == '/' ){
+				i = endTag(i);
+
+			}else{
+				i = startTag(i);
+			}
+		}
+		if( !open_elements.isEmpty() )
+			throw new DaeParseException("Collada file ends inside of <"+open_elements.get(open_elements.size() - 1)+">.");
+	}
+
+	/**
+	 * Reads a start tag and records it if it is one of the indexed elements.
+	 * @return Position after the tag.
+	 */
+	private int startTag( int start ) throws DaeParseException {
+		int name_end = nameEnd(start + 1);
+		String name = string(start + 1, name_end);
+
+		// Attributes
+		attribute_count = 0;
+		int i = name_end;
+		boolean empty = false;
+		while( true ){
+			i = skipWhitespace(i);
+			int c = byteAt(i);
+			if( c == '>' ){
+				i++;
+				break;
+			}else if( c == '/' ){
+				empty = true;
+				i = find('>', i) + 1;
+				break;
+			}
+			int attr_end = nameEnd(i);
+			int equals = skipWhitespace(attr_end);
+			if( byteAt(equals) != '=' )
+				throw new DaeParseException("Malformed attribute in <"+name+"> at byte "+i+".");
+			int quote_start = skipWhitespace(equals + 1);
+			int quote = byteAt(quote_start);
+			if( quote != '"' && quote != '\'' )
+				throw new DaeParseException("Unquoted attribute in <"+name+"> at byte "+i+".");
+			int value_end = find((char) quote, quote_start + 1);
+			addAttribute(i, attr_end, quote_start + 1, value_end);
+			i = value_end + 1;
+		}
+
+		int depth = open_elements.size() + 1;
+		String parent = ( depth > 1 ) ? open_elements.get(depth - 2) : null;
+		record(name, parent, depth, start);
+
+		if( empty ){
+			if( current != null && current_depth == depth ){
+				current.end = i;
+				current = null;
+			}
+		}else{
+			open_elements.add(name);
+		}
+		return i;
+	}
+
+	/**
+	 * Records an indexed element that starts, or a reference inside of one.
+	 */
+	private void record( String name, String parent, int depth, int start ){
+		if( depth == 1 ){
+			version = name.equals("COLLADA") ? attribute("version") : null;
+
+		}else if( current == null && depth == 3 ){
+			LinkedHashMap<String, Element> elements = null;
+			if( parent.equals("library_effects") && name.equals("effect") )
+				elements = effects;
+			else if( parent.equals("library_materials") && name.equals("material") )
+				elements = materials;
+			else if( parent.equals("library_geometries") && name.equals("geometry") )
+				elements = geometries;
+			else if( parent.equals("library_controllers") && name.equals("controller") )
+				elements = controllers;
+			else if( parent.equals("library_animations") && name.equals("animation") )
+				elements = animations;
+			startElement(elements, depth, start);
+
+		}else if( current == null && depth == 4 && parent.equals("visual_scene") && name.equals("node") ){
+			if( "NODE".equals(attribute("type")) )
+				startElement(nodes, depth, start);
+
+		}else if( current != null && depth == current_depth + 1 ){
+			if( name.equals("skin") )
+				addReference(attribute("source"));
+			else if( name.equals("instance_geometry") || name.equals("instance_controller") )
+				addReference(attribute("url"));
+			else if( name.equals("node") )
+				current.has_sub_nodes = true;
+		}
+	}
+
+	private void startElement( LinkedHashMap<String, Element> elements, int depth, int start ){
+		String id = attribute("id");
+		if( elements == null || id == null )
+			return;
+		current = new Element(id, attribute("name"), start);
+		current_depth = depth;
+		elements.put(id, current);
+	}
+
+	private void addReference( String url ){
+		if( url != null )
+			current.references.add( url.startsWith("#") ? url.substring(1) : url );
+	}
+
+	/**
+	 * Reads an end tag, ending the recorded element if it is its end.
+	 * @return Position after the tag.
+	 */
+	private int endTag( int start ) throws DaeParseException {
+		int name_end = nameEnd(start + 2);
+		int end = find('>', name_end) + 1;
+		if( open_elements.isEmpty() )
+			throw new DaeParseException("Unexpected end tag at byte "+start+".");
+		String name = open_elements.remove(open_elements.size() - 1);
+		if( !matches(name, start + 2, name_end) )
+			throw new DaeParseException("End tag at byte "+start+" does not match <"+name+">.");
+		if( current != null && current_depth == open_elements.size() + 1 ){
+			current.end = end;
+			current = null;
+		}
+		return end;
+	}
+
+	/**
+	 * Skips a doctype, including an internal subset in square brackets.
+	 * @return Position after the doctype.
+	 */
+	private int skipDoctype( int start ) throws DaeParseException {
+		int close = find('>', start);
+		int bracket = indexOf('[', start);
+		if( bracket >= 0 && bracket < close )
+			close = find('>', find(']', bracket));
+		return close + 1;
+	}
+
+	/**
+	 * Makes sure the xml declaration does not name an encoding other than UTF-8.
+	 */
+	private void checkEncoding( int start, int end ) throws DaeParseException {
+		String declaration = string(start, end).toLowerCase();
+		int encoding = declaration.indexOf("encoding");
+		if( encoding < 0 )
+			return;
+		String value = declaration.substring(encoding + 8).replaceAll("^\\s*=\\s*['\"]([^'\"]*).*$", "$1");
+		if( !value.equals("utf-8") && !value.equals("us-ascii") && !value.equals("ascii") )
+			throw new DaeParseException("Only UTF-8 Collada files can be loaded lazily, not "+value+".");
+	}
+
+	private void addAttribute( int name_start, int name_end, int value_start, int value_end ){
+		if( attribute_count * 4 == attributes.length ){
+			int[] grown = new int[attributes.length * 2];
+			System.arraycopy(attributes, 0, grown, 0, attributes.length);
+			attributes = grown;
+		}
+		int i = attribute_count++ * 4;
+		attributes[i] = name_start;
+		attributes[i + 1] = name_end;
+		attributes[i + 2] = value_start;
+		attributes[i + 3] = value_end;
+	}
+
+	/**
+	 * @return The value of an attribute of the last start tag, <b>null</b> if it has none.
+	 */
+	private String attribute( String name ){
+		for( int i=0 ; i<attribute_count * 4 ; i+=4 ){
+			if( matches(name, attributes[i], attributes[i + 1]) )
+				return unescape( string(attributes[i + 2], attributes[i + 3]) );
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces the predefined entities and character references of an attribute value.
+	 */
+	private static String unescape( String value ){
+		if( value.indexOf('&') < 0 )
+			return value;
+		StringBuilder result = new StringBuilder(value.length());
+		int i = 0;
+		while( i < value.length() ){
+			char c = value.charAt(i);
+			int semicolon = value.indexOf(';', i);
+			if( c != '&' || semicolon < 0 ){
+				result.append(c);
+				i++;
+				continue;
+			}
+			String entity = value.substring(i + 1, semicolon);
+			if( entity.equals("amp") ) result.append('&');
+			else if( entity.equals("lt") ) result.append('<');
+			else if( entity.equals("gt") ) result.append('>');
+			else if( entity.equals("quot") ) result.append('"');
+			else if( entity.equals("apos") ) result.append('\'');
+			else if( entity.startsWith("#x") ) result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+			else if( entity.startsWith("#") ) result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+			else result.append('&').append(entity).append(';');
+			i = semicolon + 1;
+		}
+		return result.toString();
+	}
+
+	private boolean matches( String name, int start, int end ){
+		if( end - start != name.length() )
+			return false;
+		for( int i=0 ; i<name.length() ; i++ ){
+			if( byteAt(start + i) != name.charAt(i) )
+				return false;
+		}
+		return true;
+	}
+
+	private String string( int start, int end ){
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int byteAt( int i ){
+		return ( i < limit ) ? buffer.get(i) & 0xFF : -1;
+	}
+
+	/**
+	 * @return Position of the first byte after a tag or attribute name.
+	 */
+	private int nameEnd( int i ) throws DaeParseException {
+		while( i < limit ){
+			int c = byteAt(i);
+			if( c == '>' || c == '/' || c == '=' || c == ' ' || c == '\t' || c == '\n' || c == '\r' )
+				return i;
+			i++;
+		}
+		throw new DaeParseException("Collada file ends inside of a tag.");
+	}
+
+	private int skipWhitespace( int i ){
+		while( i < limit ){
+			int c = byteAt(i);
+			if( c != ' ' && c != '\t' && c != '\n' && c != '\r' )
+				break;
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @return Position of the next occurrence of a character, <b>-1</b> if there is none.
+	 */
+	private int indexOf( char c, int from ){
+		for( int i=from ; i<limit ; i++ ){
+			if( buffer.get(i) == c )
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Position of the next occurrence of a character.
+	 * @throws DaeParseException Thrown if the character does not occur, the file was cut off.
+	 */
+	private int find( char c, int from ) throws DaeParseException {
+		int i = indexOf(c, from);
+		if( i < 0 )
+			throw new DaeParseException("Collada file ends before '"+c+"'.");
+		return i;
+	}
+
+	/**
+	 * @return Position of the next occurrence of a string.
+	 * @throws DaeParseException Thrown if the string does not occur, the file was cut off.
+	 */
+	private int indexOf( String text, int from ) throws DaeParseException {
+		for( int i=from ; i<=limit - text.length() ; i++ ){
+			if( startsWith(text, i) )
+				return i;
+		}
+		throw new DaeParseException("Collada file ends before "+text+".");
+	}
+
+	private boolean startsWith( String text, int i ){
+		if( i + text.length() > limit )
+			return false;
+		for( int j=0 ; j<text.length() ; j++ ){
+			if( buffer.get(i + j) != text.charAt(j) )
+				return false;
+		}
+		return true;
+	}
+
+}
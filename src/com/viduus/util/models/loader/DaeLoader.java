@@ -1,12 +1,37 @@
 package com.viduus.util.models.loader;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
@@ -16,6 +41,8 @@ import org.xml.sax.SAXException;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.models.ModelData;
+import com.viduus.util.models.cache.ModelCache;
+import com.viduus.util.models.util.ByteBufferInputStream;
 
 /**
  * This class is responsible for loading all of the Collada DAE files and for managing the memory
@@ -27,17 +54,69 @@ public class DaeLoader {
 	
 	// Versions of Collada that this loader supports
 	private static final String IMPLEMENTED_VERSIONS = "1.4.1";
-	// HashMap of file paths to booleans where the boolean represents if the Model is actively in RAM
-	private static final HashMap<String, ModelData> model_files = new HashMap<>();
-	private DocumentBuilder db;
+	// How often a thread waiting for another thread's load checks its own monitor
+	private static final long MONITOR_POLL_MILLIS = 50;
+	// Registry used by every loader that was not given one of its own
+	private static final ModelRegistry shared_registry = new ModelRegistry();
+	// Parsers reused by every loader that was not given a pool of its own
+	private static final ParserPool shared_pool = new ParserPool();
+	// Runs the blocking file reads of asynchronous loads
+	private static final ExecutorService io_executor = Executors.newCachedThreadPool(new ThreadFactory(){
+		private final AtomicInteger thread_count = new AtomicInteger();
+		@Override
+		public Thread newThread( Runnable task ){
+			Thread thread = new Thread(task, "DaeLoader-IO-"+thread_count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	// Tracks the model files and the models that are actively in RAM
+	private final ModelRegistry model_files;
+	private final ParserPool parser_pool;
+	private final LoadOptions options;
+	// Cache of the last directory the options named, null until a model is cached
+	private volatile ModelCache model_cache;
 	
 	/**
 	 * Constructs a new DAE Collada file loader. Currently only has support for 1.4.1
 	 * @throws ParserConfigurationException
 	 */
 	public DaeLoader() throws ParserConfigurationException {
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		db = dbf.newDocumentBuilder(); 
+		this( new LoadOptions() );
+	}
+	
+	/**
+	 * Constructs a new DAE Collada file loader that uses the given options for every
+	 * model it loads.
+	 * @param options - (LoadOptions) How models should be read.
+	 * @throws ParserConfigurationException
+	 */
+	public DaeLoader( LoadOptions options ) throws ParserConfigurationException {
+		this( options, shared_registry );
+	}
+	
+	/**
+	 * Constructs a new DAE Collada file loader that keeps its models in the given registry,
+	 * for example one with a byte budget.
+	 * @param options - (LoadOptions) How models should be read.
+	 * @param registry - (ModelRegistry) Tracks the models of this loader.
+	 * @throws ParserConfigurationException
+	 */
+	public DaeLoader( LoadOptions options, ModelRegistry registry ) throws ParserConfigurationException {
+		this( options, registry, shared_pool );
+	}
+	
+	/**
+	 * Constructs a new DAE Collada file loader that reuses the xml parsers of the given pool.
+	 * @param options - (LoadOptions) How models should be read.
+	 * @param registry - (ModelRegistry) Tracks the models of this loader.
+	 * @param pool - (ParserPool) Provides the xml parsers of each load.
+	 * @throws ParserConfigurationException
+	 */
+	public DaeLoader( LoadOptions options, ModelRegistry registry, ParserPool pool ) throws ParserConfigurationException {
+		this.options = options;
+		this.model_files = registry;
+		this.parser_pool = pool;
 	}
 	
 	/**
@@ -48,9 +127,8 @@ public class DaeLoader {
 	 */
 	public void addModel( File in_file ){
 		String identifier = in_file.getPath();
-		if( !model_files.containsKey(identifier) ){
+		if( model_files.track(identifier) ){
 			OutputHandler.println("Added a new model file: "+identifier);
-			model_files.put(identifier, null);
 		}else{
 			OutputHandler.println("Model file already loaded: "+identifier);
 		}
@@ -63,9 +141,7 @@ public class DaeLoader {
 	 * @see #loadModel(String)
 	 */
 	public void closeModel( String file_path ){
-		if( model_files.containsKey(file_path) && model_files.get(file_path) != null ){
-			model_files.put(file_path, null);
-		}
+		model_files.release(file_path);
 	}
 	
 	/**
@@ -75,10 +151,21 @@ public class DaeLoader {
 	 * in memory.
 	 */
 	public ModelData getModel( String file_path ){
-		if( model_files.containsKey(file_path) && model_files.get(file_path) != null ){
-			return model_files.get(file_path);
-		}
-		return null;
+		return model_files.get(file_path);
+	}
+	
+	/**
+	 * @return The registry tracking the models of this loader.
+	 */
+	public ModelRegistry getModelRegistry(){
+		return model_files;
+	}
+	
+	/**
+	 * @return The pool providing the xml parsers of this loader.
+	 */
+	public ParserPool getParserPool(){
+		return parser_pool;
 	}
 	
 	/**
@@ -91,47 +178,667 @@ public class DaeLoader {
 	 * @see #addModel(File)
 	 */
 	public ModelData loadModel( String file_path ) throws SAXException, IOException{
+		return loadModel( file_path, new LoadMonitor() );
+	}
+	
+	/**
+	 * Loads a perviously added file to RAM and returns the Model for this file, reporting
+	 * the progress of the load to a monitor. The load stops with a
+	 * {@link LoadCancelledException} once the monitor is cancelled or its deadline passes.
+	 * @param file_path - path to the file relative to the project location
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Could either happened because the file does not exist
+	 * or the Collada file was corrupted
+	 */
+	public ModelData loadModel( String file_path, LoadMonitor monitor ) throws SAXException, IOException{
+		return loadModel( file_path, Paths.get(file_path), monitor, () -> new BufferedInputStream(new FileInputStream(file_path)) );
+	}
+	
+	/**
+	 * Loads a perviously added file to RAM, reading it with the given options instead of the
+	 * options of this loader, for example to only load the positions of its meshes. The
+	 * model is kept in the registry of this loader, so a model that is already loaded is
+	 * returned regardless of the options. Use a loader with a registry of its own to keep
+	 * models loaded with different options apart.
+	 * @param file_path - path to the file relative to the project location
+	 * @param options - (LoadOptions) Which parts of the model are loaded and how.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Could either happened because the file does not exist
+	 * or the Collada file was corrupted
+	 * @see LoadOptions#positionsOnly()
+	 */
+	public ModelData loadModel( String file_path, LoadOptions options ) throws SAXException, IOException{
+		if( options == this.options )
+			return loadModel( file_path );
+		try{
+			return new DaeLoader(options, model_files, parser_pool).loadModel( file_path );
+		}catch( ParserConfigurationException e ){
+			throw new DaeParseException("Could not create an xml parser", e);
+		}
+	}
+	
+	/**
+	 * Loads a model by memory mapping its file. The mapped file is read by the parser in
+	 * place, it is never copied into a heap array.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Could either happened because the file does not exist
+	 * or the Collada file was corrupted
+	 */
+	public ModelData loadModel( Path path ) throws SAXException, IOException{
+		return loadModel( path, new LoadMonitor() );
+	}
+	
+	/**
+	 * Loads a model by memory mapping its file, reporting the progress of the load to a
+	 * monitor. The load stops with a {@link LoadCancelledException} once the monitor is
+	 * cancelled or its deadline passes.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Could either happened because the file does not exist
+	 * or the Collada file was corrupted
+	 */
+	public ModelData loadModel( Path path, LoadMonitor monitor ) throws SAXException, IOException{
+		return loadModel( path.toString(), path, monitor, () -> {
+			try( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ){
+				if( channel.size() > Integer.MAX_VALUE )
+					throw new DaeParseException("Model "+path+" is too large to be memory mapped.");
+				// The mapping stays valid after the channel is closed
+				return new ByteBufferInputStream( channel.map(MapMode.READ_ONLY, 0, channel.size()) );
+			}
+		});
+	}
+	
+	/**
+	 * Loads a model from the remaining bytes of a buffer, such as a slice of a memory mapped
+	 * asset bundle. The buffer's position is not changed.
+	 * @param buffer - (ByteBuffer) Bytes of the Collada file.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Happens when the Collada file was corrupted
+	 */
+	public ModelData loadModel( ByteBuffer buffer, String identifier ) throws SAXException, IOException{
+		return loadModel( identifier, null, new LoadMonitor(), () -> new ByteBufferInputStream(buffer.duplicate()) );
+	}
+	
+	/**
+	 * Loads a model from a stream. The stream is read to its end but is not closed.
+	 * @param in - (InputStream) Bytes of the Collada file.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Happens when the stream could not be read or the Collada file
+	 * was corrupted
+	 */
+	public ModelData loadModel( InputStream in, String identifier ) throws SAXException, IOException{
+		return loadModel( identifier, null, new LoadMonitor(), () -> new FilterInputStream(in){
+			@Override
+			public void close(){
+				// Closing is left to the caller
+			}
+		});
+	}
+	
+	/**
+	 * Loads a model from a classpath resource, for example one packed into the
+	 * application's jar.
+	 * @param resource_path - (String) Path of the resource, relative to the classpath root.
+	 * It is also used as the model's identifier.
+	 * @return Will return the loaded Model, if an error occurs then will return <b>null</b>.
+	 * @throws SAXException - Happens when a XML error happens
+	 * @throws IOException - Happens when the resource does not exist or the Collada file
+	 * was corrupted
+	 */
+	public ModelData loadResource( String resource_path ) throws SAXException, IOException{
+		return loadModel( resource_path, null, new LoadMonitor(), () -> {
+			InputStream in = DaeLoader.class.getClassLoader().getResourceAsStream(resource_path);
+			if( in == null )
+				throw new FileNotFoundException("Could not find resource "+resource_path);
+			return new BufferedInputStream(in);
+		});
+	}
+	
+	/**
+	 * Loads a model without blocking the calling thread. The file is memory mapped and read
+	 * on a daemon I/O thread, then parsed on the common ForkJoinPool.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @return Completes with the loaded Model, or with <b>null</b> if the file is not a
+	 * supported Collada file.
+	 * @see #loadModelAsync(Path, LoadOptions)
+	 */
+	public CompletableFuture<ModelData> loadModelAsync( Path path ){
+		return loadModelAsync( path, options );
+	}
+	
+	/**
+	 * Loads a model without blocking the calling thread, reading it with the given options
+	 * instead of the options of this loader. The model is kept in the registry of this
+	 * loader, so a model that is already loaded is returned regardless of the options.
+	 * <br><br>
+	 * The file is memory mapped and read on a daemon I/O thread, then parsed on the common
+	 * ForkJoinPool. Cancelling the returned future stops the load before its next stage.
+	 * Callers waiting for the same model in {@link #loadModel(Path)} then load it
+	 * themselves.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @param options - (LoadOptions) How the model should be read.
+	 * @return Completes with the loaded Model, or with <b>null</b> if the file is not a
+	 * supported Collada file.
+	 */
+	public CompletableFuture<ModelData> loadModelAsync( Path path, LoadOptions options ){
+		return loadModelAsync( path, options, new LoadMonitor() );
+	}
+	
+	/**
+	 * Loads a model without blocking the calling thread, reporting the progress of the load
+	 * to a monitor. Cancelling the returned future cancels the monitor, which stops the load
+	 * at its next check, and a load stopped by the monitor completes the future with a
+	 * {@link LoadCancelledException}.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @param options - (LoadOptions) How the model should be read.
+	 * @param monitor - (LoadMonitor) Monitor of the load. Not used if the model is already
+	 * loaded or another load of it is in progress.
+	 * @return Completes with the loaded Model, or with <b>null</b> if the file is not a
+	 * supported Collada file.
+	 * @see #loadModelAsync(Path, LoadOptions)
+	 */
+	public CompletableFuture<ModelData> loadModelAsync( Path path, LoadOptions options, LoadMonitor monitor ){
+		if( options == this.options )
+			return loadAsync( path.toString(), path, monitor );
+		try{
+			return new DaeLoader(options, model_files, parser_pool).loadAsync( path.toString(), path, monitor );
+		}catch( ParserConfigurationException e ){
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+	
+	/**
+	 * Creates a publisher of the meshes of a model, which are published as soon as their GPU
+	 * buffers are generated while the rest of the model is still loading. Nothing is loaded
+	 * until {@link MeshPublisher#start()} is called, so subscribers can be added first.
+	 * @param path - (Path) The Collada file. Its string form is used as the model's identifier.
+	 * @return The publisher of the meshes.
+	 * @see #loadModelAsync(Path, LoadOptions, LoadMonitor)
+	 */
+	public MeshPublisher publishMeshes( Path path ){
+		return new MeshPublisher( this, path, options, new LoadMonitor() );
+	}
+
+	/**
+	 * Starts loading a model in small steps on the calling thread, for clients that can not
+	 * block for a whole load. Nothing is read until the first call to
+	 * {@link IncrementalLoad#step(long)}. As with {@link #loadModel(String)} a model is
+	 * only loaded by one load at a time, and steps of a load started while the model is
+	 * loading elsewhere wait for that load without blocking. A cached or lazily loaded
+	 * model is read whole on the first step, any other file is read as a StAX event stream.
+	 * @param file_path - path to the file relative to the project location
+	 * @return The load, already done if the model is loaded.
+	 * @throws IOException - Happens when the file does not exist
+	 */
+	public IncrementalLoad loadModelIncrementally( String file_path ) throws IOException{
+		return loadModelIncrementally( file_path, new LoadMonitor() );
+	}
+	
+	/**
+	 * Starts loading a model in small steps on the calling thread, reporting the progress
+	 * of the load to a monitor. A step stops with a {@link LoadCancelledException} once the
+	 * monitor is cancelled or its deadline passes, which also closes the load.
+	 * @param file_path - path to the file relative to the project location
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 * @return The load, already done if the model is loaded.
+	 * @throws IOException - Happens when the file does not exist
+	 * @see #loadModelIncrementally(String)
+	 */
+	public IncrementalLoad loadModelIncrementally( String file_path, LoadMonitor monitor ) throws IOException{
+		ModelData loaded_model = model_files.get(file_path);
+		if( loaded_model != null )
+			return new IncrementalLoad(file_path, loaded_model, monitor);
+		if( !Files.isRegularFile(Paths.get(file_path)) )
+			throw new FileNotFoundException(file_path);
+		return new IncrementalLoad(this, file_path, monitor);
+	}
+	
+	/**
+	 * Creates the parser for a stream returned by
+	 * {@link #openStream(String, InputStream, ParserContext)}.
+	 */
+	DaeParser newParser( String identifier, XMLStreamReader reader, LoadMonitor monitor, ParserContext context ){
+		return new DaeParser(identifier, reader.getAttributeValue(null, "version"), options, monitor, context);
+	}
+	
+	/**
+	 * @return The options of this loader.
+	 */
+	LoadOptions getOptions(){
+		return options;
+	}
+	
+	/**
+	 * Loads every Collada file of a directory and its sub directories without blocking the
+	 * calling thread. Files are loaded concurrently, but only while the files that are
+	 * loading take up no more than the given number of bytes.
+	 * @param directory - (Path) Directory to load the files of.
+	 * @param glob - (String) Glob the paths of the files relative to the directory must
+	 * match, for example "**.dae" for every Collada file.
+	 * @param byte_budget - (long) Number of bytes of files that may be loading at once.
+	 * @param listener - (BatchLoadListener) Receives every model as soon as it is loaded,
+	 * and every file that failed to load.
+	 * @return The batch, which can be waited on or cancelled.
+	 */
+	public BatchLoad loadDirectory( Path directory, String glob, long byte_budget, BatchLoadListener listener ){
+		BatchLoad batch = new BatchLoad(this, directory, glob, byte_budget, listener);
+		io_executor.execute(batch::run);
+		return batch;
+	}
+	
+	private CompletableFuture<ModelData> loadAsync( String identifier, Path file, LoadMonitor monitor ){
+		ModelData loaded_model = model_files.get(identifier);
+		if( loaded_model != null )
+			return CompletableFuture.completedFuture(loaded_model);
+		
+		CompletableFuture<ModelData> load = new CompletableFuture<>();
+		CompletableFuture<ModelData> other_load = model_files.beginLoad(identifier, load);
+		if( other_load != null )
+			// A copy so cancelling it does not cancel the other load
+			return other_load.copy();
+		
+		CompletableFuture<ModelData> result = load.copy();
+		// Stops a stage that is already running once the result is cancelled
+		result.whenComplete((model, error) -> {
+			if( result.isCancelled() )
+				monitor.cancel();
+		});
 		OutputHandler out = new OutputHandler();
-		out.startTimedPrintln("Loading model "+file_path+" into memory...");
+		// Taken now so the cache matches the options the load started with
+		long cache_key = options.getCacheKey();
+		CompletableFuture.supplyAsync(() -> {
+			checkCancelled(result);
+			out.startTimedPrintln("Loading model "+identifier+" into memory...");
+			if( options.lazy_load ){
+				try{
+					return new AsyncStage(readLazyModel(identifier, file, monitor), null);
+				}catch( IOException e ){
+					throw new CompletionException(e);
+				}
+			}
+			ModelData cached_model = readCachedModel(identifier, file, cache_key);
+			if( cached_model != null )
+				return new AsyncStage(cached_model, null);
+			try( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ){
+				monitor.checkCancelled();
+				if( channel.size() > Integer.MAX_VALUE )
+					throw new DaeParseException("Model "+file+" is too large to be memory mapped.");
+				monitor.setTotalBytes(channel.size());
+				// Fault the pages in here so the parser never waits for the disk
+				return new AsyncStage(null, channel.map(MapMode.READ_ONLY, 0, channel.size()).load());
+			}catch( IOException e ){
+				throw new CompletionException(e);
+			}
+		}, io_executor).thenApplyAsync((stage) -> {
+			if( stage.buffer == null ){
+				monitor.setStage(LoadStage.DONE);
+				return stage.model;
+			}
+			checkCancelled(result);
+			try{
+				ModelData new_model = readSource(identifier, monitor, () -> new ByteBufferInputStream(stage.buffer));
+				if( new_model != null )
+					io_executor.execute(() -> writeCachedModel(identifier, file, new_model, cache_key));
+				return new_model;
+			}catch( SAXException | IOException e ){
+				throw new CompletionException(e);
+			}
+		}, ForkJoinPool.commonPool()).whenComplete((new_model, error) -> {
+			if( error != null ){
+				model_files.failLoad(identifier, load, ( error instanceof CompletionException ) ? error.getCause() : error);
+			}else{
+				model_files.finishLoad(identifier, load, new_model);
+				if( new_model != null )
+					out.endTimedPrintln("Finihsed loading model "+identifier+" into memory");
+			}
+		});
+		return result;
+	}
+	
+	private static void checkCancelled( CompletableFuture<ModelData> result ){
+		if( result.isCancelled() )
+			throw new CancellationException();
+	}
+	
+	/**
+	 * Result of the I/O stage of an asynchronous load, either a model read from the cache
+	 * or opened lazily, or the mapped Collada file.
+	 */
+	private static class AsyncStage {
+		
+		final ModelData model;
+		final ByteBuffer buffer;
 		
-		// Check to make sure that it has already been added
-		if( !model_files.containsKey(file_path) ){
-			Document doc = db.parse( new File(file_path) );
+		AsyncStage( ModelData model, ByteBuffer buffer ){
+			this.model = model;
+			this.buffer = buffer;
+		}
+		
+	}
+	
+	/**
+	 * Opens the bytes of a model file. Only called when the model is not already loaded.
+	 */
+	private interface ModelSource {
+		InputStream open() throws IOException;
+	}
+	
+	/**
+	 * Loads the model tracked under the given identifier, reading it from the source if it
+	 * is not loaded yet. If another thread is already loading the model this waits for its
+	 * load instead of reading the source again.
+	 * @param identifier - Name the model is tracked under
+	 * @param file - The Collada file the source reads, <b>null</b> if it is not a file. Only
+	 * files are cached.
+	 * @param monitor - Monitor of the load, also checked while waiting for another thread
+	 * @param source - Opens the bytes of the Collada file
+	 */
+	private ModelData loadModel( String identifier, Path file, LoadMonitor monitor, ModelSource source ) throws SAXException, IOException{
+		CompletableFuture<ModelData> load = new CompletableFuture<>();
+		while( true ){
+			monitor.checkCancelled();
+			// Check to make sure that it has not already been loaded
+			ModelData loaded_model = model_files.get(identifier);
+			if( loaded_model != null )
+				return loaded_model;
 			
-			NodeList list = doc.getChildNodes();
-			for( int i=0 ; i<list.getLength() ; i++ ){
-				Node curr_node = list.item(i);
-				// If inside of the COLLADA tag
-				if( curr_node.getNodeName().equals("COLLADA") ){
-					// Attributes in the tag for COLLADA
-					NamedNodeMap doc_attributes = curr_node.getAttributes();
-					String collada_version = doc_attributes.getNamedItem("version").getTextContent();
+			CompletableFuture<ModelData> other_load = model_files.beginLoad(identifier, load);
+			if( other_load == null )
+				break;
+			try{
+				return awaitLoad(identifier, other_load, monitor);
+			}catch( CancellationException e ){
+				// The other load was an asynchronous load that got cancelled, load it here instead
+			}catch( LoadCancelledException e ){
+				// The other load was stopped by its own monitor, load it here instead unless
+				// this load was cancelled as well, which the check above throws
+			}
+		}
+		
+		ModelData new_model;
+		try{
+			new_model = readModel(identifier, file, monitor, source);
+		}catch( SAXException | IOException | RuntimeException | Error e ){
+			model_files.failLoad(identifier, load, e);
+			throw e;
+		}
+		model_files.finishLoad(identifier, load, new_model);
+		return new_model;
+	}
+	
+	/**
+	 * Waits for a load started by another thread, checking the monitor of this thread's
+	 * load while waiting.
+	 * @return The model loaded by the other thread.
+	 * @throws SAXException
+	 * @throws IOException - The error of the other thread's load, a LoadCancelledException if
+	 * this thread's load was cancelled, or an InterruptedIOException if this thread was
+	 * interrupted while waiting.
+	 */
+	private static ModelData awaitLoad( String identifier, CompletableFuture<ModelData> load, LoadMonitor monitor ) throws SAXException, IOException{
+		try{
+			while( true ){
+				try{
+					return load.get(MONITOR_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				}catch( TimeoutException e ){
+					monitor.checkCancelled();
+				}
+			}
+		}catch( InterruptedException e ){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for model "+identifier+" to load");
+		}catch( ExecutionException e ){
+			Throwable cause = e.getCause();
+			if( cause instanceof SAXException )
+				throw (SAXException) cause;
+			if( cause instanceof IOException )
+				throw (IOException) cause;
+			if( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if( cause instanceof Error )
+				throw (Error) cause;
+			throw new DaeParseException("Could not load model "+identifier, cause);
+		}
+	}
+	
+	/**
+	 * Reads a model from its cache or its source.
+	 * @param identifier - Name the model is tracked under
+	 * @param file - The Collada file the source reads, <b>null</b> if it is not a file
+	 * @param monitor - Monitor of the load
+	 * @param source - Opens the bytes of the Collada file
+	 */
+	private ModelData readModel( String identifier, Path file, LoadMonitor monitor, ModelSource source ) throws SAXException, IOException{
+		OutputHandler out = new OutputHandler();
+		out.startTimedPrintln("Loading model "+identifier+" into memory...");
+		
+		// Taken now so the cache matches the options the load started with
+		long cache_key = options.getCacheKey();
+		ModelData new_model = null;
+		if( options.lazy_load && file != null ){
+			new_model = readLazyModel(identifier, file, monitor);
+		}else if( (new_model = readCachedModel(identifier, file, cache_key)) != null ){
+			monitor.setStage(LoadStage.DONE);
+		}else{
+			if( file != null && Files.isRegularFile(file) )
+				monitor.setTotalBytes( Files.size(file) );
+			new_model = readSource(identifier, monitor, source);
+			if( new_model != null )
+				writeCachedModel(identifier, file, new_model, cache_key);
+		}
+		
+		if( new_model != null ){
+			out.endTimedPrintln("Finihsed loading model "+identifier+" into memory");
+		}
+		return new_model;
+	}
+	
+	/**
+	 * Opens a model whose meshes and animations are parsed once they are first requested.
+	 * @return The model or <b>null</b> if the file is not a supported Collada file.
+	 * @throws DaeParseException Thrown if the file is too large to be mapped or an armature
+	 * could not be parsed.
+	 */
+	ModelData readLazyModel( String identifier, Path file, LoadMonitor monitor ) throws IOException{
+		ByteBuffer buffer;
+		try( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) ){
+			if( channel.size() > Integer.MAX_VALUE )
+				throw new DaeParseException("Model "+identifier+" is too large to be loaded lazily.");
+			monitor.setTotalBytes( channel.size() );
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		DaeIndex index = DaeIndex.index(buffer);
+		if( index.version == null ){
+			OutputHandler.println("No COLLADA tag found.");
+			return null;
+		}
+		if( !IMPLEMENTED_VERSIONS.contains(index.version) ){
+			OutputHandler.println("Could not load model "+identifier+" because it is either corrupted or is not an acceptable version.");
+			return null;
+		}
+		
+		monitor.setStage(LoadStage.VISUAL_SCENES);
+		LazyModelData new_model = new LazyModelData(identifier, buffer, index, options, parser_pool);
+		monitor.setStage(LoadStage.DONE);
+		return new_model;
+	}
+	
+	/**
+	 * @param file - The Collada file, <b>null</b> if the model is not read from a file
+	 * @param cache_key - Key of the options the model is loaded with
+	 * @return The cached model or <b>null</b> if caching is off or there is no up to date
+	 * and readable cache of the file. The model is then parsed and its cache rewritten.
+	 */
+	ModelData readCachedModel( String identifier, Path file, long cache_key ){
+		ModelCache cache = getModelCache();
+		if( cache == null || file == null )
+			return null;
+		try{
+			return cache.read(file, cache_key);
+		}catch( IOException | RuntimeException e ){
+			// A corrupted cache can fail anywhere while the model is rebuilt from it
+			OutputHandler.println("Ignoring unreadable cache of model "+identifier+": "+e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes the cache of a model if caching is on and the model was read from a file.
+	 */
+	void writeCachedModel( String identifier, Path file, ModelData model, long cache_key ){
+		ModelCache cache = getModelCache();
+		if( cache == null || file == null )
+			return;
+		try{
+			cache.write(model, file, cache_key);
+		}catch( IOException e ){
+			OutputHandler.println("Could not write cache of model "+identifier+": "+e.getMessage());
+		}
+	}
+	
+	/**
+	 * Gets the cache of the directory the options currently name. The options are read on
+	 * every load, so caching can be turned on or moved after the loader is created.
+	 * @return The cache or <b>null</b> if caching is off.
+	 */
+	private ModelCache getModelCache(){
+		if( !options.cache_models )
+			return null;
+		Path directory = ( options.cache_directory == null ) ? null : Paths.get(options.cache_directory);
+		ModelCache cache = model_cache;
+		if( cache == null || !Objects.equals(cache.getDirectory(), directory) ){
+			cache = new ModelCache(directory);
+			model_cache = cache;
+		}
+		return cache;
+	}
+	
+	/**
+	 * Parses a model from the bytes of its Collada file.
+	 * @throws LoadCancelledException Thrown if the load was cancelled, even when the xml
+	 * parser reports it as an error of its own.
+	 */
+	private ModelData readSource( String identifier, LoadMonitor monitor, ModelSource source ) throws SAXException, IOException{
+		ParserContext context = parser_pool.acquire();
+		try( InputStream in = monitor.monitorStream(source.open()) ){
+			return options.stream_parse ? streamModel(identifier, in, monitor, context) : parseModel(identifier, in, monitor, context);
+		}catch( SAXException | IOException e ){
+			monitor.checkCancelled();
+			throw e;
+		}finally{
+			parser_pool.release(context);
+		}
+	}
+	
+	/**
+	 * Reads a model by first building a DOM tree of the whole file.
+	 * @param identifier - Name the model is tracked under
+	 * @param in - Bytes of the Collada file
+	 * @param monitor - Monitor of the load
+	 * @param context - Parsers of the load
+	 * @return The loaded model or <b>null</b> if the file is not a supported Collada file.
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	private ModelData parseModel( String identifier, InputStream in, LoadMonitor monitor, ParserContext context ) throws SAXException, IOException {
+		Document doc = context.parse( in );
+		
+		NodeList list = doc.getChildNodes();
+		for( int i=0 ; i<list.getLength() ; i++ ){
+			Node curr_node = list.item(i);
+			// If inside of the COLLADA tag
+			if( curr_node.getNodeName().equals("COLLADA") ){
+				// Attributes in the tag for COLLADA
+				NamedNodeMap doc_attributes = curr_node.getAttributes();
+				String collada_version = doc_attributes.getNamedItem("version").getTextContent();
+				
+				// Make sure that it is a valid version
+				if( IMPLEMENTED_VERSIONS.contains(collada_version) ){
+					DaeParser parser = new DaeParser(identifier, collada_version, options, monitor, context);
+					parser.parse( curr_node );
+					
+					// FIXME - temporary and only used for testing
+//					new_model.printData();
+					
+					return parser.getModelData();
 					
-					// Make sure that it is a valid version
-					if( IMPLEMENTED_VERSIONS.contains(collada_version) ){
-						DaeParser parser = new DaeParser(file_path, collada_version);
-						parser.parse( curr_node );
-						ModelData new_model = parser.getModelData();
-						model_files.put(file_path, new_model);
-						
-						// FIXME - temporary and only used for testing
-//						new_model.printData();
-						
-						out.endTimedPrintln("Finihsed loading model "+file_path+" into memory");
-						return model_files.get(file_path);
-						
-					// Not a valid version
-					}else{
-						OutputHandler.println("Could not load model "+file_path+" because it is either corrupted or is not an acceptable version.");
-					}
+				// Not a valid version
 				}else{
-					OutputHandler.println("No COLLADA tag found.");
+					OutputHandler.println("Could not load model "+identifier+" because it is either corrupted or is not an acceptable version.");
 				}
+			}else{
+				OutputHandler.println("No COLLADA tag found.");
 			}
-		}else{
-			return model_files.get(file_path);
 		}
 		return null;
 	}
+	
+	/**
+	 * Reads a model with a StAX event stream instead of building a DOM tree.
+	 * @param identifier - Name the model is tracked under
+	 * @param in - Bytes of the Collada file
+	 * @param monitor - Monitor of the load
+	 * @param context - Parsers of the load
+	 * @return The loaded model or <b>null</b> if the file is not a supported Collada file.
+	 * @throws IOException
+	 */
+	private ModelData streamModel( String identifier, InputStream in, LoadMonitor monitor, ParserContext context ) throws IOException {
+		try{
+			XMLStreamReader reader = openStream(identifier, in, context);
+			if( reader == null )
+				return null;
+			try{
+				DaeParser parser = newParser(identifier, reader, monitor, context);
+				parser.parse( reader );
+				return parser.getModelData();
+			}finally{
+				reader.close();
+			}
+		}catch( XMLStreamException e ){
+			throw new DaeParseException("Could not read model "+identifier, e);
+		}
+	}
+	
+	/**
+	 * Creates a StAX reader for a Collada file and moves it onto the root COLLADA tag.
+	 * @param identifier - Name the model is tracked under
+	 * @param in - Bytes of the Collada file
+	 * @param context - Parsers of the load, creating the reader
+	 * @return The reader or <b>null</b> if the file is not a supported Collada file.
+	 * @throws XMLStreamException
+	 */
+	XMLStreamReader openStream( String identifier, InputStream in, ParserContext context ) throws XMLStreamException {
+		XMLStreamReader reader = context.createXMLStreamReader(in);
+		
+		// Find the root tag
+		while( reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT );
+		
+		if( !reader.isStartElement() || !reader.getLocalName().equals("COLLADA") ){
+			OutputHandler.println("No COLLADA tag found.");
+			reader.close();
+			return null;
+		}
+		
+		// Make sure that it is a valid version
+		String collada_version = reader.getAttributeValue(null, "version");
+		if( collada_version == null || !IMPLEMENTED_VERSIONS.contains(collada_version) ){
+			OutputHandler.println("Could not load model "+identifier+" because it is either corrupted or is not an acceptable version.");
+			reader.close();
+			return null;
+		}
+		return reader;
+	}
 
 }
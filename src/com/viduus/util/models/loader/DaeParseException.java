@@ -24,4 +24,14 @@ public class DaeParseException extends IOException{
 		super(message);
 	}
 
+	/**
+	 * This exception is thrown for parsing errors caused by another exception.
+	 * 
+	 * @param message - (String) Message for error.
+	 * @param cause - (Throwable) The underlying error.
+	 */
+	public DaeParseException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
 }
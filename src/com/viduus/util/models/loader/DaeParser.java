@@ -1,10 +1,15 @@
 package com.viduus.util.models.loader;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -15,8 +20,11 @@ import com.viduus.util.models.ModelData;
 import com.viduus.util.models.animations.Animation;
 import com.viduus.util.models.controller.Controller;
 import com.viduus.util.models.effects.Effect;
+import com.viduus.util.models.geometries.BufferGenerator;
 import com.viduus.util.models.geometries.Mesh;
+import com.viduus.util.models.geometries.MeshReader;
 import com.viduus.util.models.materials.Material;
+import com.viduus.util.models.util.LoaderFunctions;
 import com.viduus.util.models.visual_scene.Instance;
 import com.viduus.util.models.visual_scene.InstanceController;
 import com.viduus.util.models.visual_scene.InstanceGeometry;
@@ -46,6 +54,27 @@ public class DaeParser {
 	private HashMap<String, Bone> model_bones;
 	private HashMap<String, Mesh> model_meshes = new HashMap<>();
 	
+	private final ElementLoader element_loader;
+	private final LoadMonitor monitor;
+	private final LoadOptions options;
+	
+	/*
+	 * State of a stream that is parsed in steps
+	 */
+	// Library section being read, null between sections
+	private String current_section;
+	// Instances left to instantiate once the whole file is read
+	private Queue<Instance> pending_instances;
+	// Number of instances left to instantiate of each mesh
+	private HashMap<Mesh, Integer> remaining_instances;
+	// Geometry read in parts, null between geometries
+	private String geometry_id, geometry_name;
+	private MeshReader mesh_reader;
+	// Buffers of the mesh being generated in parts, null between meshes
+	private BufferGenerator buffer_generator;
+	// Meshes left without an instance once every instance is done, see getRemainingMeshes
+	private Queue<Mesh> remaining_meshes;
+	
 	/**
 	 * Creates a new dae parser.
 	 * 
@@ -53,8 +82,49 @@ public class DaeParser {
 	 * @param version - (String) Dae version.
 	 */
 	public DaeParser( String model_name, String version ) {
+		this( model_name, version, new LoadOptions() );
+	}
+	
+	/**
+	 * Creates a new dae parser.
+	 * 
+	 * @param model_name - (String) Name of the model.
+	 * @param version - (String) Dae version.
+	 * @param options - (LoadOptions) How the model should be read.
+	 */
+	public DaeParser( String model_name, String version, LoadOptions options ) {
+		this( model_name, version, options, new LoadMonitor() );
+	}
+	
+	/**
+	 * Creates a new dae parser that reports its progress to a monitor and stops once the
+	 * monitor's load is cancelled.
+	 * 
+	 * @param model_name - (String) Name of the model.
+	 * @param version - (String) Dae version.
+	 * @param options - (LoadOptions) How the model should be read.
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 */
+	public DaeParser( String model_name, String version, LoadOptions options, LoadMonitor monitor ) {
+		this( model_name, version, options, monitor, null );
+	}
+	
+	/**
+	 * Creates a new dae parser that copies streamed elements with the parsers of a load.
+	 * 
+	 * @param model_name - (String) Name of the model.
+	 * @param version - (String) Dae version.
+	 * @param options - (LoadOptions) How the model should be read.
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 * @param context - (ParserContext) Parsers of the load, <b>null</b> to create them when
+	 * needed.
+	 */
+	DaeParser( String model_name, String version, LoadOptions options, LoadMonitor monitor, ParserContext context ) {
 		this.model_name = model_name;
 		this.version = version;
+		this.monitor = monitor;
+		this.options = options;
+		this.element_loader = new ElementLoader( options.parallel_parse, monitor, context );
 	}
 
 	/**
@@ -62,8 +132,18 @@ public class DaeParser {
 	 * 
 	 * @param curr_node - (Node) The root node of the dae file.
 	 * @throws DaeParseException
+	 * @throws LoadCancelledException Thrown if the load was cancelled.
 	 */
 	public void parse( Node curr_node ) throws DaeParseException {
+		LoadMonitor previous = LoadMonitor.enter(monitor);
+		try{
+			parseSections( curr_node );
+		}finally{
+			LoadMonitor.exit(previous);
+		}
+	}
+	
+	private void parseSections( Node curr_node ) throws DaeParseException {
 		NodeList sections = curr_node.getChildNodes();
 		
 		/*
@@ -73,8 +153,14 @@ public class DaeParser {
 			// Get the current section
 			Node curr_section = sections.item(sec_id);
 			String section_name = curr_section.getNodeName();
+			LoadStage stage = LoadStage.ofSection(section_name);
+			if( stage != null )
+				monitor.setStage(stage);
 			
-			if( section_name.equals("asset") ){
+			if( !options.isLibraryLoaded(section_name) ){
+				// Skipped by the load options
+				
+			}else if( section_name.equals("asset") ){
 				// TODO Not implemented
 				
 			}else if( section_name.equals("library_cameras") ){
@@ -133,18 +219,248 @@ public class DaeParser {
 			
 		}
 		
+		// Wait for elements that are being loaded on other threads
+		element_loader.join();
+		
 //		printLoadingInfo();
 
+		monitor.setStage(LoadStage.LINKING);
 		applyEffects();
 		applyVisualScene();
 		
 		printProcessedInfo();
+		monitor.setStage(LoadStage.DONE);
+	}
+
+	/**
+	 * Begin parsing a dae file from an event stream. Objects are built directly from the
+	 * stream so the document never has to be held in memory as a whole.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the root COLLADA start tag.
+	 * The reader is left on the matching end tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public void parse( XMLStreamReader reader ) throws DaeParseException, XMLStreamException {
+		while( step(reader) );
+	}
+	
+	/**
+	 * Does the next small piece of parsing a dae file from an event stream. While the file
+	 * is being read each step reads one element of a library section, such as one geometry
+	 * or one controller. Once the whole file is read the effects and bones are linked in
+	 * one step, and then each step instantiates one mesh of the visual scene, which
+	 * generates its GPU buffers.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the root COLLADA start tag
+	 * before the first step. The reader is left on the matching end tag.
+	 * @return True if there are steps left.
+	 * @throws DaeParseException
+	 * @throws LoadCancelledException Thrown if the load was cancelled.
+	 * @throws XMLStreamException
+	 */
+	public boolean step( XMLStreamReader reader ) throws DaeParseException, XMLStreamException {
+		return step( reader, 0, true );
+	}
+	
+	/**
+	 * Does the next piece of parsing a dae file from an event stream, stopping once the
+	 * deadline has passed. Unlike {@link #step(XMLStreamReader)} a geometry is read a part
+	 * at a time, and the GPU buffers of a mesh are generated a part at a time, so a step
+	 * only goes past the deadline by about one chunk of numbers or faces. Geometries read
+	 * on other threads, controllers, animations, effects, linking and splitting a mesh into
+	 * batches are still done in a single step each.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the root COLLADA start tag
+	 * before the first step. The reader is left on the matching end tag.
+	 * @param deadline - (long) {@link System#nanoTime()} after which the step stops.
+	 * @return True if there are steps left.
+	 * @throws DaeParseException
+	 * @throws LoadCancelledException Thrown if the load was cancelled.
+	 * @throws XMLStreamException
+	 */
+	public boolean step( XMLStreamReader reader, long deadline ) throws DaeParseException, XMLStreamException {
+		return step( reader, deadline, false );
+	}
+	
+	private boolean step( XMLStreamReader reader, long deadline, boolean whole ) throws DaeParseException, XMLStreamException {
+		LoadMonitor previous = LoadMonitor.enter(monitor);
+		try{
+			monitor.checkCancelled();
+			return nextStep( reader, deadline, whole );
+		}finally{
+			LoadMonitor.exit(previous);
+		}
+	}
+	
+	private boolean nextStep( XMLStreamReader reader, long deadline, boolean whole ) throws DaeParseException, XMLStreamException {
+		if( pending_instances == null ){
+			/*
+			 * Read in all the data
+			 */
+			if( geometry_id != null ){
+				readGeometry( reader, deadline );
+				
+			}else if( current_section != null ){
+				if( LoaderFunctions.nextChildElement(reader) )
+					loadSectionElement( reader, whole );
+				else
+					current_section = null;
+				
+			}else if( LoaderFunctions.nextChildElement(reader) ){
+				String section_name = reader.getLocalName();
+				if( !options.isLibraryLoaded(section_name) ){
+					// Skipped by the load options, without building anything
+					LoaderFunctions.skipElement(reader);
+				}else if( startSection(section_name) ){
+					current_section = section_name;
+				}else{
+					// asset, library_cameras, library_lights, library_images and scene are not implemented
+					if( !section_name.equals("asset") && !section_name.equals("library_cameras") &&
+							!section_name.equals("library_lights") && !section_name.equals("library_images") &&
+							!section_name.equals("scene") )
+						OutputHandler.println("\tCould not parse section "+section_name+" in model "+model_name);
+					LoaderFunctions.skipElement(reader);
+				}
+				
+			}else{
+				// Wait for elements that are being loaded on other threads
+				element_loader.join();
+				
+				monitor.setStage(LoadStage.LINKING);
+				applyEffects();
+				createBones();
+				pending_instances = new LinkedList<>();
+				remaining_instances = new HashMap<>();
+				if( object_visual_scenes != null ){
+					remaining_instances = countInstances();
+					for( SceneNode node : object_visual_scenes.values() )
+						pending_instances.addAll(node.instances);
+				}
+				monitor.setStage(LoadStage.BUFFERS);
+			}
+			return true;
+		}
+		
+		if( buffer_generator == null ){
+			if( !pending_instances.isEmpty() ){
+				buffer_generator = startInstance( pending_instances.poll() );
+			}else{
+				if( remaining_meshes == null )
+					remaining_meshes = new LinkedList<>( getRemainingMeshes() );
+				if( remaining_meshes.isEmpty() ){
+					printProcessedInfo();
+					monitor.setStage(LoadStage.DONE);
+					return false;
+				}
+				Mesh mesh = remaining_meshes.poll();
+				model_meshes.put(mesh.id, mesh);
+				remaining_instances.put(mesh, 1);
+				buffer_generator = mesh.startJointBuffer();
+			}
+			if( buffer_generator == null || (!whole && System.nanoTime() - deadline >= 0) )
+				return true;
+		}
+		
+		if( whole )
+			buffer_generator.generate();
+		else if( !buffer_generator.generate(deadline) )
+			return true;
+		reportMesh( buffer_generator.getMesh() );
+		buffer_generator = null;
+		return true;
+	}
+	
+	/**
+	 * Starts reading a library section from an event stream.
+	 * 
+	 * @return True if the section is supported, its elements are then read by
+	 * {@link #loadSectionElement(XMLStreamReader)}.
+	 */
+	private boolean startSection( String section_name ) {
+		LoadStage stage = LoadStage.ofSection(section_name);
+		if( stage != null )
+			monitor.setStage(stage);
+		
+		if( section_name.equals("library_effects") ){
+			object_effects = new HashMap<>();
+		}else if( section_name.equals("library_materials") ){
+			object_materials = new HashMap<>();
+		}else if( section_name.equals("library_geometries") ){
+			object_meshes = new HashMap<>();
+		}else if( section_name.equals("library_animations") ){
+			object_animations = new HashMap<>();
+		}else if( section_name.equals("library_controllers") ){
+			object_controllers = new HashMap<>();
+		}else if( section_name.equals("library_visual_scenes") ){
+			object_visual_scenes = new HashMap<>();
+		}else{
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads the element of the current library section the stream is positioned on.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the element's start tag. The
+	 * reader is left on the matching end tag, unless a geometry is left for
+	 * {@link #readGeometry(XMLStreamReader, long)}.
+	 * @param whole - (boolean) False to read geometries a part at a time.
+	 */
+	private void loadSectionElement( XMLStreamReader reader, boolean whole ) throws DaeParseException, XMLStreamException {
+		String name = reader.getLocalName();
+		
+		if( current_section.equals("library_effects") && name.equals("effect") ){
+			Effect effect = new Effect(reader);
+			object_effects.put(effect.getId(), effect);
+			monitor.elementParsed();
+			
+		}else if( current_section.equals("library_materials") && name.equals("material") ){
+			Material material = new Material(reader);
+			object_materials.put(material.getId(), material);
+			monitor.elementParsed();
+			
+		}else if( current_section.equals("library_geometries") && name.equals("geometry") ){
+			if( whole || element_loader.isParallel() ){
+				loadGeometry( reader, object_meshes );
+			}else{
+				geometry_id = LoaderFunctions.getAttribute(reader, "id");
+				geometry_name = LoaderFunctions.getAttribute(reader, "name");
+			}
+			
+		}else if( current_section.equals("library_animations") && name.equals("animation") ){
+			if( element_loader.isParallel() ){
+				element_loader.load(object_animations, LoaderFunctions.getAttribute(reader, "id"), reader, Animation::new);
+			}else{
+				Animation animation = new Animation(reader);
+				object_animations.put(animation.getId(), animation);
+				monitor.elementParsed();
+			}
+			
+		}else if( current_section.equals("library_controllers") && name.equals("controller") ){
+			if( element_loader.isParallel() ){
+				element_loader.load(object_controllers, LoaderFunctions.getAttribute(reader, "id"), reader, Controller::new);
+			}else{
+				Controller controller = new Controller(reader);
+				object_controllers.put(controller.getId(), controller);
+				monitor.elementParsed();
+			}
+			
+		}else if( current_section.equals("library_visual_scenes") && name.equals("visual_scene") ){
+			loadVisualScene( reader, object_visual_scenes );
+			
+		}else{
+			LoaderFunctions.skipElement(reader);
+		}
 	}
 
 	/**
 	 * 
 	 */
 	private void applyEffects() {
+		if( object_materials == null || object_effects == null )
+			return;
 		for( Material material : object_materials.values() ){
 			material.setEffect( object_effects.get(material.effect_url) );
 		}
@@ -203,9 +519,56 @@ public class DaeParser {
 	/**
 	 * 
 	 */
-	private void applyVisualScene() {
+	private void applyVisualScene() throws LoadCancelledException {
+		createBones();
+		
+		monitor.setStage(LoadStage.BUFFERS);
+		// Instantiate everything
+		if( object_visual_scenes != null ){
+			remaining_instances = countInstances();
+			for( SceneNode node : object_visual_scenes.values() ){
+				// Check that it has instantiated things
+				for( Instance instance : node.instances )
+					instantiateAndReport( instance );
+			}
+		}
+		instantiateRemainingMeshes();
+		
+		// Apply bone transformations
+		
+		
+//		scene_meshes = new HashMap<>();
+//		for( String transform_key : object_visual_scenes.keySet() ){
+//			SceneNode scene_tranform = object_visual_scenes.get(transform_key);
+//			// Make sure that it has been loaded
+//			if( object_meshes.containsKey( scene_tranform.reference_url ) ){
+//				Mesh affected_model = object_meshes.get( scene_tranform.reference_url );
+//				Mesh transformed_mesh = affected_model.setObjectMatrix( scene_tranform );
+//				scene_meshes.put(scene_tranform.getName(), affected_model);
+//				System.out.println("data "+scene_tranform.getName());
+//			}
+//		}
+	}
+	
+	/**
+	 * Creates the bones of the visual scene and attaches them to each other.
+	 */
+	private void createBones() {
+		if( object_visual_scenes == null )
+			return;
+		model_bones = createBones( object_visual_scenes.values() );
+	}
+	
+	/**
+	 * Creates the bones below the given scene nodes and attaches them to each other.
+	 * 
+	 * @param scene_nodes - (Collection) The top level nodes of the visual scene.
+	 * @return The bones of the last node with sub nodes, <b>null</b> if no node has any.
+	 */
+	static HashMap<String, Bone> createBones( Collection<SceneNode> scene_nodes ) {
+		HashMap<String, Bone> model_bones = null;
 		// Create and attaches bones, uses DFS
-		for( SceneNode node : object_visual_scenes.values() ){
+		for( SceneNode node : scene_nodes ){
 			// Check that it has sub nodes
 			if( node.sub_nodes.size() > 0 ){
 				model_bones = new HashMap<>();
@@ -233,64 +596,142 @@ public class DaeParser {
 				}
 			}
 		}
-		
-		// Instantiate everything
+		return model_bones;
+	}
+	
+	/**
+	 * Counts how many instances of the visual scene generate the buffers of each mesh.
+	 */
+	private HashMap<Mesh, Integer> countInstances() {
+		HashMap<Mesh, Integer> result = new HashMap<>();
 		for( SceneNode node : object_visual_scenes.values() ){
-			// Check that it has instantiated things
-			if( node.instances.size() > 0 ){
-				for( Instance instance : node.instances ){
-					// Instantiate a geometry
-					if( instance instanceof InstanceGeometry ){
-						InstanceGeometry instance_geometry = (InstanceGeometry) instance;
-						Mesh instantiated_mesh = object_meshes.get(instance.reference_url);
-						instantiated_mesh.setJointBuffer();
-						
-						// Attach materials to mesh
-						for( String symbol : instance_geometry.bind_material.instance_materials.keySet() ){
-							String target = instance_geometry.bind_material.instance_materials.get(symbol);
-							instantiated_mesh.addMaterial(symbol, object_materials.get(target));
-						}
+			for( Instance instance : node.instances ){
+				Mesh instantiated_mesh = getInstancedMesh( instance );
+				if( instantiated_mesh != null )
+					result.merge(instantiated_mesh, 1, Integer::sum);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @return The mesh an instance of the visual scene instantiates, <b>null</b> if it was
+	 * not loaded.
+	 */
+	private Mesh getInstancedMesh( Instance instance ) {
+		if( object_meshes == null )
+			return null;
+		if( instance instanceof InstanceGeometry )
+			return object_meshes.get(instance.reference_url);
+		if( instance instanceof InstanceController && object_controllers != null ){
+			Controller instantiated_controller = object_controllers.get(instance.reference_url);
+			if( instantiated_controller != null )
+				return object_meshes.get(instantiated_controller.skin.source_id);
+		}
+		return null;
+	}
+	
+	/**
+	 * Instantiates a geometry or controller of the visual scene, and reports its mesh to
+	 * the monitor once its last instance generated its buffers.
+	 */
+	private void instantiateAndReport( Instance instance ) throws LoadCancelledException {
+		BufferGenerator generator = startInstance( instance );
+		if( generator != null ){
+			generator.generate();
+			reportMesh( generator.getMesh() );
+		}
+	}
+	
+	/**
+	 * Reports a mesh to the monitor once the last of its instances generated its buffers.
+	 */
+	private void reportMesh( Mesh mesh ) {
+		if( remaining_instances.merge(mesh, -1, Integer::sum) == 0 )
+			monitor.meshLoaded(mesh);
+	}
+	
+	/**
+	 * Instantiates a geometry or controller of the visual scene, attaching the materials
+	 * of its mesh. The joints of a controller are generated at once.
+	 * @return The generator of the GPU buffers of the instantiated mesh, <b>null</b> if
+	 * nothing was instantiated.
+	 */
+	private BufferGenerator startInstance( Instance instance ) throws LoadCancelledException {
+		// Instantiate a geometry
+		if( instance instanceof InstanceGeometry ){
+			InstanceGeometry instance_geometry = (InstanceGeometry) instance;
+			if( object_meshes == null )
+				return null;
+			Mesh instantiated_mesh = object_meshes.get(instance.reference_url);
+			BufferGenerator generator = instantiated_mesh.startJointBuffer();
+			
+			// Attach materials to mesh
+			if( object_materials != null ){
+				for( String symbol : instance_geometry.bind_material.instance_materials.keySet() ){
+					String target = instance_geometry.bind_material.instance_materials.get(symbol);
+					instantiated_mesh.addMaterial(symbol, object_materials.get(target));
+				}
+			}
 
-						model_meshes.put(instantiated_mesh.id, instantiated_mesh);
-						
-					// Instantiate a controller
-					}else if( instance instanceof InstanceController ){
-						InstanceController instance_controller = (InstanceController) instance;
-						Controller instantiated_controller = object_controllers.get(instance.reference_url);
-						instantiated_controller.generateJointBuffer();
-						
-						// Get target mesh
-						Mesh instantiated_mesh = object_meshes.get(instantiated_controller.skin.source_id);
-						instantiated_mesh.setJointBuffer(instantiated_controller.max_joints_per_vert, instantiated_controller.joint_buffers);
-						
-						// TODO Apply bind pose matrix to mesh
-						
-						// Attach materials to mesh
-						for( String symbol : instance_controller.bind_material.instance_materials.keySet() ){
-							String target = instance_controller.bind_material.instance_materials.get(symbol);
-							instantiated_mesh.addMaterial(symbol, object_materials.get(target));
-						}
-						
-						model_meshes.put(instantiated_mesh.id, instantiated_mesh);
-					}
+			model_meshes.put(instantiated_mesh.id, instantiated_mesh);
+			return generator;
+			
+		// Instantiate a controller
+		}else if( instance instanceof InstanceController ){
+			InstanceController instance_controller = (InstanceController) instance;
+			// Meshes of skipped controllers are instantiated without joints afterwards
+			if( object_controllers == null || object_meshes == null )
+				return null;
+			Controller instantiated_controller = object_controllers.get(instance.reference_url);
+			instantiated_controller.generateJointBuffer();
+			
+			// Get target mesh
+			Mesh instantiated_mesh = object_meshes.get(instantiated_controller.skin.source_id);
+			BufferGenerator generator = instantiated_mesh.startJointBuffer(instantiated_controller.max_joints_per_vert, instantiated_controller.joint_buffers);
+			
+			// TODO Apply bind pose matrix to mesh
+			
+			// Attach materials to mesh
+			if( object_materials != null ){
+				for( String symbol : instance_controller.bind_material.instance_materials.keySet() ){
+					String target = instance_controller.bind_material.instance_materials.get(symbol);
+					instantiated_mesh.addMaterial(symbol, object_materials.get(target));
 				}
 			}
+			
+			model_meshes.put(instantiated_mesh.id, instantiated_mesh);
+			return generator;
 		}
-		
-		// Apply bone transformations
-		
-		
-//		scene_meshes = new HashMap<>();
-//		for( String transform_key : object_visual_scenes.keySet() ){
-//			SceneNode scene_tranform = object_visual_scenes.get(transform_key);
-//			// Make sure that it has been loaded
-//			if( object_meshes.containsKey( scene_tranform.reference_url ) ){
-//				Mesh affected_model = object_meshes.get( scene_tranform.reference_url );
-//				Mesh transformed_mesh = affected_model.setObjectMatrix( scene_tranform );
-//				scene_meshes.put(scene_tranform.getName(), affected_model);
-//				System.out.println("data "+scene_tranform.getName());
-//			}
-//		}
+		return null;
+	}
+
+	/**
+	 * Generates the GPU buffers of the meshes no instance was loaded for, because the load
+	 * options skipped the visual scenes or the controllers instantiating them. Meshes the
+	 * scene never instantiates are left alone when nothing was skipped.
+	 */
+	private void instantiateRemainingMeshes() throws LoadCancelledException {
+		for( Mesh mesh : getRemainingMeshes() ){
+			mesh.setJointBuffer();
+			model_meshes.put(mesh.id, mesh);
+			monitor.meshLoaded(mesh);
+		}
+	}
+	
+	/**
+	 * @return The meshes no instance was loaded for, because the load options skipped the
+	 * visual scenes or the controllers instantiating them.
+	 */
+	private List<Mesh> getRemainingMeshes() {
+		List<Mesh> result = new ArrayList<>();
+		if( object_meshes == null || (options.load_visual_scenes && options.load_controllers) )
+			return result;
+		for( Mesh mesh : object_meshes.values() ){
+			if( !model_meshes.containsKey(mesh.id) )
+				result.add(mesh);
+		}
+		return result;
 	}
 
 	/**
@@ -308,8 +749,8 @@ public class DaeParser {
 			String curr_name = curr_controller.getNodeName();
 			
 			if( curr_name.equals("controller") ){
-				Controller controller = new Controller(curr_controller);
-				result.put(controller.getId(), controller);
+				String id = LoaderFunctions.getAttributeFromMap(curr_controller.getAttributes(), "id");
+				element_loader.load(result, id, curr_controller, Controller::new);
 			}
 		}
 		
@@ -331,8 +772,8 @@ public class DaeParser {
 			String curr_name = curr_animation.getNodeName();
 			
 			if( curr_name.equals("animation") ){
-				Animation animation = new Animation(curr_animation);
-				result.put(animation.getId(), animation);
+				String id = LoaderFunctions.getAttributeFromMap(curr_animation.getAttributes(), "id");
+				element_loader.load(result, id, curr_animation, Animation::new);
 			}
 		}
 		
@@ -354,8 +795,8 @@ public class DaeParser {
 			String curr_name = curr_material.getNodeName();
 			
 			if( curr_name.equals("material") ){
-				Material material = new Material(curr_material);
-				result.put(material.getId(), material);
+				String id = LoaderFunctions.getAttributeFromMap(curr_material.getAttributes(), "id");
+				element_loader.load(result, id, curr_material, Material::new);
 			}
 		}
 		
@@ -377,8 +818,8 @@ public class DaeParser {
 			String curr_name = curr_effect.getNodeName();
 			
 			if( curr_name.equals("effect") ){
-				Effect effect = new Effect(curr_effect);
-				result.put(effect.getId(), effect);
+				String id = LoaderFunctions.getAttributeFromMap(curr_effect.getAttributes(), "id");
+				element_loader.load(result, id, curr_effect, Effect::new);
 			}
 		}
 		
@@ -415,8 +856,7 @@ public class DaeParser {
 						String id = node_attributes.getNamedItem("id").getTextContent();
 						
 						if( type.equals("NODE") ){
-							SceneNode new_node = new SceneNode( curr_node );
-							result.put(id, new_node);
+							element_loader.load(result, id, curr_node, SceneNode::new);
 						}
 					}
 				}
@@ -456,8 +896,7 @@ public class DaeParser {
 					String mesh_name = curr_mesh.getNodeName();
 					
 					if( mesh_name.equals("mesh") ){
-						Mesh new_mesh = new Mesh(geometry_id, geometry_name, curr_mesh);
-						result.put(geometry_id, new_mesh);
+						element_loader.load(result, geometry_id, curr_mesh, mesh -> new Mesh(geometry_id, geometry_name, mesh, options));
 					}
 				}
 			}
@@ -465,11 +904,91 @@ public class DaeParser {
 		return result;
 	}
 
+	/**
+	 * Processes a 'visual_scene' element of a dae file from an event stream.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the 'visual_scene' start tag.
+	 * @param result - (HashMap) Map the scene nodes are put into.
+	 * @throws DaeParseException 
+	 * @throws XMLStreamException 
+	 */
+	private void loadVisualScene(XMLStreamReader reader, HashMap<String, SceneNode> result) throws DaeParseException, XMLStreamException {
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("node") && "NODE".equals(LoaderFunctions.getAttribute(reader, "type")) ){
+				String id = LoaderFunctions.getAttribute(reader, "id");
+				result.put(id, new SceneNode(reader));
+				monitor.elementParsed();
+			}else{
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+	}
+
+	/**
+	 * Processes a 'geometry' element of a dae file from an event stream.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream positioned on the 'geometry' start tag.
+	 * @param result - (HashMap) Map the mesh is put into.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException 
+	 */
+	private void loadGeometry(XMLStreamReader reader, HashMap<String, Mesh> result) throws DaeParseException, XMLStreamException {
+		String geometry_id = LoaderFunctions.getAttribute(reader, "id");
+		String geometry_name = LoaderFunctions.getAttribute(reader, "name");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("mesh") && element_loader.isParallel() ){
+				element_loader.load(result, geometry_id, reader, mesh -> new Mesh(geometry_id, geometry_name, mesh, options));
+			}else if( reader.getLocalName().equals("mesh") ){
+				Mesh new_mesh = new Mesh(geometry_id, geometry_name, reader, options);
+				result.put(geometry_id, new_mesh);
+				monitor.elementParsed();
+			}else{
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+	}
+
+	/**
+	 * Reads the geometry started by {@link #loadSectionElement(XMLStreamReader, boolean)}
+	 * until it is done or the deadline has passed. Its mesh is read a part at a time.
+	 * 
+	 * @param reader - (XMLStreamReader) Stream inside of the 'geometry' element. The reader
+	 * is left on the matching end tag once the geometry is read.
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the
+	 * geometry is left for the next step.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	private void readGeometry(XMLStreamReader reader, long deadline) throws DaeParseException, XMLStreamException {
+		while( true ){
+			if( mesh_reader != null ){
+				if( !mesh_reader.read(deadline) )
+					return;
+				object_meshes.put(geometry_id, mesh_reader.getMesh());
+				monitor.elementParsed();
+				mesh_reader = null;
+			}else if( !LoaderFunctions.nextChildElement(reader) ){
+				geometry_id = geometry_name = null;
+				return;
+			}else if( reader.getLocalName().equals("mesh") ){
+				mesh_reader = new MeshReader(geometry_id, geometry_name, reader, options);
+			}else{
+				LoaderFunctions.skipElement(reader);
+			}
+			if( System.nanoTime() - deadline >= 0 )
+				return;
+		}
+	}
+
 	/**
 	 * @return The processed model from this parser.
 	 */
 	public ModelData getModelData() {
-		ModelData new_model = new ModelData( model_name, version, object_meshes );
+		ModelData new_model = new ModelData( model_name, version,
+				(object_meshes != null) ? object_meshes : new HashMap<>(),
+				(model_bones != null) ? model_bones : new HashMap<>(),
+				(object_animations != null) ? object_animations : new HashMap<>() );
 		return new_model;
 	}
 
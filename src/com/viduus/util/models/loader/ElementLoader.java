@@ -0,0 +1,191 @@
+package com.viduus.util.models.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import com.viduus.util.models.util.LoaderFunctions;
+
+/**
+ * Builds the model objects of library elements for a {@link DaeParser}. Objects are either
+ * built right away or, when loading in parallel, as tasks on the common {@link ForkJoinPool}
+ * that are collected by {@link #join()}.
+ * <br><br>
+ * A DOM tree may not be read by several threads at once, so every element that is handed to
+ * another thread is first copied into a document of its own. Results are put into their maps
+ * in the order the elements were given, which keeps the maps identical to a sequential load.
+ *
+ * @author Ethan Toney
+ */
+class ElementLoader {
+
+	/**
+	 * Builds a model object from a library element.
+	 */
+	interface Builder<T> {
+		T build( Node element ) throws DaeParseException;
+	}
+
+	private final boolean parallel;
+	private final LoadMonitor monitor;
+	private final List<PendingElement<?>> pending = new ArrayList<>();
+	private final ParserContext context;
+	private DocumentBuilder document_builder;
+
+	/**
+	 * @param parallel - (boolean) True if elements should be built on other threads.
+	 * @param monitor - (LoadMonitor) Monitor of the load, checked before each element and
+	 * registered on the threads building them.
+	 * @param context - (ParserContext) Parsers of the load used to copy streamed elements,
+	 * <b>null</b> to create a DocumentBuilder when one is needed.
+	 */
+	ElementLoader( boolean parallel, LoadMonitor monitor, ParserContext context ){
+		this.parallel = parallel;
+		this.monitor = monitor;
+		this.context = context;
+	}
+
+	/**
+	 * @return True if elements are built on other threads.
+	 */
+	boolean isParallel(){
+		return parallel;
+	}
+
+	/**
+	 * Builds the object for an element and puts it into <i>result</i> under <i>key</i>. When
+	 * loading in parallel the object is only put into the map by {@link #join()}.
+	 *
+	 * @param result - (HashMap) Map the object belongs in.
+	 * @param key - (String) Key of the object.
+	 * @param element - (Node) The element to build the object from.
+	 * @param builder - (Builder) Constructor of the object.
+	 * @throws DaeParseException
+	 */
+	<T> void load( HashMap<String, T> result, String key, Node element, Builder<T> builder ) throws DaeParseException {
+		monitor.checkCancelled();
+		if( !parallel ){
+			result.put(key, builder.build(element));
+			monitor.elementParsed();
+			return;
+		}
+
+		Document document = newDocument();
+		Node copy = document.importNode(element, true);
+		document.appendChild(copy);
+		submit(result, key, copy, builder);
+	}
+
+	/**
+	 * Reads the element a stream is positioned on into a document of its own and builds its
+	 * object on another thread. Only used when loading in parallel. The reader is left on the
+	 * element's end tag.
+	 *
+	 * @param result - (HashMap) Map the object belongs in.
+	 * @param key - (String) Key of the object.
+	 * @param reader - (XMLStreamReader) Stream positioned on the element's start tag.
+	 * @param builder - (Builder) Constructor of the object.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	<T> void load( HashMap<String, T> result, String key, XMLStreamReader reader, Builder<T> builder ) throws DaeParseException, XMLStreamException {
+		monitor.checkCancelled();
+		Node copy = LoaderFunctions.readElement(reader, newDocument());
+		submit(result, key, copy, builder);
+	}
+
+	/**
+	 * Waits for every element that is being built on another thread and puts the results
+	 * into their maps.
+	 *
+	 * @throws DaeParseException Thrown if any element failed to load.
+	 */
+	void join() throws DaeParseException {
+		try{
+			for( PendingElement<?> element : pending )
+				element.collect();
+
+		}catch( InterruptedException e ){
+			Thread.currentThread().interrupt();
+			throw new DaeParseException("Interrupted while loading model elements.", e);
+
+		}catch( ExecutionException e ){
+			Throwable cause = e.getCause();
+			if( cause instanceof DaeParseException )
+				throw (DaeParseException) cause;
+			if( cause instanceof RuntimeException )
+				throw (RuntimeException) cause;
+			if( cause instanceof Error )
+				throw (Error) cause;
+			throw new DaeParseException("Could not load model element.", cause);
+
+		}finally{
+			for( PendingElement<?> element : pending )
+				element.future.cancel(false);
+			pending.clear();
+		}
+	}
+
+	private <T> void submit( HashMap<String, T> result, String key, Node element, Builder<T> builder ){
+		Future<T> future = ForkJoinPool.commonPool().submit( () -> {
+			LoadMonitor previous = LoadMonitor.enter(monitor);
+			try{
+				// Elements that were cancelled while queued are not started
+				monitor.checkCancelled();
+				T object = builder.build(element);
+				monitor.elementParsed();
+				return object;
+			}finally{
+				LoadMonitor.exit(previous);
+			}
+		});
+		pending.add( new PendingElement<>(result, key, future) );
+	}
+
+	private Document newDocument() throws DaeParseException {
+		if( context != null )
+			return context.newDocument();
+		if( document_builder == null ){
+			try{
+				document_builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			}catch( ParserConfigurationException e ){
+				throw new DaeParseException("Could not create documents for parallel loading.", e);
+			}
+		}
+		return document_builder.newDocument();
+	}
+
+	/**
+	 * An element whose object is being built on another thread.
+	 */
+	private static class PendingElement<T> {
+
+		private final HashMap<String, T> result;
+		private final String key;
+		private final Future<T> future;
+
+		PendingElement( HashMap<String, T> result, String key, Future<T> future ){
+			this.result = result;
+			this.key = key;
+			this.future = future;
+		}
+
+		void collect() throws InterruptedException, ExecutionException {
+			result.put(key, future.get());
+		}
+
+	}
+
+}
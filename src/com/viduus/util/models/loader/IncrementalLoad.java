@@ -0,0 +1,304 @@
+package com.viduus.util.models.loader;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.ModelData;
+
+/**
+ * A model that is loaded a little at a time on the thread that calls {@link #step(long)},
+ * so a game loop can spend a fixed amount of each frame on loading instead of stalling
+ * until a large model is done.
+ * <br><br>
+ * Geometries are read and the GPU buffers of meshes are generated a part at a time: the
+ * numbers of a tag are parsed a chunk at a time and the faces of a mesh are welded and
+ * split into triangles a few thousand at a time, with the budget checked in between. A
+ * call to {@link #step(long)} always does at least one such part, so it can go past its
+ * budget by about one part. The other work is still done in a single piece each and can
+ * take longer than the budget on large models: each controller, animation, effect and
+ * material, geometries read on other threads by {@link LoadOptions#parallel_parse},
+ * linking the effects and bones, generating the joints of a controller, packing the
+ * indexes of a polylist once its faces are read and splitting a mesh into batches.
+ * <br><br>
+ * The load is registered with the {@link ModelRegistry} of its loader on the first step,
+ * so other loads of the same model wait for it. If the model is already loading elsewhere
+ * the steps wait for that load instead, returning false until it is done, see
+ * {@link #getAwaitedLoad()}. Cached and
+ * lazily loaded models are read whole on the first step.
+ *
+ * @author Ethan Toney
+ */
+public class IncrementalLoad {
+
+	private final DaeLoader loader;
+	private final String identifier;
+	private final LoadMonitor monitor;
+	// Registered with the registry of the loader on the first step, null before
+	private CompletableFuture<ModelData> load;
+	// Load of the same model that was already running, waited on instead of loading it again
+	private CompletableFuture<ModelData> other_load;
+	private long cache_key;
+	private InputStream in;
+	private XMLStreamReader reader;
+	// Owned by this load from its first step until it is done
+	private ParserContext context;
+	private DaeParser parser;
+	private ModelData model;
+	private boolean done;
+	private final OutputHandler out = new OutputHandler();
+
+	/**
+	 * Creates a load of a model file that has not been read yet.
+	 */
+	IncrementalLoad( DaeLoader loader, String identifier, LoadMonitor monitor ){
+		this.loader = loader;
+		this.identifier = identifier;
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Creates a load that is already done.
+	 */
+	IncrementalLoad( String identifier, ModelData model, LoadMonitor monitor ){
+		this.loader = null;
+		this.identifier = identifier;
+		this.model = model;
+		this.monitor = monitor;
+		this.done = true;
+		monitor.setStage(LoadStage.DONE);
+	}
+
+	/**
+	 * Advances the load until it is done or until the given time has passed.
+	 *
+	 * @param nanos_budget - (long) Number of nanoseconds this call may spend loading.
+	 * @return True once the load is done.
+	 * @throws IOException Thrown if the file could not be read or is not a valid Collada
+	 * file, or a LoadCancelledException if the monitor of the load was cancelled or its
+	 * deadline passed. The load is closed then.
+	 */
+	public boolean step( long nanos_budget ) throws IOException {
+		if( done )
+			return true;
+		long deadline = System.nanoTime() + nanos_budget;
+
+		try{
+			if( load == null ){
+				monitor.checkCancelled();
+				if( !begin() || done )
+					return done;
+			}
+			if( reader == null ){
+				InputStream file_in = new BufferedInputStream(new FileInputStream(identifier));
+				monitor.setTotalBytes( Files.size(Paths.get(identifier)) );
+				in = monitor.monitorStream(file_in);
+				context = loader.getParserPool().acquire();
+				reader = loader.openStream(identifier, in, context);
+				if( reader == null ){
+					finish(null);
+					return true;
+				}
+				parser = loader.newParser(identifier, reader, monitor, context);
+			}
+
+			do{
+				if( !parser.step(reader, deadline) ){
+					ModelData new_model = parser.getModelData();
+					loader.writeCachedModel(identifier, Paths.get(identifier), new_model, cache_key);
+					finish(new_model);
+					out.endTimedPrintln("Finihsed loading model "+identifier+" into memory");
+					return true;
+				}
+			}while( System.nanoTime() - deadline < 0 );
+			return false;
+
+		}catch( XMLStreamException e ){
+			try{
+				// Reading a cancelled load's file fails inside the xml parser
+				monitor.checkCancelled();
+			}catch( LoadCancelledException cancelled ){
+				fail(cancelled);
+				throw cancelled;
+			}
+			DaeParseException error = new DaeParseException("Could not read model "+identifier, e);
+			fail(error);
+			throw error;
+		}catch( IOException | RuntimeException | Error e ){
+			fail(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Registers this load with the registry of the loader, or waits for the load of the
+	 * same model that is already running. Once registered, a model that is loaded lazily or
+	 * is cached is read at once.
+	 *
+	 * @return False while another load of the model is running.
+	 */
+	private boolean begin() throws IOException {
+		if( other_load != null ){
+			if( !other_load.isDone() )
+				return false;
+			try{
+				model = other_load.join();
+				done = true;
+				monitor.setStage(LoadStage.DONE);
+				return true;
+			}catch( CancellationException e ){
+				// The other load was cancelled, load it here instead
+			}catch( CompletionException e ){
+				Throwable cause = e.getCause();
+				// The other load was stopped by its own monitor, load it here instead
+				if( !(cause instanceof LoadCancelledException) ){
+					done = true;
+					if( cause instanceof IOException )
+						throw (IOException) cause;
+					throw new DaeParseException("Could not load model "+identifier, cause);
+				}
+			}
+			other_load = null;
+		}
+
+		CompletableFuture<ModelData> new_load = new CompletableFuture<>();
+		other_load = loader.getModelRegistry().beginLoad(identifier, new_load);
+		if( other_load != null )
+			return begin();
+		load = new_load;
+
+		out.startTimedPrintln("Loading model "+identifier+" into memory...");
+		Path file = Paths.get(identifier);
+		// Taken now so the cache matches the options the load started with
+		cache_key = loader.getOptions().getCacheKey();
+		if( loader.getOptions().lazy_load ){
+			finish( loader.readLazyModel(identifier, file, monitor) );
+		}else{
+			ModelData cached_model = loader.readCachedModel(identifier, file, cache_key);
+			if( cached_model != null ){
+				monitor.setStage(LoadStage.DONE);
+				finish(cached_model);
+			}
+		}
+		if( done && model != null )
+			out.endTimedPrintln("Finihsed loading model "+identifier+" into memory");
+		return true;
+	}
+
+	/**
+	 * @return True once the load is done, whether a model was loaded or not.
+	 */
+	public boolean isDone(){
+		return done;
+	}
+
+	/**
+	 * @return Completes once the load of the same model that is running elsewhere is done,
+	 * <b>null</b> if this load is not waiting for one. Steps return false at once until
+	 * then, so callers with other work should wait for it instead of stepping.
+	 */
+	public CompletableFuture<ModelData> getAwaitedLoad(){
+		CompletableFuture<ModelData> awaited = other_load;
+		if( done || awaited == null || awaited.isDone() )
+			return null;
+		// A copy so callers can not complete the load of the other thread
+		return awaited.copy();
+	}
+
+	/**
+	 * @return True while the load holds its file open along with a parser, from the first
+	 * step that reads the file until the load is done.
+	 */
+	public boolean isOpen(){
+		return reader != null;
+	}
+
+	/**
+	 * @return The loaded model, <b>null</b> while the load is not done or if the file is
+	 * not a supported Collada file.
+	 */
+	public ModelData getModel(){
+		return model;
+	}
+
+	/**
+	 * @return The monitor following the progress of this load.
+	 */
+	public LoadMonitor getMonitor(){
+		return monitor;
+	}
+
+	/**
+	 * @return Name the model is tracked under.
+	 */
+	public String getIdentifier(){
+		return identifier;
+	}
+
+	/**
+	 * Stops the load and releases the file. Does nothing once the load is done.
+	 *
+	 * @throws IOException Thrown if the file could not be closed.
+	 */
+	public void close() throws IOException {
+		if( done )
+			return;
+		fail( new CancellationException("Load of model "+identifier+" was closed") );
+	}
+
+	/**
+	 * Ends the load with the given model and hands it to everyone waiting for the model.
+	 */
+	private void finish( ModelData new_model ) throws IOException {
+		model = new_model;
+		try{
+			release();
+		}finally{
+			loader.getModelRegistry().finishLoad(identifier, load, new_model);
+		}
+	}
+
+	/**
+	 * Ends the load with an error, which is passed on to everyone waiting for the model.
+	 */
+	private void fail( Throwable error ) throws IOException {
+		if( done )
+			return;
+		try{
+			release();
+		}finally{
+			if( load != null )
+				loader.getModelRegistry().failLoad(identifier, load, error);
+		}
+	}
+
+	private void release() throws IOException {
+		done = true;
+		parser = null;
+		try{
+			if( reader != null )
+				reader.close();
+		}catch( XMLStreamException e ){
+			// The stream itself is closed below
+		}finally{
+			reader = null;
+			if( context != null )
+				loader.getParserPool().release(context);
+			context = null;
+			if( in != null )
+				in.close();
+		}
+	}
+
+}
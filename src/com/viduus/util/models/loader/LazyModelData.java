@@ -0,0 +1,340 @@
+package com.viduus.util.models.loader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.Bone;
+import com.viduus.util.models.ModelData;
+import com.viduus.util.models.animations.Animation;
+import com.viduus.util.models.cache.ModelCacheWriter;
+import com.viduus.util.models.controller.Controller;
+import com.viduus.util.models.effects.Effect;
+import com.viduus.util.models.geometries.Mesh;
+import com.viduus.util.models.materials.Material;
+import com.viduus.util.models.util.ByteBufferInputStream;
+import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.visual_scene.BindMaterial;
+import com.viduus.util.models.visual_scene.Instance;
+import com.viduus.util.models.visual_scene.InstanceController;
+import com.viduus.util.models.visual_scene.InstanceGeometry;
+import com.viduus.util.models.visual_scene.SceneNode;
+
+/**
+ * A model whose meshes and animations are only parsed once they are first requested with
+ * {@link #getMesh(String)} or {@link #getAnimation(String)}. Opening the model only finds
+ * the byte ranges of the geometries, controllers, animations, materials, effects and scene
+ * nodes of its memory mapped file, and parses the armatures to create the bones. Large files
+ * holding many assets then open quickly and only take up memory for the assets that are used.
+ * <br><br>
+ * A requested mesh is instantiated the same way a {@link DaeParser} instantiates it: the
+ * scene node referencing its geometry or its controller is parsed, along with the
+ * controller and the materials it binds, and the GPU buffers are generated.
+ * <br><br>
+ * The {@link #mesh} and {@link #animations} maps only hold what was requested so far, and
+ * may not be read while other threads request parts of the model. The file must not change
+ * while the model is in use. A {@link ModelRegistry} holding the model weighs it again every
+ * time a part is parsed, so the parts requested so far count against its byte budget.
+ * Lazily loaded models are never written to a model cache.
+ *
+ * @author Ethan Toney
+ */
+public class LazyModelData extends ModelData {
+
+	private final ByteBuffer buffer;
+	private final DaeIndex index;
+	private final LoadOptions options;
+	private final ParserPool parser_pool;
+	// Scene nodes in the order DaeParser instantiates them, which is the order of its HashMap
+	private final HashMap<String, DaeIndex.Element> scene_order = new HashMap<>();
+	// Parsed parts shared by several meshes
+	private final HashMap<String, SceneNode> scene_nodes = new HashMap<>();
+	private final HashMap<String, Controller> controllers = new HashMap<>();
+	private final HashMap<String, Material> materials = new HashMap<>();
+	// Registry the model was last added to, weighing it again as parts are parsed
+	private ModelRegistry registry = null;
+	private String registry_identifier = null;
+
+	/**
+	 * Creates a model around an indexed Collada file, parsing only its armatures.
+	 * @param model_name - (String) The identifier for this model.
+	 * @param buffer - (ByteBuffer) Bytes of the Collada file, kept until the model is
+	 * collected.
+	 * @param index - (DaeIndex) Index of the file.
+	 * @param options - (LoadOptions) Which parts of the model are loaded.
+	 * @param parser_pool - (ParserPool) Provides the parsers each part is read with.
+	 * @throws DaeParseException Thrown if an armature could not be parsed.
+	 */
+	LazyModelData( String model_name, ByteBuffer buffer, DaeIndex index, LoadOptions options, ParserPool parser_pool ) throws DaeParseException {
+		super( model_name, index.version, new HashMap<>(), new HashMap<>(), new HashMap<>() );
+		this.buffer = buffer;
+		this.index = index;
+		this.options = options;
+		this.parser_pool = parser_pool;
+
+		if( options.load_visual_scenes ){
+			for( DaeIndex.Element node : index.nodes.values() )
+				scene_order.put(node.id, node);
+			LinkedHashMap<String, SceneNode> armatures = new LinkedHashMap<>();
+			for( DaeIndex.Element node : index.nodes.values() ){
+				if( node.has_sub_nodes )
+					armatures.put(node.id, getSceneNode(node));
+			}
+			HashMap<String, Bone> model_bones = DaeParser.createBones(armatures.values());
+			if( model_bones != null )
+				bones.putAll(model_bones);
+		}
+	}
+
+	@Override
+	public Mesh getMesh( String geometry_id ) throws DaeParseException {
+		Mesh loaded_mesh;
+		synchronized( this ){
+			loaded_mesh = mesh.get(geometry_id);
+			if( loaded_mesh != null || !options.load_geometries )
+				return loaded_mesh;
+			loaded_mesh = loadMesh(geometry_id);
+		}
+		if( loaded_mesh != null )
+			reweigh();
+		return loaded_mesh;
+	}
+
+	/**
+	 * Parses and instantiates a mesh that was not requested yet. Called while holding the
+	 * lock of this model.
+	 */
+	private Mesh loadMesh( String geometry_id ) throws DaeParseException {
+		DaeIndex.Element geometry = index.geometries.get(geometry_id);
+		if( geometry == null )
+			return null;
+
+		Mesh new_mesh = parse(geometry, (reader) -> {
+			Mesh result = null;
+			while( LoaderFunctions.nextChildElement(reader) ){
+				if( reader.getLocalName().equals("mesh") )
+					result = new Mesh(geometry.id, geometry.name, reader, options);
+				else
+					LoaderFunctions.skipElement(reader);
+			}
+			return result;
+		});
+		if( new_mesh == null )
+			return null;
+
+		instantiate(new_mesh);
+		mesh.put(geometry_id, new_mesh);
+		return new_mesh;
+	}
+
+	@Override
+	public Set<String> getMeshIds() {
+		if( !options.load_geometries )
+			return Collections.emptySet();
+		return Collections.unmodifiableSet(index.geometries.keySet());
+	}
+
+	@Override
+	public Animation getAnimation( String animation_id ) throws DaeParseException {
+		Animation animation;
+		synchronized( this ){
+			animation = animations.get(animation_id);
+			if( animation != null || !options.load_animations )
+				return animation;
+			DaeIndex.Element element = index.animations.get(animation_id);
+			if( element == null )
+				return null;
+
+			animation = parse(element, Animation::new);
+			animations.put(animation_id, animation);
+		}
+		reweigh();
+		return animation;
+	}
+
+	@Override
+	public Set<String> getAnimationIds() {
+		if( !options.load_animations )
+			return Collections.emptySet();
+		return Collections.unmodifiableSet(index.animations.keySet());
+	}
+
+	/**
+	 * @return The number of bytes taken up by the meshes and animations requested so far.
+	 */
+	@Override
+	public synchronized long getByteSize() {
+		return super.getByteSize();
+	}
+
+	/**
+	 * Has the given registry weigh this model again every time a part is parsed, in place
+	 * of the registry it was added to before.
+	 * @param registry - (ModelRegistry) Registry the model was added to.
+	 * @param identifier - (String) Name the model is tracked under in the registry.
+	 */
+	synchronized void setRegistry( ModelRegistry registry, String identifier ){
+		this.registry = registry;
+		this.registry_identifier = identifier;
+	}
+
+	/**
+	 * Has the registry holding this model weigh it again after a part was parsed. Called
+	 * without holding the lock of this model, since the registry weighs its models while
+	 * holding its own lock.
+	 */
+	private void reweigh(){
+		ModelRegistry weighing_registry;
+		String identifier;
+		synchronized( this ){
+			weighing_registry = registry;
+			identifier = registry_identifier;
+		}
+		if( weighing_registry != null )
+			weighing_registry.reweigh(identifier, this);
+	}
+
+	/**
+	 * Lazily loaded models are never cached.
+	 * @throws IOException Always.
+	 */
+	@Override
+	public void write( ModelCacheWriter writer ) throws IOException {
+		throw new DaeParseException("Lazily loaded model "+getName()+" can not be written to a model cache.");
+	}
+
+	/**
+	 * Generates the GPU buffers of a mesh the way the visual scene instantiates it and
+	 * attaches its materials. Like {@link DaeParser}, the materials of every instance of the
+	 * mesh are attached and the buffers of the last instance are kept.
+	 */
+	private void instantiate( Mesh new_mesh ) throws DaeParseException {
+		Controller last_controller = null;
+		boolean instantiated = false;
+		for( DaeIndex.Element node : scene_order.values() ){
+			for( String reference : node.references ){
+				// Instantiated as a geometry
+				if( reference.equals(new_mesh.id) ){
+					Instance instance = findInstance(node, reference);
+					if( instance instanceof InstanceGeometry ){
+						last_controller = null;
+						attachMaterials(new_mesh, ((InstanceGeometry) instance).bind_material);
+						instantiated = true;
+					}
+				}
+
+				// Instantiated through a controller skinning it
+				DaeIndex.Element controller_element = index.controllers.get(reference);
+				if( options.load_controllers && controller_element != null && controller_element.references.contains(new_mesh.id) ){
+					Instance instance = findInstance(node, reference);
+					if( instance instanceof InstanceController ){
+						last_controller = getController(controller_element);
+						attachMaterials(new_mesh, ((InstanceController) instance).bind_material);
+						instantiated = true;
+					}
+				}
+			}
+		}
+
+		if( last_controller != null ){
+			last_controller.generateJointBuffer();
+			new_mesh.setJointBuffer(last_controller.max_joints_per_vert, last_controller.joint_buffers);
+		}else if( instantiated || !options.load_visual_scenes || !options.load_controllers ){
+			// Meshes are instantiated without joints when the scene or controllers are skipped
+			new_mesh.setJointBuffer();
+		}
+	}
+
+	/**
+	 * @return The instance of a scene node that references the given id.
+	 */
+	private Instance findInstance( DaeIndex.Element node, String reference ) throws DaeParseException {
+		for( Instance instance : getSceneNode(node).instances ){
+			if( reference.equals(instance.reference_url) )
+				return instance;
+		}
+		return null;
+	}
+
+	private void attachMaterials( Mesh new_mesh, BindMaterial bind_material ) throws DaeParseException {
+		if( !options.load_materials || bind_material == null )
+			return;
+		for( String symbol : bind_material.instance_materials.keySet() ){
+			String target = bind_material.instance_materials.get(symbol);
+			new_mesh.addMaterial(symbol, getMaterial(target));
+		}
+	}
+
+	private SceneNode getSceneNode( DaeIndex.Element node ) throws DaeParseException {
+		SceneNode scene_node = scene_nodes.get(node.id);
+		if( scene_node == null ){
+			scene_node = parse(node, SceneNode::new);
+			scene_nodes.put(node.id, scene_node);
+		}
+		return scene_node;
+	}
+
+	private Controller getController( DaeIndex.Element element ) throws DaeParseException {
+		Controller controller = controllers.get(element.id);
+		if( controller == null ){
+			controller = parse(element, Controller::new);
+			controllers.put(element.id, controller);
+		}
+		return controller;
+	}
+
+	/**
+	 * @return The material with its effect, <b>null</b> if the file has no such material.
+	 */
+	private Material getMaterial( String material_id ) throws DaeParseException {
+		Material material = materials.get(material_id);
+		DaeIndex.Element element = index.materials.get(material_id);
+		if( material == null && element != null ){
+			material = parse(element, Material::new);
+			DaeIndex.Element effect = index.effects.get(material.effect_url);
+			if( effect != null )
+				material.setEffect( parse(effect, Effect::new) );
+			materials.put(material_id, material);
+		}
+		return material;
+	}
+
+	/**
+	 * Builds a model object from an element of the file.
+	 */
+	private interface ElementParser<T> {
+		T parse( XMLStreamReader reader ) throws DaeParseException, XMLStreamException;
+	}
+
+	/**
+	 * Parses a single element of the file from its bytes.
+	 * @param element - (Element) Byte range of the element.
+	 * @param parser - (ElementParser) Builds the object from a reader positioned on the
+	 * element's start tag.
+	 */
+	private <T> T parse( DaeIndex.Element element, ElementParser<T> parser ) throws DaeParseException {
+		ByteBuffer bytes = buffer.duplicate();
+		bytes.limit(element.end).position(element.start);
+		ParserContext context = parser_pool.acquire();
+		try{
+			XMLStreamReader reader = context.createXMLStreamReader(new ByteBufferInputStream(bytes));
+			try{
+				reader.nextTag();
+				return parser.parse(reader);
+			}finally{
+				reader.close();
+			}
+		}catch( XMLStreamException e ){
+			throw new DaeParseException("Could not read "+element.id+" of model "+getName(), e);
+		}finally{
+			parser_pool.release(context);
+		}
+	}
+
+}
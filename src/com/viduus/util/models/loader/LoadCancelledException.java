@@ -0,0 +1,23 @@
+package com.viduus.util.models.loader;
+
+/**
+ * This exception is thrown when a load was cancelled through its {@link LoadMonitor} or
+ * ran past the monitor's deadline.
+ *
+ * @author Ethan Toney
+ */
+public class LoadCancelledException extends DaeParseException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4108563225917420538L;
+
+	/**
+	 * @param message - (String) Message for error.
+	 */
+	public LoadCancelledException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,260 @@
+package com.viduus.util.models.loader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.viduus.util.models.geometries.Mesh;
+
+/**
+ * Follows the progress of a single model load and lets it be stopped. Listeners are told
+ * how many bytes of the file were read, how many library elements were parsed and which
+ * {@link LoadStage} the load is in.
+ * <br><br>
+ * A load is stopped by {@link #cancel()} or once its deadline has passed. Cancellation is
+ * cooperative: the load checks its monitor between elements and every few thousand
+ * iterations of the loops that build the buffers of a model, and ends with a
+ * {@link LoadCancelledException} at the next check. Threads doing a load register its
+ * monitor so model classes can check it with {@link #checkCurrent()} without being handed
+ * the monitor.
+ * <br><br>
+ * A monitor belongs to one load and can not be reused.
+ *
+ * @author Ethan Toney
+ */
+public class LoadMonitor {
+
+	// Loop iterations between two checks in checkCurrent(int), must be a power of two
+	private static final int CHECK_INTERVAL = 4096;
+	// Monitor of the load the current thread is working on
+	private static final ThreadLocal<LoadMonitor> current = new ThreadLocal<>();
+
+	private final CopyOnWriteArrayList<LoadProgressListener> listeners = new CopyOnWriteArrayList<>();
+	private final AtomicLong bytes_read = new AtomicLong();
+	private final AtomicInteger elements_parsed = new AtomicInteger();
+	private volatile long total_bytes = -1;
+	private volatile LoadStage stage = LoadStage.OPENING;
+	private volatile boolean cancelled = false;
+	// System.nanoTime() the load must be done by, only used if has_deadline is set
+	private volatile long deadline;
+	private volatile boolean has_deadline = false;
+
+	/**
+	 * Creates a monitor without a deadline.
+	 */
+	public LoadMonitor(){
+	}
+
+	/**
+	 * Creates a monitor whose load is stopped once the given time has passed.
+	 * @param timeout - (long) Time the load may take.
+	 * @param unit - (TimeUnit) Unit of the timeout.
+	 */
+	public LoadMonitor( long timeout, TimeUnit unit ){
+		setTimeout(timeout, unit);
+	}
+
+	/**
+	 * Stops the load at its next check.
+	 */
+	public void cancel(){
+		cancelled = true;
+	}
+
+	/**
+	 * @return <b>true</b> if the load was cancelled, not counting a passed deadline.
+	 */
+	public boolean isCancelled(){
+		return cancelled;
+	}
+
+	/**
+	 * Sets a deadline so that the load is stopped once the given time has passed, counted
+	 * from now.
+	 * @param timeout - (long) Time the load may take.
+	 * @param unit - (TimeUnit) Unit of the timeout.
+	 */
+	public void setTimeout( long timeout, TimeUnit unit ){
+		deadline = System.nanoTime() + unit.toNanos(timeout);
+		has_deadline = true;
+	}
+
+	/**
+	 * @return <b>true</b> if the load has a deadline and it has passed.
+	 */
+	public boolean isPastDeadline(){
+		return has_deadline && System.nanoTime() - deadline > 0;
+	}
+
+	/**
+	 * @throws LoadCancelledException Thrown if the load was cancelled or its deadline
+	 * has passed.
+	 */
+	public void checkCancelled() throws LoadCancelledException {
+		if( cancelled )
+			throw new LoadCancelledException("Model load was cancelled");
+		if( isPastDeadline() )
+			throw new LoadCancelledException("Model load ran past its deadline");
+	}
+
+	/**
+	 * Checks the monitor of the load the current thread is working on. Does nothing if the
+	 * thread is not loading a model.
+	 * @throws LoadCancelledException Thrown if the load was cancelled or its deadline
+	 * has passed.
+	 */
+	public static void checkCurrent() throws LoadCancelledException {
+		LoadMonitor monitor = current.get();
+		if( monitor != null )
+			monitor.checkCancelled();
+	}
+
+	/**
+	 * Checks the monitor of the current thread's load on every 4096th iteration of a loop,
+	 * so it can be called from tight loops.
+	 * @param iteration - (int) Number of the loop iteration.
+	 * @throws LoadCancelledException Thrown if the load was cancelled or its deadline
+	 * has passed.
+	 */
+	public static void checkCurrent( int iteration ) throws LoadCancelledException {
+		if( (iteration & (CHECK_INTERVAL - 1)) == 0 )
+			checkCurrent();
+	}
+
+	/**
+	 * @return The stage the load is in.
+	 */
+	public LoadStage getStage(){
+		return stage;
+	}
+
+	/**
+	 * @return The number of bytes of the Collada file that were read so far.
+	 */
+	public long getBytesRead(){
+		return bytes_read.get();
+	}
+
+	/**
+	 * @return The size of the Collada file, <b>-1</b> if it is not known.
+	 */
+	public long getTotalBytes(){
+		return total_bytes;
+	}
+
+	/**
+	 * @return The number of library elements, such as geometries or controllers, that
+	 * were parsed so far.
+	 */
+	public int getElementsParsed(){
+		return elements_parsed.get();
+	}
+
+	public void addProgressListener( LoadProgressListener listener ){
+		listeners.add(listener);
+	}
+
+	public void removeProgressListener( LoadProgressListener listener ){
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return The monitor of the load the current thread is working on, <b>null</b> if the
+	 * thread is not loading a model.
+	 */
+	public static LoadMonitor getCurrent(){
+		return current.get();
+	}
+
+	/**
+	 * Registers a monitor as the one of the current thread's load. Tasks doing part of a
+	 * load on other threads enter the monitor of the thread that started them.
+	 * @param monitor - (LoadMonitor) Monitor of the load, <b>null</b> for none.
+	 * @return The monitor that was registered before, to be passed to
+	 * {@link #exit(LoadMonitor)}.
+	 */
+	public static LoadMonitor enter( LoadMonitor monitor ){
+		LoadMonitor previous = current.get();
+		current.set(monitor);
+		return previous;
+	}
+
+	/**
+	 * Restores the monitor that was registered before {@link #enter(LoadMonitor)}.
+	 */
+	public static void exit( LoadMonitor previous ){
+		if( previous == null )
+			current.remove();
+		else
+			current.set(previous);
+	}
+
+	void setStage( LoadStage stage ){
+		if( this.stage == stage )
+			return;
+		this.stage = stage;
+		notifyListeners();
+	}
+
+	void setTotalBytes( long total_bytes ){
+		this.total_bytes = total_bytes;
+	}
+
+	void elementParsed(){
+		elements_parsed.incrementAndGet();
+		notifyListeners();
+	}
+
+	void meshLoaded( Mesh mesh ){
+		for( LoadProgressListener listener : listeners )
+			listener.meshLoaded(this, mesh);
+	}
+
+	/**
+	 * Wraps the stream a Collada file is read from so the bytes read are counted, and so
+	 * that a cancelled load stops reading.
+	 */
+	InputStream monitorStream( InputStream in ){
+		return new FilterInputStream(in){
+			@Override
+			public int read() throws IOException {
+				checkCancelled();
+				int value = super.read();
+				if( value >= 0 )
+					addBytesRead(1);
+				return value;
+			}
+
+			@Override
+			public int read( byte[] buffer, int offset, int length ) throws IOException {
+				checkCancelled();
+				int count = super.read(buffer, offset, length);
+				if( count > 0 )
+					addBytesRead(count);
+				return count;
+			}
+
+			@Override
+			public long skip( long count ) throws IOException {
+				long skipped = super.skip(count);
+				addBytesRead(skipped);
+				return skipped;
+			}
+		};
+	}
+
+	private void addBytesRead( long count ){
+		bytes_read.addAndGet(count);
+		notifyListeners();
+	}
+
+	private void notifyListeners(){
+		for( LoadProgressListener listener : listeners )
+			listener.loadProgressed(this);
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.viduus.util.models.loader;
+
+/**
+ * Settings that control how a {@link DaeLoader} reads Collada files.
+ * 
+ * @author Ethan Toney
+ */
+public class LoadOptions {
+
+	/**
+	 * When true the file is read as a StAX event stream and the model objects are built
+	 * directly from the events. Otherwise the whole file is first parsed into a DOM tree.
+	 * Streaming keeps peak memory proportional to the loaded model instead of the size of
+	 * the xml document.
+	 */
+	public boolean stream_parse = false;
+	
+	/**
+	 * When true the geometries, controllers, animations, effects, materials and scene nodes
+	 * of every library are built concurrently on the common ForkJoinPool, and are only
+	 * linked together once all of them are done. When streaming, geometries, controllers
+	 * and animations are read from the stream into small DOM trees of their own which are
+	 * then built on other threads, trading some memory for parallelism.
+	 */
+	public boolean parallel_parse = false;
+	
+	/**
+	 * When true the processed model is written to a binary cache file, and later loads of
+	 * an unchanged file read the cache instead of parsing xml. Only models loaded from a
+	 * file path are cached.
+	 * @see com.viduus.util.models.cache.ModelCache
+	 */
+	public boolean cache_models = false;
+	
+	/**
+	 * Directory the caches of models are kept in. Caches in a directory are named after the
+	 * contents of their Collada file, so processes and build agents that share the
+	 * directory share their caches. When <b>null</b> each cache is kept next to its Collada
+	 * file.
+	 */
+	public String cache_directory = null;
+	
+	/**
+	 * When true models loaded from a file are only indexed, and their meshes and animations
+	 * are parsed once they are first requested from the model. The file is memory mapped
+	 * and must be UTF-8. Lazily loaded models are never cached.
+	 * @see LazyModelData
+	 */
+	public boolean lazy_load = false;
+	
+	/**
+	 * When false the 'library_geometries' section is skipped and the model has no meshes.
+	 */
+	public boolean load_geometries = true;
+	
+	/**
+	 * When false the 'library_effects' and 'library_materials' sections are skipped and no
+	 * materials are attached to the meshes.
+	 */
+	public boolean load_materials = true;
+	
+	/**
+	 * When false the 'library_animations' section is skipped and the model has no
+	 * animations.
+	 */
+	public boolean load_animations = true;
+	
+	/**
+	 * When false the 'library_controllers' section is skipped. Skinned meshes are then
+	 * loaded without their joint weights.
+	 */
+	public boolean load_controllers = true;
+	
+	/**
+	 * When false the 'library_visual_scenes' section is skipped and the model has no bones.
+	 * Every mesh is then loaded as if it was instantiated once by the scene.
+	 */
+	public boolean load_visual_scenes = true;
+	
+	/**
+	 * When false the NORMAL inputs of polylists are dropped, along with the sources only
+	 * they use, and the GPU buffers are built without normals.
+	 */
+	public boolean load_normals = true;
+	
+	/**
+	 * When false the TEXCOORD inputs of polylists are dropped, along with the sources only
+	 * they use, and the GPU buffers are built without texture coordinates.
+	 */
+	public boolean load_texcoords = true;
+	
+	/**
+	 * When above 0, polylists with more unique vertices are split into batches of at most
+	 * this many vertices, copying the vertices shared by faces of different batches. With
+	 * 65536 or less every batch is drawn with 16 bit indexes. When 0 polylists are never
+	 * split and use 32 bit indexes once they have more than 65536 vertices. Values below 0
+	 * are taken as 0, and 1 or 2 as 3 since a batch must hold at least one triangle.
+	 * @see com.viduus.util.models.geometries.PolylistBatch
+	 */
+	public int max_batch_vertices = 0;
+	
+	/**
+	 * When true the triangles of every polylist are reordered so that the GPU shades fewer
+	 * vertices when drawing them, and how many vertices are shaded per triangle and per vertex
+	 * before and after is printed and kept on each polylist. Takes time roughly linear in the
+	 * number of triangles, so it is best combined with cache_models.
+	 * @see com.viduus.util.models.geometries.VertexCacheOptimizer
+	 */
+	public boolean optimize_vertex_cache = false;
+	
+	/**
+	 * Creates options that only load the positions of the meshes, for example for collision
+	 * geometry. Each mesh's GPU buffer then holds just the positions of its faces.
+	 * @return The options.
+	 */
+	public static LoadOptions positionsOnly(){
+		LoadOptions options = new LoadOptions();
+		options.load_materials = false;
+		options.load_animations = false;
+		options.load_controllers = false;
+		options.load_visual_scenes = false;
+		options.load_normals = false;
+		options.load_texcoords = false;
+		return options;
+	}
+	
+	/**
+	 * Creates options that only load the animations and the bones they move.
+	 * @return The options.
+	 */
+	public static LoadOptions animationsOnly(){
+		LoadOptions options = new LoadOptions();
+		options.load_geometries = false;
+		options.load_materials = false;
+		options.load_controllers = false;
+		return options;
+	}
+	
+	/**
+	 * @param section_name - (String) Name of a library section of a dae file.
+	 * @return False if these options skip the section.
+	 */
+	public boolean isLibraryLoaded( String section_name ){
+		switch( section_name ){
+		case "library_geometries": return load_geometries;
+		case "library_effects":
+		case "library_materials": return load_materials;
+		case "library_animations": return load_animations;
+		case "library_controllers": return load_controllers;
+		case "library_visual_scenes": return load_visual_scenes;
+		default: return true;
+		}
+	}
+	
+	/**
+	 * @param semantic - (String) Semantic of a polylist or vertices input, such as "NORMAL".
+	 * @return False if these options drop the input.
+	 */
+	public boolean isInputLoaded( String semantic ){
+		if( semantic.equals("NORMAL") )
+			return load_normals;
+		if( semantic.equals("TEXCOORD") )
+			return load_texcoords;
+		return true;
+	}
+	
+	/**
+	 * @return The largest number of vertices of a batch, 0 if polylists are never split.
+	 * @see #max_batch_vertices
+	 */
+	public int getMaxBatchVertices(){
+		if( max_batch_vertices <= 0 )
+			return 0;
+		return Math.max(3, max_batch_vertices);
+	}
+	
+	/**
+	 * @return True if every input of the polylists is loaded.
+	 */
+	public boolean loadsAllInputs(){
+		return load_normals && load_texcoords;
+	}
+	
+	/**
+	 * Gets the key of these options used to tell apart the caches of models loaded with
+	 * different options. Options that change the loaded model must be part of the key,
+	 * options that only change how a file is read must not.
+	 * @return The key of these options.
+	 */
+	public long getCacheKey(){
+		// One bit per skipped part so the default options keep the key 0
+		long key = 0;
+		key |= load_geometries ? 0 : 1;
+		key |= load_materials ? 0 : 1 << 1;
+		key |= load_animations ? 0 : 1 << 2;
+		key |= load_controllers ? 0 : 1 << 3;
+		key |= load_visual_scenes ? 0 : 1 << 4;
+		key |= load_normals ? 0 : 1 << 5;
+		key |= load_texcoords ? 0 : 1 << 6;
+		key |= optimize_vertex_cache ? 1 << 7 : 0;
+		key |= (getMaxBatchVertices() & 0xFFFFFFFFL) << 8;
+		return key;
+	}
+	
+}
@@ -0,0 +1,31 @@
+package com.viduus.util.models.loader;
+
+import com.viduus.util.models.geometries.Mesh;
+
+/**
+ * Receives the progress of a model load from a {@link LoadMonitor}. Called from the
+ * threads doing the load, which may be several at once when loading in parallel, so
+ * implementations must be thread-safe and should return quickly.
+ *
+ * @author Ethan Toney
+ */
+public interface LoadProgressListener {
+
+	/**
+	 * Called whenever the load reads more bytes, finishes an element or enters a stage.
+	 * @param monitor - (LoadMonitor) The monitor of the load, holding its current progress.
+	 */
+	void loadProgressed( LoadMonitor monitor );
+
+	/**
+	 * Called once the GPU buffers of a mesh were generated, before the rest of the model is
+	 * done loading. The mesh does not change anymore, unless the visual scene instantiates it
+	 * again with different joints. Meshes of models read from a cache or loaded lazily are
+	 * not reported.
+	 * @param monitor - (LoadMonitor) The monitor of the load.
+	 * @param mesh - (Mesh) The finished mesh.
+	 */
+	default void meshLoaded( LoadMonitor monitor, Mesh mesh ){
+	}
+
+}
@@ -0,0 +1,319 @@
+package com.viduus.util.models.loader;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.ModelData;
+
+/**
+ * Loads queued models in order of a priority given by the caller, such as how close a
+ * model is to the camera. Priorities can be changed while models are waiting or loading.
+ * <br><br>
+ * Models are loaded as {@link IncrementalLoad}s by a fixed number of worker threads.
+ * After every step of a load the worker checks the queue, and if a model with a higher
+ * priority is waiting the current load is put back into the queue and resumed later where
+ * it left off. Files are only opened once their load first runs.
+ * <br><br>
+ * A paused load keeps its file and its parser open. At most
+ * {@link #getMaxPausedLoads()} loads are paused with their file open, past that a
+ * waiting load that is already open is resumed before a new file is opened, and a running
+ * load is only paused for one that is already open.
+ * <br><br>
+ * A model that is already being loaded elsewhere, for example by
+ * {@link DaeLoader#loadModel(String)}, is taken out of the queue until that load is done,
+ * so no worker is kept busy waiting for it.
+ *
+ * @author Ethan Toney
+ */
+public class LoadScheduler {
+
+	/**
+	 * Number of loads that may be paused with their file open, unless changed with
+	 * {@link #setMaxPausedLoads(int)}.
+	 */
+	public static final int DEFAULT_MAX_PAUSED_LOADS = 8;
+
+	private final DaeLoader loader;
+	private final PriorityQueue<ScheduledLoad> queue = new PriorityQueue<>();
+	// Every load that is queued or running, by file path
+	private final HashMap<String, ScheduledLoad> loads = new HashMap<>();
+	private final Thread[] workers;
+	private long submit_count = 0;
+	private int max_paused_loads = DEFAULT_MAX_PAUSED_LOADS;
+	private boolean shutdown = false;
+
+	/**
+	 * Creates a scheduler and starts its worker threads.
+	 * @param loader - (DaeLoader) Loads the models.
+	 * @param thread_count - (int) Number of models that are loaded at the same time.
+	 */
+	public LoadScheduler( DaeLoader loader, int thread_count ){
+		this.loader = loader;
+		this.workers = new Thread[thread_count];
+		for( int i=0 ; i<thread_count ; i++ ){
+			workers[i] = new Thread(this::work, "LoadScheduler-"+(i+1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Queues a model to be loaded. Submitting a model that is already queued or loading
+	 * only changes its priority.
+	 * @param file_path - (String) The Collada file.
+	 * @param priority - (double) Models with higher priorities are loaded first.
+	 * @return Completes with the loaded model, or with <b>null</b> if the file is not a
+	 * supported Collada file. Cancelling it stops the load, even in the middle of a step.
+	 */
+	public synchronized CompletableFuture<ModelData> submit( String file_path, double priority ){
+		ModelData loaded_model = loader.getModel(file_path);
+		if( loaded_model != null )
+			return CompletableFuture.completedFuture(loaded_model);
+
+		ScheduledLoad load = loads.get(file_path);
+		if( load != null ){
+			setPriority(file_path, priority);
+			return load.result;
+		}
+		if( shutdown )
+			return CompletableFuture.failedFuture(new IllegalStateException("LoadScheduler was shut down"));
+
+		load = new ScheduledLoad(file_path, priority, submit_count++);
+		loads.put(file_path, load);
+		queue.add(load);
+		notifyAll();
+		return load.result;
+	}
+
+	/**
+	 * Changes the priority of a model that is queued or loading. A loading model whose
+	 * priority drops below a waiting one is paused after its current step.
+	 * @param file_path - (String) The Collada file.
+	 * @param priority - (double) Models with higher priorities are loaded first.
+	 * @return True if the model was queued or loading.
+	 */
+	public synchronized boolean setPriority( String file_path, double priority ){
+		ScheduledLoad load = loads.get(file_path);
+		if( load == null )
+			return false;
+		// Priority queues do not reorder elements whose priority changed
+		boolean queued = queue.remove(load);
+		load.priority = priority;
+		if( queued )
+			queue.add(load);
+		return true;
+	}
+
+	/**
+	 * @param file_path - (String) The Collada file.
+	 * @return True if the model is queued or loading.
+	 */
+	public synchronized boolean isScheduled( String file_path ){
+		return loads.containsKey(file_path);
+	}
+
+	/**
+	 * Changes how many loads may be paused with their file and parser open. Loads that are
+	 * already paused stay open, but no more are paused until there are less of them.
+	 * @param max_paused_loads - (int) Number of open loads that may wait in the queue.
+	 */
+	public synchronized void setMaxPausedLoads( int max_paused_loads ){
+		this.max_paused_loads = Math.max(0, max_paused_loads);
+	}
+
+	/**
+	 * @return The number of loads that may be paused with their file and parser open.
+	 */
+	public synchronized int getMaxPausedLoads(){
+		return max_paused_loads;
+	}
+
+	/**
+	 * Stops the worker threads once their current step is done. Loads that did not
+	 * finish are cancelled.
+	 */
+	public synchronized void shutdown(){
+		shutdown = true;
+		for( ScheduledLoad load : loads.values() )
+			load.result.cancel(false);
+		notifyAll();
+	}
+
+	/**
+	 * Loop of a worker thread.
+	 */
+	private void work(){
+		ScheduledLoad load = null;
+		while( true ){
+			try{
+				load = next(load);
+			}catch( InterruptedException e ){
+				return;
+			}
+			if( load == null )
+				return;
+
+			try{
+				if( load.result.isCancelled() ){
+					end(load);
+					if( load.load != null )
+						load.load.close();
+					load = null;
+					continue;
+				}
+				if( load.load == null )
+					load.load = loader.loadModelIncrementally(load.file_path, load.monitor);
+				// A single step so a model with a higher priority can take over
+				if( load.load.step(0) ){
+					end(load);
+					load.result.complete(load.load.getModel());
+					load = null;
+				}else{
+					CompletableFuture<ModelData> awaited = load.load.getAwaitedLoad();
+					if( awaited != null ){
+						park(load, awaited);
+						load = null;
+					}
+				}
+			}catch( Throwable e ){
+				// Errors such as an OutOfMemoryError on a huge file only end this load, so the
+				// worker goes on with the others and the model can be submitted again
+				if( !load.result.isCancelled() )
+					OutputHandler.println("Could not load model "+load.file_path+": "+e);
+				end(load);
+				closeQuietly(load);
+				load.result.completeExceptionally(e);
+				load = null;
+			}
+		}
+	}
+
+	/**
+	 * Picks the load a worker should run next.
+	 * @param current - (ScheduledLoad) The load the worker ran last, <b>null</b> if it
+	 * finished.
+	 * @return The current load unless a load with a higher priority is waiting,
+	 * <b>null</b> if the scheduler was shut down.
+	 */
+	private synchronized ScheduledLoad next( ScheduledLoad current ) throws InterruptedException {
+		if( current != null && !shutdown ){
+			ScheduledLoad waiting = pickWaiting( isOpen(current) ? 1 : 0 );
+			if( waiting == null || current.compareTo(waiting) <= 0 )
+				return current;
+			// Pause the current load
+			queue.remove(waiting);
+			queue.add(current);
+			return waiting;
+		}
+		if( current != null )
+			queue.add(current);
+		while( queue.isEmpty() && !shutdown )
+			wait();
+		if( shutdown ){
+			for( ScheduledLoad load : queue )
+				closeQuietly(load);
+			queue.clear();
+			loads.clear();
+			return null;
+		}
+		ScheduledLoad waiting = pickWaiting(0);
+		queue.remove(waiting);
+		return waiting;
+	}
+
+	/**
+	 * Finds the waiting load to run next, which is the one with the highest priority unless
+	 * running it would leave more loads paused with their file open than allowed. The open
+	 * load with the highest priority is run then instead.
+	 * @param pausing - (int) Number of open loads that are paused to run the load found.
+	 * @return The load to run, <b>null</b> if none is waiting or if no load may be run
+	 * without pausing too many open loads.
+	 */
+	private ScheduledLoad pickWaiting( int pausing ){
+		ScheduledLoad first = queue.peek();
+		if( first == null || isOpen(first) )
+			return first;
+
+		int paused = pausing;
+		ScheduledLoad first_open = null;
+		for( ScheduledLoad load : queue ){
+			if( isOpen(load) ){
+				paused++;
+				if( first_open == null || load.compareTo(first_open) < 0 )
+					first_open = load;
+			}
+		}
+		return ( paused <= max_paused_loads ) ? first : first_open;
+	}
+
+	private static boolean isOpen( ScheduledLoad load ){
+		return load.load != null && load.load.isOpen();
+	}
+
+	/**
+	 * Leaves a load that waits for another load of its model out of the queue until that
+	 * load is done or this one is cancelled. Its next step then finishes it.
+	 */
+	private void park( ScheduledLoad load, CompletableFuture<ModelData> awaited ){
+		CompletableFuture.anyOf(awaited, load.result).whenComplete((value, error) -> resume(load));
+	}
+
+	private synchronized void resume( ScheduledLoad load ){
+		if( shutdown ){
+			end(load);
+			closeQuietly(load);
+			return;
+		}
+		queue.add(load);
+		notifyAll();
+	}
+
+	private synchronized void end( ScheduledLoad load ){
+		loads.remove(load.file_path);
+	}
+
+	private static void closeQuietly( ScheduledLoad load ){
+		try{
+			if( load.load != null )
+				load.load.close();
+		}catch( IOException e ){
+			OutputHandler.println("Could not close model "+load.file_path+": "+e.getMessage());
+		}
+	}
+
+	/**
+	 * A model that is queued or loading.
+	 */
+	private static class ScheduledLoad implements Comparable<ScheduledLoad> {
+
+		final String file_path;
+		final CompletableFuture<ModelData> result = new CompletableFuture<>();
+		final LoadMonitor monitor = new LoadMonitor();
+		// Breaks ties so models with the same priority load in the order they were submitted
+		final long order;
+		double priority;
+		IncrementalLoad load;
+
+		ScheduledLoad( String file_path, double priority, long order ){
+			this.file_path = file_path;
+			this.priority = priority;
+			this.order = order;
+			// Stops a step that is running once the load is cancelled
+			result.whenComplete((model, error) -> {
+				if( result.isCancelled() )
+					monitor.cancel();
+			});
+		}
+
+		@Override
+		public int compareTo( ScheduledLoad other ){
+			int compare = Double.compare(other.priority, priority);
+			return ( compare != 0 ) ? compare : Long.compare(order, other.order);
+		}
+
+	}
+
+}
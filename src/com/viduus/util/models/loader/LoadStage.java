@@ -0,0 +1,67 @@
+package com.viduus.util.models.loader;
+
+/**
+ * The stages a model load goes through, in order, as reported by a {@link LoadMonitor}.
+ *
+ * @author Ethan Toney
+ */
+public enum LoadStage {
+
+	/**
+	 * The file is being opened or read from the cache.
+	 */
+	OPENING,
+	/**
+	 * Reading the 'library_effects' section.
+	 */
+	EFFECTS,
+	/**
+	 * Reading the 'library_materials' section.
+	 */
+	MATERIALS,
+	/**
+	 * Reading the 'library_geometries' section.
+	 */
+	GEOMETRIES,
+	/**
+	 * Reading the 'library_animations' section.
+	 */
+	ANIMATIONS,
+	/**
+	 * Reading the 'library_controllers' section.
+	 */
+	CONTROLLERS,
+	/**
+	 * Reading the 'library_visual_scenes' section.
+	 */
+	VISUAL_SCENES,
+	/**
+	 * Attaching effects to materials and creating the bones.
+	 */
+	LINKING,
+	/**
+	 * Generating the joint and GPU buffers of the instantiated meshes.
+	 */
+	BUFFERS,
+	/**
+	 * The load finished.
+	 */
+	DONE;
+
+	/**
+	 * @param section_name - (String) Name of a library section of a dae file.
+	 * @return The stage reading the section, <b>null</b> if the section is not read.
+	 */
+	static LoadStage ofSection( String section_name ){
+		switch( section_name ){
+		case "library_effects": return EFFECTS;
+		case "library_materials": return MATERIALS;
+		case "library_geometries": return GEOMETRIES;
+		case "library_animations": return ANIMATIONS;
+		case "library_controllers": return CONTROLLERS;
+		case "library_visual_scenes": return VISUAL_SCENES;
+		default: return null;
+		}
+	}
+
+}
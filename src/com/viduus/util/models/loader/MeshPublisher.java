@@ -0,0 +1,167 @@
+package com.viduus.util.models.loader;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import com.viduus.util.models.ModelData;
+import com.viduus.util.models.geometries.Mesh;
+import com.viduus.util.models.geometries.Polylist;
+
+/**
+ * Publishes the meshes of a model as soon as the GPU buffers of each are generated, so a
+ * render thread can upload the first meshes while the rest of the model is still loading.
+ * Subscribers are completed once the model is loaded, and get the error of a load that
+ * failed or was cancelled.
+ * <br><br>
+ * Demand of the subscribers is honored: once a subscriber has {@link Flow#defaultBufferSize()}
+ * meshes it did not request yet, the load blocks until it requests more, cancels its
+ * subscription or the load is cancelled. Subscribers are called on the common ForkJoinPool,
+ * and must not wait for the load to request more meshes.
+ * <br><br>
+ * Models that are read from a cache, loaded lazily or loaded by another call publish all
+ * their meshes with buffers once they are loaded.
+ *
+ * @author Ethan Toney
+ */
+public class MeshPublisher implements Flow.Publisher<Mesh> {
+
+	// How long a full subscriber is waited on before the monitor is checked again
+	private static final long WAIT_MILLIS = 50;
+
+	private final DaeLoader loader;
+	private final Path file;
+	private final LoadOptions options;
+	private final LoadMonitor monitor;
+	// One publisher per subscriber, so a mesh can be offered again to just the subscribers
+	// that had no room for it
+	private final CopyOnWriteArrayList<SubmissionPublisher<Mesh>> publishers = new CopyOnWriteArrayList<>();
+	private final Set<Mesh> published = ConcurrentHashMap.newKeySet();
+	private CompletableFuture<ModelData> result = null;
+
+	/**
+	 * @param loader - (DaeLoader) Loads the model.
+	 * @param file - (Path) The Collada file.
+	 * @param options - (LoadOptions) How the model should be read.
+	 * @param monitor - (LoadMonitor) Monitor of the load.
+	 */
+	MeshPublisher( DaeLoader loader, Path file, LoadOptions options, LoadMonitor monitor ){
+		this.loader = loader;
+		this.file = file;
+		this.options = options;
+		this.monitor = monitor;
+		monitor.addProgressListener(new LoadProgressListener(){
+			@Override
+			public void loadProgressed( LoadMonitor monitor ){
+			}
+
+			@Override
+			public void meshLoaded( LoadMonitor monitor, Mesh mesh ){
+				publish(mesh);
+			}
+		});
+	}
+
+	/**
+	 * Subscribes to the meshes of the model. Subscribers added after {@link #start()} miss
+	 * the meshes that were already published.
+	 */
+	@Override
+	public void subscribe( Flow.Subscriber<? super Mesh> subscriber ){
+		SubmissionPublisher<Mesh> publisher = new SubmissionPublisher<>();
+		publisher.subscribe(subscriber);
+		publishers.add(publisher);
+	}
+
+	/**
+	 * Starts loading the model without blocking the calling thread, see
+	 * {@link DaeLoader#loadModelAsync(Path, LoadOptions, LoadMonitor)}. Only the first call
+	 * starts a load.
+	 * @return Completes with the loaded model once every mesh was published, or with
+	 * <b>null</b> if the file is not a supported Collada file.
+	 */
+	public synchronized CompletableFuture<ModelData> start(){
+		if( result == null ){
+			CompletableFuture<ModelData> load = loader.loadModelAsync(file, options, monitor);
+			CompletableFuture<ModelData> new_result = new CompletableFuture<>();
+			// Cancelling the result stops the load, like cancelling the load itself
+			new_result.whenComplete((model, error) -> {
+				if( new_result.isCancelled() )
+					load.cancel(false);
+			});
+			load.whenComplete((model, error) -> finish(new_result, model, error));
+			result = new_result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return The monitor of the load.
+	 */
+	public LoadMonitor getMonitor(){
+		return monitor;
+	}
+
+	/**
+	 * Publishes the meshes the load did not publish yet and completes the subscribers.
+	 */
+	private void finish( CompletableFuture<ModelData> result, ModelData model, Throwable error ){
+		if( error != null ){
+			Throwable cause = ( error instanceof CompletionException && error.getCause() != null ) ? error.getCause() : error;
+			for( SubmissionPublisher<Mesh> publisher : publishers )
+				publisher.closeExceptionally(cause);
+			result.completeExceptionally(cause);
+			return;
+		}
+		try{
+			if( model != null ){
+				for( String geometry_id : model.getMeshIds() ){
+					Mesh mesh = model.getMesh(geometry_id);
+					if( mesh != null && hasGpuBuffers(mesh) )
+						publish(mesh);
+				}
+			}
+			// Meshes were dropped if the load was cancelled while they waited
+			monitor.checkCancelled();
+		}catch( DaeParseException e ){
+			for( SubmissionPublisher<Mesh> publisher : publishers )
+				publisher.closeExceptionally(e);
+			result.completeExceptionally(e);
+			return;
+		}
+		for( SubmissionPublisher<Mesh> publisher : publishers )
+			publisher.close();
+		result.complete(model);
+	}
+
+	/**
+	 * Publishes a mesh once, waiting until every subscriber has room for it.
+	 */
+	private void publish( Mesh mesh ){
+		if( !published.add(mesh) )
+			return;
+		for( SubmissionPublisher<Mesh> publisher : publishers ){
+			// SubmissionPublisher.submit would block without noticing a cancelled load, so
+			// the offer gives up after a while and is made again unless the load is cancelled
+			while( publisher.offer(mesh, WAIT_MILLIS, TimeUnit.MILLISECONDS, null) < 0 ){
+				if( monitor.isCancelled() || monitor.isPastDeadline() )
+					return;
+			}
+		}
+	}
+
+	private static boolean hasGpuBuffers( Mesh mesh ){
+		for( Polylist polylist : mesh.polylists ){
+			if( polylist.gpu_buffer == null )
+				return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.viduus.util.models.loader;
+
+import com.viduus.util.models.ModelData;
+
+/**
+ * Notified when a {@link ModelRegistry} unloads a model to stay within its byte budget.
+ *
+ * @author Ethan Toney
+ */
+public interface ModelEvictionListener {
+
+	/**
+	 * Called after a model was evicted. The model stays tracked by the registry and is
+	 * loaded again the next time it is requested.
+	 * @param identifier - (String) Name the model was tracked under.
+	 * @param model - (ModelData) The evicted model.
+	 */
+	void modelEvicted( String identifier, ModelData model );
+
+}
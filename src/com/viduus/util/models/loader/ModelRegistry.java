@@ -0,0 +1,295 @@
+package com.viduus.util.models.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.ModelData;
+
+/**
+ * Keeps track of the model files known to a {@link DaeLoader} and of the models that are
+ * currently loaded in memory. Each loaded model is weighed by {@link ModelData#getByteSize()}
+ * and once the loaded models take up more than the byte budget, the least recently used
+ * ones are evicted until they fit again. Pinned models are never evicted. A
+ * {@link LazyModelData} is weighed again every time one of its parts is parsed.
+ * <br><br>
+ * Evicted models stay tracked, they are loaded again the next time they are requested.
+ * <br><br>
+ * A registry is safe to use from several threads. Threads requesting a model that another
+ * thread is already loading wait for that load instead of parsing the file again.
+ *
+ * @author Ethan Toney
+ */
+public class ModelRegistry {
+
+	/**
+	 * Byte budget of a registry that never evicts models.
+	 */
+	public static final long UNBOUNDED = Long.MAX_VALUE;
+
+	// Tracked models in least to most recently used order, unloaded models map to null
+	private final LinkedHashMap<String, ModelData> models = new LinkedHashMap<>(16, 0.75f, true);
+	// Sizes of the loaded models, weighed when they were added or when lazy models grew
+	private final HashMap<String, Long> byte_sizes = new HashMap<>();
+	private final HashSet<String> pinned = new HashSet<>();
+	// Loads in progress, shared by every caller requesting the same model meanwhile
+	private final HashMap<String, CompletableFuture<ModelData>> loading = new HashMap<>();
+	private final List<ModelEvictionListener> listeners = new CopyOnWriteArrayList<>();
+	private long byte_budget;
+	private long byte_size = 0;
+
+	/**
+	 * Creates a registry that never evicts models.
+	 */
+	public ModelRegistry(){
+		this( UNBOUNDED );
+	}
+
+	/**
+	 * @param byte_budget - (long) Number of bytes the loaded models may take up before the
+	 * least recently used ones are evicted.
+	 */
+	public ModelRegistry( long byte_budget ){
+		this.byte_budget = byte_budget;
+	}
+
+	/**
+	 * Starts tracking a model file without loading it.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return <b>true</b> if the model was not tracked yet.
+	 */
+	public synchronized boolean track( String identifier ){
+		if( models.containsKey(identifier) )
+			return false;
+		models.put(identifier, null);
+		return true;
+	}
+
+	/**
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return <b>true</b> if the model is tracked, whether it is loaded or not.
+	 */
+	public synchronized boolean isTracked( String identifier ){
+		return models.containsKey(identifier);
+	}
+
+	/**
+	 * Gets a loaded model and marks it as the most recently used one.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return The model or <b>null</b> if it is not loaded.
+	 */
+	public synchronized ModelData get( String identifier ){
+		return models.get(identifier);
+	}
+
+	/**
+	 * Adds a loaded model as the most recently used one, evicting other models if the byte
+	 * budget is exceeded.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @param model - (ModelData) The loaded model.
+	 */
+	public void put( String identifier, ModelData model ){
+		List<Map.Entry<String, ModelData>> evicted;
+		synchronized( this ){
+			models.put(identifier, model);
+			if( model instanceof LazyModelData )
+				((LazyModelData) model).setRegistry(this, identifier);
+			long model_size = model.getByteSize();
+			Long old_size = byte_sizes.put(identifier, model_size);
+			if( old_size != null )
+				byte_size -= old_size;
+			byte_size += model_size;
+			evicted = evict();
+		}
+		notifyEvicted(evicted);
+	}
+
+	/**
+	 * Weighs a loaded model again after it grew, marking it as the most recently used one
+	 * and evicting other models if the byte budget is exceeded. Does nothing if the model
+	 * was released or replaced meanwhile.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @param model - (ModelData) The model that grew.
+	 */
+	void reweigh( String identifier, ModelData model ){
+		List<Map.Entry<String, ModelData>> evicted;
+		synchronized( this ){
+			if( models.get(identifier) != model )
+				return;
+			long model_size = model.getByteSize();
+			byte_size += model_size - byte_sizes.put(identifier, model_size);
+			evicted = evict();
+		}
+		notifyEvicted(evicted);
+	}
+
+	/**
+	 * Registers a load of a model unless the model is already loaded or another thread is
+	 * already loading it. The caller that registered the load must end it with
+	 * {@link #finishLoad(String, CompletableFuture, ModelData)} or
+	 * {@link #failLoad(String, CompletableFuture, Throwable)}.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @param load - (CompletableFuture) Completed with the model once it is loaded.
+	 * @return <b>null</b> if the given load was registered, otherwise the future of the
+	 * model that is already loaded or being loaded.
+	 */
+	synchronized CompletableFuture<ModelData> beginLoad( String identifier, CompletableFuture<ModelData> load ){
+		ModelData model = models.get(identifier);
+		if( model != null )
+			return CompletableFuture.completedFuture(model);
+		return loading.putIfAbsent(identifier, load);
+	}
+
+	/**
+	 * Adds a model loaded by a registered load and completes the load.
+	 * @param model - (ModelData) The loaded model, <b>null</b> if the file was not a
+	 * supported Collada file.
+	 */
+	void finishLoad( String identifier, CompletableFuture<ModelData> load, ModelData model ){
+		if( model != null )
+			put(identifier, model);
+		synchronized( this ){
+			loading.remove(identifier, load);
+		}
+		load.complete(model);
+	}
+
+	/**
+	 * Ends a registered load that failed, the error is passed on to everyone waiting for
+	 * the load.
+	 */
+	void failLoad( String identifier, CompletableFuture<ModelData> load, Throwable error ){
+		synchronized( this ){
+			loading.remove(identifier, load);
+		}
+		load.completeExceptionally(error);
+	}
+
+	/**
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return <b>true</b> if a thread is currently loading the model.
+	 */
+	public synchronized boolean isLoading( String identifier ){
+		return loading.containsKey(identifier);
+	}
+
+	/**
+	 * Unloads a model but keeps tracking it.
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return The unloaded model or <b>null</b> if it was not loaded.
+	 */
+	public synchronized ModelData release( String identifier ){
+		ModelData model = models.get(identifier);
+		if( model != null ){
+			models.put(identifier, null);
+			byte_size -= byte_sizes.remove(identifier);
+		}
+		return model;
+	}
+
+	/**
+	 * Keeps a model loaded regardless of the byte budget until it is unpinned. Models can
+	 * be pinned before they are loaded.
+	 * @param identifier - (String) Name the model is tracked under.
+	 */
+	public synchronized void pin( String identifier ){
+		pinned.add(identifier);
+	}
+
+	/**
+	 * Allows a pinned model to be evicted again, evicting models if the byte budget is
+	 * exceeded.
+	 * @param identifier - (String) Name the model is tracked under.
+	 */
+	public void unpin( String identifier ){
+		List<Map.Entry<String, ModelData>> evicted;
+		synchronized( this ){
+			if( !pinned.remove(identifier) )
+				return;
+			evicted = evict();
+		}
+		notifyEvicted(evicted);
+	}
+
+	/**
+	 * @param identifier - (String) Name the model is tracked under.
+	 * @return <b>true</b> if the model is pinned.
+	 */
+	public synchronized boolean isPinned( String identifier ){
+		return pinned.contains(identifier);
+	}
+
+	/**
+	 * Changes the byte budget, evicting models if the new budget is exceeded.
+	 * @param byte_budget - (long) Number of bytes the loaded models may take up.
+	 */
+	public void setByteBudget( long byte_budget ){
+		List<Map.Entry<String, ModelData>> evicted;
+		synchronized( this ){
+			this.byte_budget = byte_budget;
+			evicted = evict();
+		}
+		notifyEvicted(evicted);
+	}
+
+	/**
+	 * @return The number of bytes the loaded models may take up.
+	 */
+	public synchronized long getByteBudget(){
+		return byte_budget;
+	}
+
+	/**
+	 * @return The number of bytes the loaded models take up.
+	 */
+	public synchronized long getByteSize(){
+		return byte_size;
+	}
+
+	public void addEvictionListener( ModelEvictionListener listener ){
+		listeners.add(listener);
+	}
+
+	public void removeEvictionListener( ModelEvictionListener listener ){
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Unloads the least recently used models that are not pinned until the loaded models
+	 * fit into the byte budget. Must be called while holding the lock of this registry.
+	 * @return The evicted models.
+	 */
+	private List<Map.Entry<String, ModelData>> evict(){
+		List<Map.Entry<String, ModelData>> evicted = new ArrayList<>();
+		Iterator<Map.Entry<String, ModelData>> it = models.entrySet().iterator();
+		while( byte_size > byte_budget && it.hasNext() ){
+			Map.Entry<String, ModelData> entry = it.next();
+			if( entry.getValue() == null || pinned.contains(entry.getKey()) )
+				continue;
+			evicted.add( Map.entry(entry.getKey(), entry.getValue()) );
+			byte_size -= byte_sizes.remove(entry.getKey());
+			entry.setValue(null);
+		}
+		return evicted;
+	}
+
+	/**
+	 * Tells the listeners about evicted models. Called without holding the lock so
+	 * listeners may use the registry.
+	 */
+	private void notifyEvicted( List<Map.Entry<String, ModelData>> evicted ){
+		for( Map.Entry<String, ModelData> entry : evicted ){
+			OutputHandler.println("Evicted model "+entry.getKey()+" from memory");
+			for( ModelEvictionListener listener : listeners )
+				listener.modelEvicted(entry.getKey(), entry.getValue());
+		}
+	}
+
+}
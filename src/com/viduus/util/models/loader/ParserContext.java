@@ -0,0 +1,73 @@
+package com.viduus.util.models.loader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * The xml parsers used by a single load, kept in a {@link ParserPool} between loads. A
+ * context is not thread-safe: it is owned by one load from the time it is acquired until
+ * it is released, and only used by the thread running that load.
+ * <br><br>
+ * Reusing the DocumentBuilder keeps its configuration and symbol table. Having a factory
+ * of its own lets a context create stream readers without locking, and lets the factory
+ * reuse the reader of the previous load once it was closed.
+ *
+ * @author Ethan Toney
+ */
+final class ParserContext {
+
+	private final DocumentBuilder document_builder;
+	private final XMLInputFactory xml_input_factory;
+
+	/**
+	 * @param document_builder - (DocumentBuilder) Builds the DOM trees of this context.
+	 * @param xml_input_factory - (XMLInputFactory) Creates the stream readers of this context.
+	 */
+	ParserContext( DocumentBuilder document_builder, XMLInputFactory xml_input_factory ){
+		this.document_builder = document_builder;
+		this.xml_input_factory = xml_input_factory;
+	}
+
+	/**
+	 * Builds the DOM tree of a whole file.
+	 */
+	Document parse( InputStream in ) throws SAXException, IOException {
+		return document_builder.parse(in);
+	}
+
+	/**
+	 * Creates an empty DOM tree, used to copy elements of a stream into.
+	 */
+	Document newDocument(){
+		return document_builder.newDocument();
+	}
+
+	/**
+	 * Creates a stream reader over a file. It must be closed before the context is released.
+	 */
+	XMLStreamReader createXMLStreamReader( InputStream in ) throws XMLStreamException {
+		return xml_input_factory.createXMLStreamReader(in);
+	}
+
+	/**
+	 * Prepares the context for the next load.
+	 * @return False if the context can not be reused.
+	 */
+	boolean reset(){
+		try{
+			document_builder.reset();
+			return true;
+		}catch( UnsupportedOperationException e ){
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.viduus.util.models.loader;
+
+import java.util.ArrayDeque;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * Keeps the xml parsers of finished loads so that later loads reuse them instead of
+ * creating new ones. Creating parsers dominates the time it takes to load small files,
+ * so loaders that load many of them should share a pool. Every {@link DaeLoader} that is
+ * not given a pool of its own shares a single one.
+ * <br><br>
+ * The pool itself is thread-safe. The parsers it hands out are not: each load acquires a
+ * context of its own and releases it when it is done, and the context is only used by the
+ * thread running the load in between. Incremental loads keep their context from their
+ * first step until they are done or closed, so their steps may run on different threads
+ * as long as they do not run at the same time.
+ * <br><br>
+ * At most a given number of idle contexts are kept. More are created while more loads
+ * run at once, and the extra ones are dropped once they are released.
+ *
+ * @author Ethan Toney
+ */
+public class ParserPool {
+
+	private final DocumentBuilderFactory document_builder_factory = DocumentBuilderFactory.newInstance();
+	private final ArrayDeque<ParserContext> idle = new ArrayDeque<>();
+	private final int max_idle;
+	private int created_count = 0;
+
+	/**
+	 * Creates a pool that keeps two idle contexts per processor.
+	 */
+	public ParserPool(){
+		this( Runtime.getRuntime().availableProcessors() * 2 );
+	}
+
+	/**
+	 * Creates a pool.
+	 * @param max_idle - (int) Number of idle contexts kept for later loads. With 0 every
+	 * load creates its own parsers.
+	 */
+	public ParserPool( int max_idle ){
+		this.max_idle = max_idle;
+	}
+
+	/**
+	 * @return The number of contexts this pool created.
+	 */
+	public synchronized int getCreatedCount(){
+		return created_count;
+	}
+
+	/**
+	 * @return The number of contexts waiting to be reused.
+	 */
+	public synchronized int getIdleCount(){
+		return idle.size();
+	}
+
+	/**
+	 * Removes the idle contexts, for example after a burst of loads.
+	 */
+	public synchronized void clear(){
+		idle.clear();
+	}
+
+	/**
+	 * Takes an idle context, or creates one if none is idle. The context must be released
+	 * by the same load once it is done.
+	 * @return The context.
+	 * @throws DaeParseException Thrown if no parsers could be created.
+	 */
+	ParserContext acquire() throws DaeParseException {
+		synchronized( this ){
+			ParserContext context = idle.pollFirst();
+			if( context != null )
+				return context;
+			created_count++;
+		}
+
+		DocumentBuilder document_builder;
+		// DocumentBuilderFactory is not thread-safe
+		synchronized( document_builder_factory ){
+			try{
+				document_builder = document_builder_factory.newDocumentBuilder();
+			}catch( ParserConfigurationException e ){
+				throw new DaeParseException("Could not create an xml parser", e);
+			}
+		}
+		return new ParserContext(document_builder, XMLInputFactory.newInstance());
+	}
+
+	/**
+	 * Returns a context once its load is done, so it can be reused. Readers it created must
+	 * be closed first.
+	 * @param context - (ParserContext) The context, may be <b>null</b>.
+	 */
+	void release( ParserContext context ){
+		if( context == null || !context.reset() )
+			return;
+		synchronized( this ){
+			// The most recently used context is handed out first, its memory is most likely cached
+			if( idle.size() < max_idle )
+				idle.push(context);
+		}
+	}
+
+}
@@ -3,13 +3,21 @@
  */
 package com.viduus.util.models.materials;
 
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.effects.Effect;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -50,6 +58,45 @@ public class Material {
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;material&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Material(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("material") )
+			throw new DaeParseException("Material constructor must be passed a <material> tag.");
+		
+		// Get properties of this material
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			
+			if( child_name.equals("instance_effect") ){
+				effect_url = LoaderFunctions.getAttribute(reader, "url").substring(1);
+				// TODO Implement tags that can be inside of <instance_effect>
+				LoaderFunctions.skipElement(reader);
+				
+			}else{
+				throw new DaeParseException("Material child tag <"+child_name+"> is not supported.");
+			}
+		}
+	}
+
+	/**
+	 * Reads a material, including its effect, back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Material(ModelCacheReader reader) throws DaeParseException {
+		id = reader.readString();
+		effect_url = reader.readString();
+		if( reader.readBoolean() )
+			effect = new Effect(reader);
+	}
+
 	/**
 	 * @return
 	 */
@@ -64,6 +111,20 @@ public class Material {
 		OutputHandler.println("Material[id:'"+id+"', effect_url:'"+effect_url+"', effect_obj:"+effect+"]");
 	}
 
+	/**
+	 * Writes this material, including its effect, to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		writer.writeString(effect_url);
+		writer.writeBoolean( effect != null );
+		if( effect != null )
+			effect.write(writer);
+	}
+
 	/**
 	 * @param effect2
 	 */
@@ -0,0 +1,75 @@
+package com.viduus.util.models.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream that reads the remaining bytes of a ByteBuffer. Used to hand memory
+ * mapped files and direct buffers to the xml parsers without first copying them into a
+ * heap byte[].
+ * <br><br>
+ * Reading advances the position of the given buffer, pass a
+ * {@link ByteBuffer#duplicate()} to leave the original untouched.
+ *
+ * @author Ethan Toney
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer buffer;
+	private int mark = -1;
+
+	/**
+	 * @param buffer - (ByteBuffer) Buffer to read from, starting at its position and ending
+	 * at its limit.
+	 */
+	public ByteBufferInputStream( ByteBuffer buffer ){
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read(){
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read( byte[] bytes, int offset, int length ){
+		if( length == 0 )
+			return 0;
+		if( !buffer.hasRemaining() )
+			return -1;
+		length = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, length);
+		return length;
+	}
+
+	@Override
+	public long skip( long length ){
+		int skipped = (int) Math.max(0, Math.min(length, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available(){
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported(){
+		return true;
+	}
+
+	@Override
+	public synchronized void mark( int read_limit ){
+		mark = buffer.position();
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		if( mark < 0 )
+			throw new IOException("Stream was never marked.");
+		buffer.position(mark);
+	}
+
+}
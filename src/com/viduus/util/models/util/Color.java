@@ -3,9 +3,16 @@
  */
 package com.viduus.util.models.util;
 
+import java.io.IOException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.Node;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.loader.DaeParseException;
 
 /**
@@ -22,15 +29,59 @@ public class Color {
 	 * @throws DaeParseException
 	 */
 	public Color(Node child_node) throws DaeParseException {
+		this( readNumbers(child_node) );
+	}
+
+	/**
+	 * Creates a color from a stream reader positioned on a &lt;color&gt; start tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Color(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		this( readNumbers(reader) );
+	}
+
+	/**
+	 * Reads a color back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Color(ModelCacheReader reader) throws DaeParseException {
+		this( reader.readFloats() );
+	}
+
+	private Color(float[] numbers) {
+		r = numbers[0];
+		g = numbers[1];
+		b = numbers[2];
+		a = numbers[3];
+	}
+
+	private static float[] readNumbers(Node child_node) throws DaeParseException {
 		if( !child_node.getNodeName().equals("color") )
 			throw new DaeParseException("Color constructor must be passed a <color> tag.");
 
-		String[] numbers = child_node.getFirstChild().getTextContent().split(" ");
+		return new NumberScanner(child_node.getFirstChild().getTextContent()).readFloats(4);
+	}
 
-		r = Float.parseFloat(numbers[0]);
-		g = Float.parseFloat(numbers[1]);
-		b = Float.parseFloat(numbers[2]);
-		a = Float.parseFloat(numbers[3]);
+	private static float[] readNumbers(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("color") )
+			throw new DaeParseException("Color constructor must be passed a <color> tag.");
+
+		return new NumberScanner(reader).readFloats(4);
+	}
+
+	/**
+	 * Writes this color to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeFloats( new float[]{ r, g, b, a } );
 	}
 
 	@Override
@@ -4,12 +4,12 @@
 package com.viduus.util.models.util;
 
 /**
- * This class holds an array of floats that were loaded from a dae file. This class
- * also handles sending it's data to the GPU.
+ * This class holds an array of data that was loaded from a dae file. Each subclass keeps
+ * its values in a primitive backing array so that they can be read without boxing.
  * 
  * @author Ethan Toney
  */
-public abstract class DataArray <T> {
+public abstract class DataArray {
 
 	/**
 	 * Number of numbers representing a point
@@ -21,11 +21,6 @@ public abstract class DataArray <T> {
 	 */
 	public final int count;
 
-	/**
-	 * Backing array for this data array.
-	 */
-	public T[] data;
-
 	/**
 	 * @param count
 	 * @param stride
@@ -35,4 +30,9 @@ public abstract class DataArray <T> {
 		this.stride = stride;
 	}
 	
+	/**
+	 * @return The number of bytes taken up by the backing array of this data array.
+	 */
+	public abstract long getByteSize();
+	
 }
@@ -1,6 +1,7 @@
 package com.viduus.util.models.util;
 
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.w3c.dom.NamedNodeMap;
@@ -17,7 +18,12 @@ import com.viduus.util.models.loader.DaeParseException;
  * 
  * @author Ethan Toney
  */
-public class FloatArray extends DataArray<Float>{
+public class FloatArray extends DataArray {
+	
+	/**
+	 * Backing array for this data array.
+	 */
+	public float[] data;
 	
 	/**
 	 * Creates a new FloatArray by reading the given XML and looking for a float_array
@@ -26,13 +32,37 @@ public class FloatArray extends DataArray<Float>{
 	 * @throws DaeParseException Thrown if there was a parsing error.
 	 */
 	public FloatArray( Node float_array, int count, int stride ) throws DaeParseException {
+		this( float_array.getTextContent(), count, stride );
+	}
+	
+	/**
+	 * Creates a new FloatArray from the text content of a float_array tag.
+	 * @param text - (String) The space separated numbers of the float array.
+	 * @param count - (int) Number of points.
+	 * @param stride - (int) Number of numbers representing a point.
+	 * @throws DaeParseException Thrown if there was a parsing error.
+	 */
+	public FloatArray( String text, int count, int stride ) throws DaeParseException {
 		super( count, stride );
-		data = new Float[count*stride];
 		
 		// Load in the data
-		String[] numbers = float_array.getTextContent().split(" ");
-		for( int i=0 ; i<count*stride ; i++ )
-			data[i] = Float.parseFloat(numbers[i]);
+		data = new NumberScanner(text).readFloats(count*stride);
+	}
+	
+	/**
+	 * Creates a new FloatArray around numbers that were already parsed.
+	 * @param numbers - (float[]) The numbers of the float array. Only the first
+	 * count*stride numbers are kept.
+	 * @param count - (int) Number of points.
+	 * @param stride - (int) Number of numbers representing a point.
+	 * @throws DaeParseException Thrown if there are not enough numbers.
+	 */
+	public FloatArray( float[] numbers, int count, int stride ) throws DaeParseException {
+		super( count, stride );
+		
+		if( numbers.length < count*stride )
+			throw new DaeParseException("Expected "+(count*stride)+" numbers but only found "+numbers.length+".");
+		data = ( numbers.length == count*stride ) ? numbers : Arrays.copyOf(numbers, count*stride);
 	}
 	
 	/**
@@ -73,7 +103,7 @@ public class FloatArray extends DataArray<Float>{
 	 */
 	public void multMat4f(FloatBuffer mat) {
 		float[] matrix = mat.array();
-		Float[] transformed_data = new Float[ data.length ];
+		float[] transformed_data = new float[ data.length ];
 		
 		for( int i=0 ; i<data.length ; i+=3 ){
 			transformed_data[i] = matrix[0]*data[i] + matrix[1]*data[i+1] + matrix[2]*data[i+2] + matrix[3];
@@ -93,7 +123,7 @@ public class FloatArray extends DataArray<Float>{
 	 */
 	public void multMat3(Mat3 normal_matrix) {
 		float[] matrix = normal_matrix.getBackingArray();
-		Float[] transformed_data = new Float[ data.length ];
+		float[] transformed_data = new float[ data.length ];
 		
 		for( int i=0 ; i<data.length ; i+=3 ){
 			transformed_data[i] = matrix[0]*data[i] + matrix[1]*data[i+1] + matrix[2]*data[i+2];
@@ -103,5 +133,10 @@ public class FloatArray extends DataArray<Float>{
 		
 		data = transformed_data;
 	}
+	
+	@Override
+	public long getByteSize() {
+		return (data == null) ? 0 : data.length * 4L;
+	}
 
 }
@@ -0,0 +1,169 @@
+package com.viduus.util.models.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * This class holds an array of indexes. Indexes are kept as unsigned shorts when every one
+ * of them is below 65536, and as ints otherwise, so small meshes stay compact while large
+ * ones are still indexed correctly. The backing array can be handed to the GPU as is, with
+ * {@link #getBytesPerIndex()} telling which index type it holds.
+ *
+ * @author Ethan Toney
+ */
+public final class IndexArray {
+
+	/**
+	 * Largest index kept in the compact form.
+	 */
+	public static final int MAX_SHORT_INDEX = 0xFFFF;
+
+	/**
+	 * Backing array when the indexes are unsigned shorts, <b>null</b> otherwise.
+	 */
+	private final short[] shorts;
+
+	/**
+	 * Backing array when the indexes are ints, <b>null</b> otherwise.
+	 */
+	private final int[] ints;
+
+	/**
+	 * Number of indexes
+	 */
+	public final int length;
+
+	/**
+	 * Creates a new IndexArray holding the given indexes in the smallest form that fits
+	 * all of them.
+	 * @param indexes - (int[]) The indexes. The array is kept if the indexes are stored as
+	 * ints.
+	 */
+	public IndexArray( int[] indexes ){
+		this( indexes, max(indexes) );
+	}
+
+	/**
+	 * Creates a new IndexArray holding the given indexes in the smallest form that fits
+	 * all of them.
+	 * @param indexes - (int[]) The indexes. The array is kept if the indexes are stored as
+	 * ints.
+	 * @param max_index - (int) The largest of the indexes, or -1 if any of them is negative.
+	 */
+	public IndexArray( int[] indexes, int max_index ){
+		length = indexes.length;
+		if( max_index >= 0 && max_index <= MAX_SHORT_INDEX ){
+			shorts = new short[length];
+			for( int i=0 ; i<length ; i++ )
+				shorts[i] = (short) indexes[i];
+			ints = null;
+		}else{
+			shorts = null;
+			ints = indexes;
+		}
+	}
+
+	/**
+	 * Reads an IndexArray back from a model cache.
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException Thrown if the cache holds no index array.
+	 */
+	public IndexArray( ModelCacheReader reader ) throws DaeParseException {
+		if( reader.readBoolean() ){
+			shorts = reader.readShorts();
+			ints = null;
+		}else{
+			shorts = null;
+			ints = reader.readInts();
+		}
+		if( shorts == null && ints == null )
+			throw new DaeParseException("Cached index array is missing.");
+		length = ( shorts != null ) ? shorts.length : ints.length;
+	}
+
+	/**
+	 * Writes this IndexArray to a model cache.
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write( ModelCacheWriter writer ) throws IOException {
+		writer.writeBoolean( shorts != null );
+		if( shorts != null )
+			writer.writeShorts(shorts);
+		else
+			writer.writeInts(ints);
+	}
+
+	/**
+	 * @param i - (int) Position of the index.
+	 * @return The index at the given position.
+	 */
+	public int get( int i ){
+		return ( shorts != null ) ? shorts[i] & 0xFFFF : ints[i];
+	}
+
+	/**
+	 * @return 2 if the indexes are unsigned shorts, 4 if they are ints.
+	 */
+	public int getBytesPerIndex(){
+		return ( shorts != null ) ? 2 : 4;
+	}
+
+	/**
+	 * @return The backing array of unsigned shorts, or <b>null</b> if the indexes are ints.
+	 */
+	public short[] getShorts(){
+		return shorts;
+	}
+
+	/**
+	 * @return The backing array of ints, or <b>null</b> if the indexes are unsigned shorts.
+	 */
+	public int[] getInts(){
+		return ints;
+	}
+
+	/**
+	 * @return A {@link ShortBuffer} or {@link IntBuffer} wrapping the backing array.
+	 */
+	public Buffer asBuffer(){
+		return ( shorts != null ) ? ShortBuffer.wrap(shorts) : IntBuffer.wrap(ints);
+	}
+
+	/**
+	 * @return A new array holding every index as an int.
+	 */
+	public int[] toInts(){
+		if( ints != null )
+			return ints.clone();
+		int[] result = new int[length];
+		for( int i=0 ; i<length ; i++ )
+			result[i] = shorts[i] & 0xFFFF;
+		return result;
+	}
+
+	/**
+	 * @return The number of bytes taken up by the backing array.
+	 */
+	public long getByteSize(){
+		return (long) length * getBytesPerIndex();
+	}
+
+	private static int max( int[] indexes ){
+		int max_index = 0;
+		for( int index : indexes ){
+			if( index < 0 )
+				return -1;
+			if( index > max_index )
+				max_index = index;
+		}
+		return max_index;
+	}
+
+}
@@ -5,6 +5,12 @@ package com.viduus.util.models.util;
 
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -57,4 +63,92 @@ public class LoaderFunctions {
 		return ( attribute_node == null ) ? null : attribute_node.getTextContent();
 	}
 	
+	/**
+	 * Advances a stream reader to the next child element of the element it is currently
+	 * inside of. The reader must either be on the parent's start tag or on the end tag of
+	 * the previous child.
+	 * 
+	 * @param reader - (XMLStreamReader) The reader to advance.
+	 * @return True if the reader is now on a child's start tag, false if the parent's end
+	 * tag was reached instead.
+	 * @throws XMLStreamException
+	 */
+	public static boolean nextChildElement( XMLStreamReader reader ) throws XMLStreamException {
+		while( reader.hasNext() ){
+			int event = reader.next();
+			if( event == XMLStreamConstants.START_ELEMENT )
+				return true;
+			if( event == XMLStreamConstants.END_ELEMENT )
+				return false;
+		}
+		return false;
+	}
+	
+	/**
+	 * Consumes the element the reader is currently on, including all of its children,
+	 * without building anything from it. Leaves the reader on the element's end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) Reader positioned on a start tag.
+	 * @throws XMLStreamException
+	 */
+	public static void skipElement( XMLStreamReader reader ) throws XMLStreamException {
+		int depth = 1;
+		while( depth > 0 && reader.hasNext() ){
+			int event = reader.next();
+			if( event == XMLStreamConstants.START_ELEMENT )
+				depth++;
+			else if( event == XMLStreamConstants.END_ELEMENT )
+				depth--;
+		}
+	}
+	
+	/**
+	 * Returns the value of an attribute on the element the reader is currently on.
+	 * 
+	 * @param reader - (XMLStreamReader) Reader positioned on a start tag.
+	 * @param identifier - (String) Name of the attribute.
+	 * @return The attribute's value or <b>null</b> if it is not present.
+	 */
+	public static String getAttribute( XMLStreamReader reader, String identifier ){
+		return reader.getAttributeValue(null, identifier);
+	}
+	
+	/**
+	 * Copies the element the reader is currently on, including all of its children and
+	 * text, into a DOM element so it can be read with the DOM constructors. Leaves the
+	 * reader on the element's end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) Reader positioned on a start tag.
+	 * @param document - (Document) Document that will own the copied nodes.
+	 * @return The copied element, appended to <i>document</i>.
+	 * @throws XMLStreamException
+	 */
+	public static Element readElement( XMLStreamReader reader, Document document ) throws XMLStreamException {
+		Element root = createElement(reader, document);
+		document.appendChild(root);
+		
+		Node parent = root;
+		while( parent != null && reader.hasNext() ){
+			int event = reader.next();
+			if( event == XMLStreamConstants.START_ELEMENT ){
+				Element child = createElement(reader, document);
+				parent.appendChild(child);
+				parent = child;
+			}else if( event == XMLStreamConstants.END_ELEMENT ){
+				parent = ( parent == root ) ? null : parent.getParentNode();
+			}else if( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE ){
+				parent.appendChild( document.createTextNode(reader.getText()) );
+			}
+		}
+		return root;
+	}
+	
+	private static Element createElement( XMLStreamReader reader, Document document ){
+		String prefix = reader.getPrefix();
+		Element element = document.createElement( (prefix == null || prefix.isEmpty()) ? reader.getLocalName() : prefix+":"+reader.getLocalName() );
+		for( int i=0 ; i<reader.getAttributeCount() ; i++ )
+			element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+		return element;
+	}
+	
 }
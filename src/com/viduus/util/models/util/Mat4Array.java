@@ -3,34 +3,74 @@
  */
 package com.viduus.util.models.util;
 
+import java.util.Arrays;
+
 import org.w3c.dom.Node;
 
 import com.viduus.util.math.Mat4;
+import com.viduus.util.models.loader.DaeParseException;
 
 /**
  *
  *
  * @author Ethan Toney
  */
-public class Mat4Array extends DataArray<Mat4> {
+public class Mat4Array extends DataArray {
+
+	/**
+	 * Backing array for this data array. Holds every matrix back to back with 16 floats
+	 * per matrix in row-major order.
+	 */
+	public final float[] data;
 
 	/**
 	 * @param count
 	 * @param stride
 	 */
-	public Mat4Array( Node mat4_array, int count, int stride ) {
-		super(count, stride);
+	public Mat4Array( Node mat4_array, int count, int stride ) throws DaeParseException {
+		this( mat4_array.getTextContent(), count, stride );
+	}
 
-		data = new Mat4[count];
+	/**
+	 * @param text - (String) The space separated numbers of the float array.
+	 * @param count
+	 * @param stride
+	 * @throws DaeParseException 
+	 */
+	public Mat4Array( String text, int count, int stride ) throws DaeParseException {
+		super(count, stride);
 
 		// Load in the data
-		String[] numbers = mat4_array.getTextContent().split(" ");
-		float[] nums = new float[16];
-		for( int i=0, j=0 ; i<count*stride ; i++ ){
-			nums[i % 16] = Float.parseFloat(numbers[i]);
-			if( i != 0 && (i-1)%16 == 0 )
-				data[j++] = new Mat4(nums);
-		}
+		data = new NumberScanner(text).readFloats(count*16);
+	}
+
+	/**
+	 * Creates a new Mat4Array around numbers that were already parsed.
+	 * @param numbers - (float[]) The matrix values. Only the first count*16 numbers are kept.
+	 * @param count
+	 * @param stride
+	 * @throws DaeParseException Thrown if there are not enough numbers.
+	 */
+	public Mat4Array( float[] numbers, int count, int stride ) throws DaeParseException {
+		super(count, stride);
+		
+		if( numbers.length < count*16 )
+			throw new DaeParseException("Expected "+(count*16)+" numbers but only found "+numbers.length+".");
+		data = ( numbers.length == count*16 ) ? numbers : Arrays.copyOf(numbers, count*16);
+	}
+	
+	/**
+	 * Creates a matrix from the values at the given index.
+	 * @param index - (int) Index of the matrix in this array.
+	 * @return A new Mat4 holding a copy of the matrix's values.
+	 */
+	public Mat4 getMatrix( int index ){
+		return new Mat4( Arrays.copyOfRange(data, index*16, index*16 + 16) );
+	}
+	
+	@Override
+	public long getByteSize() {
+		return data.length * 4L;
 	}
 
 }
@@ -3,6 +3,8 @@
  */
 package com.viduus.util.models.util;
 
+import java.util.HashMap;
+
 import org.w3c.dom.Node;
 
 import com.viduus.util.models.loader.DaeParseException;
@@ -12,7 +14,16 @@ import com.viduus.util.models.loader.DaeParseException;
  *
  * @author Ethan Toney
  */
-public class NameArray extends DataArray<String> {
+public class NameArray extends DataArray {
+
+	/**
+	 * Backing array for this data array. Names are interned so that repeated joint and
+	 * interpolation names share one instance.
+	 */
+	public final String[] data;
+	
+	// Maps each name to the index it first appears at
+	private final HashMap<String, Integer> indexes;
 
 	/**
 	 * Creates a new NameArray by reading the given XML and looking for a Name_array
@@ -21,10 +32,51 @@ public class NameArray extends DataArray<String> {
 	 * @throws DaeParseException Thrown if there was a parsing error.
 	 */
 	public NameArray( Node name_array, int count, int stride ) throws DaeParseException {
+		this( name_array.getTextContent(), count, stride );
+	}
+
+	/**
+	 * Creates a new NameArray from the text content of a Name_array tag.
+	 * @param text - (String) The space separated names.
+	 * @param count - (int) Number of points.
+	 * @param stride - (int) Number of names representing a point.
+	 */
+	public NameArray( String text, int count, int stride ) {
+		this( text.trim().split("\\s+"), count, stride );
+	}
+
+	/**
+	 * Creates a new NameArray around names that were already split.
+	 * @param names - (String[]) The names, kept as the backing array.
+	 * @param count - (int) Number of points.
+	 * @param stride - (int) Number of names representing a point.
+	 */
+	public NameArray( String[] names, int count, int stride ) {
 		super( count, stride );
 
-		// Load in the data
-		data = name_array.getTextContent().split(" ");
+		data = names;
+		indexes = new HashMap<>(data.length * 2);
+		for( int i=0 ; i<data.length ; i++ ){
+			data[i] = data[i].intern();
+			if( !indexes.containsKey(data[i]) )
+				indexes.put(data[i], i);
+		}
+	}
+	
+	/**
+	 * Returns the index of a name in this array.
+	 * @param name - (String) The name to look for.
+	 * @return The index of the first occurrence of the name, -1 if it is not in this array.
+	 */
+	public int indexOf( String name ){
+		Integer index = indexes.get(name);
+		return ( index == null ) ? -1 : index;
+	}
+	
+	@Override
+	public long getByteSize() {
+		// Interned names are shared, only count the references to them
+		return data.length * 8L;
 	}
 
 }
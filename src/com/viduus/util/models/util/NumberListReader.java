@@ -0,0 +1,142 @@
+package com.viduus.util.models.util;
+
+import java.util.Arrays;
+
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * Reads the numbers of a tag such as &lt;float_array&gt; or &lt;p&gt; into an array a
+ * chunk at a time, so that a load done in steps can stop in the middle of a long tag and
+ * go on with it on its next step. A tag read whole is parsed by {@link NumberScanner} at
+ * once instead, which splits long tags between threads.
+ *
+ * @author Ethan Toney
+ */
+public class NumberListReader {
+
+	/**
+	 * Number of numbers parsed between two looks at the deadline
+	 */
+	public static final int CHUNK_SIZE = 16384;
+
+	private final NumberScanner scanner;
+	// Number of numbers expected, -1 to read every number of the tag
+	private final int length;
+	// Array being filled, only one of them is used
+	private float[] floats;
+	private int[] ints;
+	private int size = 0;
+	private boolean done = false;
+
+	private NumberListReader( NumberScanner scanner, int length, boolean is_float ){
+		this.scanner = scanner;
+		this.length = length;
+		int capacity = ( length >= 0 ) ? length : 64;
+		if( is_float )
+			floats = new float[capacity];
+		else
+			ints = new int[capacity];
+	}
+
+	/**
+	 * @param scanner - (NumberScanner) Scanner over the text of the tag.
+	 * @param length - (int) Number of floats to read, the rest of the tag is skipped. -1 to
+	 * read every float of the tag.
+	 * @return A reader of floats.
+	 */
+	public static NumberListReader ofFloats( NumberScanner scanner, int length ){
+		return new NumberListReader( scanner, length, true );
+	}
+
+	/**
+	 * @param scanner - (NumberScanner) Scanner over the text of the tag.
+	 * @param length - (int) Number of ints to read, the rest of the tag is skipped. -1 to
+	 * read every int of the tag.
+	 * @return A reader of ints.
+	 */
+	public static NumberListReader ofInts( NumberScanner scanner, int length ){
+		return new NumberListReader( scanner, length, false );
+	}
+
+	/**
+	 * Reads chunks of numbers until the tag is read or the deadline has passed. Always
+	 * reads at least one chunk.
+	 * @param deadline - (long) {@link System#nanoTime()} after which no more chunks are read.
+	 * @return True once the whole tag is read.
+	 * @throws DaeParseException Thrown if the tag holds less numbers than expected.
+	 */
+	public boolean read( long deadline ) throws DaeParseException {
+		while( !done ){
+			readChunk();
+			if( System.nanoTime() - deadline >= 0 )
+				break;
+		}
+		return done;
+	}
+
+	/**
+	 * Reads the rest of the tag at once.
+	 * @throws DaeParseException Thrown if the tag holds less numbers than expected.
+	 */
+	public void readWhole() throws DaeParseException {
+		if( !done && size == 0 ){
+			if( floats != null )
+				floats = ( length >= 0 ) ? scanner.readFloats(length) : scanner.readAllFloats();
+			else
+				ints = ( length >= 0 ) ? scanner.readInts(length) : scanner.readAllInts();
+			size = ( floats != null ) ? floats.length : ints.length;
+			done = true;
+		}
+		while( !done )
+			readChunk();
+	}
+
+	/**
+	 * @return True once the whole tag is read.
+	 */
+	public boolean isDone(){
+		return done;
+	}
+
+	/**
+	 * @return The floats read, <b>null</b> if this reader reads ints.
+	 */
+	public float[] getFloats(){
+		return floats;
+	}
+
+	/**
+	 * @return The ints read, <b>null</b> if this reader reads floats.
+	 */
+	public int[] getInts(){
+		return ints;
+	}
+
+	private void readChunk() throws DaeParseException {
+		int capacity = ( floats != null ) ? floats.length : ints.length;
+		if( size == capacity && length < 0 ){
+			if( floats != null )
+				floats = Arrays.copyOf(floats, capacity * 2);
+			else
+				ints = Arrays.copyOf(ints, capacity * 2);
+			capacity *= 2;
+		}
+
+		int requested = Math.min(CHUNK_SIZE, capacity - size);
+		int read = ( floats != null ) ? scanner.readFloats(floats, size, requested) : scanner.readInts(ints, size, requested);
+		size += read;
+		if( read < requested || size == length ){
+			if( size < length )
+				throw new DaeParseException("Expected "+length+" numbers but only found "+size+".");
+			scanner.skipRemaining();
+			if( length < 0 ){
+				if( floats != null )
+					floats = Arrays.copyOf(floats, size);
+				else
+					ints = Arrays.copyOf(ints, size);
+			}
+			done = true;
+		}
+	}
+
+}
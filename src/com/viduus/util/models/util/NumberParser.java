@@ -0,0 +1,316 @@
+package com.viduus.util.models.util;
+
+import java.math.BigInteger;
+
+/**
+ * Parses the decimal numbers found in Collada numeric arrays straight from a range of
+ * characters.
+ * <br><br>
+ * Floats are parsed with the Eisel-Lemire algorithm: the decimal significand is multiplied
+ * by a truncated 128 bit power of five and the correctly rounded float is read off the high
+ * bits of the product. The few inputs it cannot decide (more than 19 significant digits,
+ * products too close to a rounding boundary, or anything that is not a plain decimal) are
+ * handed to {@link Float#parseFloat(String)}, so every result is identical to it.
+ * <br><br>
+ * Ints are parsed four digits at a time by packing four chars into the 16 bit lanes of a
+ * long and combining the lanes with two multiplications.
+ *
+ * @author Ethan Toney
+ */
+public class NumberParser {
+
+	/*
+	 * Properties of the float format
+	 */
+	private static final int MANTISSA_EXPLICIT_BITS = 23;
+	private static final int MINIMUM_EXPONENT = -127;
+	private static final int INFINITE_POWER = 0xFF;
+	private static final int MIN_EXPONENT_ROUND_TO_EVEN = -17;
+	private static final int MAX_EXPONENT_ROUND_TO_EVEN = 10;
+
+	// Any decimal exponent outside of this range rounds to zero or infinity
+	private static final int SMALLEST_POWER_OF_TEN = -64;
+	private static final int LARGEST_POWER_OF_TEN = 38;
+
+	// Every power of ten that is exactly representable as a float
+	private static final float[] FLOAT_POWERS_OF_TEN = {
+			1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	// Largest significand that a float holds without rounding
+	private static final long MAX_EXACT_MANTISSA = 1L << 24;
+
+	private static final int MAX_DIGITS = 19;
+
+	/**
+	 * 128 bit truncated powers of five normalized so that their highest bit is set, stored
+	 * as high and low 64 bit halves for every decimal exponent between
+	 * {@link #SMALLEST_POWER_OF_TEN} and {@link #LARGEST_POWER_OF_TEN}.
+	 */
+	private static final long[] POWERS_OF_FIVE = createPowersOfFive();
+
+	private static final long DIGIT_LANES = 0x0030003000300030L;
+	private static final long LANE_HIGH_BITS = 0xFFF0FFF0FFF0FFF0L;
+	private static final long LANE_SIX = 0x0006000600060006L;
+
+	/**
+	 * Parses a decimal float from a range of characters.
+	 *
+	 * @param chars - (char[]) Characters holding the number.
+	 * @param start - (int) Index of the first character of the number.
+	 * @param end - (int) Index after the last character of the number.
+	 * @return The correctly rounded float, the same value {@link Float#parseFloat(String)}
+	 * returns.
+	 * @throws NumberFormatException Thrown if the characters are not a valid float.
+	 */
+	public static float parseFloat( char[] chars, int start, int end ){
+		int i = start;
+		boolean negative = false;
+		if( i < end && (chars[i] == '-' || chars[i] == '+') )
+			negative = chars[i++] == '-';
+
+		long mantissa = 0;
+		int digits = 0;
+		long exponent = 0;
+		boolean truncated = false, has_digits = false;
+
+		// Integer part, leading zeros do not count as significant digits
+		for( ; i < end ; i++ ){
+			int digit = chars[i] - '0';
+			if( digit < 0 || digit > 9 )
+				break;
+			has_digits = true;
+			if( digits < MAX_DIGITS ){
+				mantissa = mantissa * 10 + digit;
+				if( mantissa != 0 )
+					digits++;
+			}else{
+				exponent++;
+				truncated |= digit != 0;
+			}
+		}
+
+		// Fraction part
+		if( i < end && chars[i] == '.' ){
+			for( i++ ; i < end ; i++ ){
+				int digit = chars[i] - '0';
+				if( digit < 0 || digit > 9 )
+					break;
+				has_digits = true;
+				if( digits < MAX_DIGITS ){
+					mantissa = mantissa * 10 + digit;
+					exponent--;
+					if( mantissa != 0 )
+						digits++;
+				}else{
+					truncated |= digit != 0;
+				}
+			}
+		}
+
+		// Exponent part
+		if( has_digits && i < end && (chars[i] == 'e' || chars[i] == 'E') ){
+			i++;
+			boolean negative_exponent = false;
+			if( i < end && (chars[i] == '-' || chars[i] == '+') )
+				negative_exponent = chars[i++] == '-';
+			long exponent_value = 0;
+			int exponent_start = i;
+			for( ; i < end ; i++ ){
+				int digit = chars[i] - '0';
+				if( digit < 0 || digit > 9 )
+					break;
+				if( exponent_value < 0x10000000L )
+					exponent_value = exponent_value * 10 + digit;
+			}
+			if( i == exponent_start )
+				has_digits = false;
+			exponent += negative_exponent ? -exponent_value : exponent_value;
+		}
+
+		if( !has_digits || i != end || truncated )
+			return Float.parseFloat( new String(chars, start, end - start) );
+
+		// Exact when both operands are exact floats since float math rounds correctly
+		if( Long.compareUnsigned(mantissa, MAX_EXACT_MANTISSA) <= 0 && exponent >= -10 && exponent <= 10 ){
+			float value = mantissa;
+			value = ( exponent < 0 ) ? value / FLOAT_POWERS_OF_TEN[(int) -exponent] : value * FLOAT_POWERS_OF_TEN[(int) exponent];
+			return negative ? -value : value;
+		}
+
+		int bits = computeFloatBits(mantissa, exponent);
+		if( bits < 0 )
+			return Float.parseFloat( new String(chars, start, end - start) );
+		return Float.intBitsToFloat( negative ? bits | 0x80000000 : bits );
+	}
+
+	/**
+	 * Finds the float closest to w * 10^q using the Eisel-Lemire algorithm.
+	 *
+	 * @param w - (long) Decimal significand, treated as unsigned.
+	 * @param q - (long) Decimal exponent.
+	 * @return The bits of the positive float, or -1 if the result could not be decided
+	 * and a slower exact parser has to be used.
+	 */
+	private static int computeFloatBits( long w, long q ){
+		if( w == 0 || q < SMALLEST_POWER_OF_TEN )
+			return 0;
+		if( q > LARGEST_POWER_OF_TEN )
+			return INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+
+		int lz = Long.numberOfLeadingZeros(w);
+		w <<= lz;
+
+		// Multiply by the truncated power of five, only using its low half when the high
+		// half leaves the bits we need undecided
+		int index = 2 * (int) (q - SMALLEST_POWER_OF_TEN);
+		long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+		long low = w * POWERS_OF_FIVE[index];
+		long precision_mask = 0xFFFFFFFFFFFFFFFFL >>> (MANTISSA_EXPLICIT_BITS + 3);
+		if( (high & precision_mask) == precision_mask ){
+			long second_high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+			low += second_high;
+			if( Long.compareUnsigned(second_high, low) > 0 )
+				high++;
+		}
+
+		// The truncated power of five may have been too small to decide the rounding
+		if( low == 0xFFFFFFFFFFFFFFFFL && (q < -27 || q > 55) )
+			return -1;
+
+		int upper_bit = (int) (high >>> 63);
+		int shift = upper_bit + 64 - MANTISSA_EXPLICIT_BITS - 3;
+		long mantissa = high >>> shift;
+		int power2 = (int) ((((152170 + 65536) * q) >> 16) + 63) + upper_bit - lz - MINIMUM_EXPONENT;
+
+		// Subnormal result
+		if( power2 <= 0 ){
+			if( -power2 + 1 >= 64 )
+				return 0;
+			mantissa >>>= -power2 + 1;
+			mantissa += (mantissa & 1);
+			mantissa >>>= 1;
+			power2 = ( mantissa < (1L << MANTISSA_EXPLICIT_BITS) ) ? 0 : 1;
+			return (power2 << MANTISSA_EXPLICIT_BITS) | (int) (mantissa & ((1L << MANTISSA_EXPLICIT_BITS) - 1));
+		}
+
+		// Exactly halfway between two floats, round to even
+		if( Long.compareUnsigned(low, 1) <= 0 && q >= MIN_EXPONENT_ROUND_TO_EVEN && q <= MAX_EXPONENT_ROUND_TO_EVEN && (mantissa & 3) == 1 ){
+			if( (mantissa << shift) == high )
+				mantissa &= ~1L;
+		}
+
+		mantissa += (mantissa & 1);
+		mantissa >>>= 1;
+		if( mantissa >= (2L << MANTISSA_EXPLICIT_BITS) ){
+			mantissa = (1L << MANTISSA_EXPLICIT_BITS);
+			power2++;
+		}
+		mantissa &= ~(1L << MANTISSA_EXPLICIT_BITS);
+
+		if( power2 >= INFINITE_POWER )
+			return INFINITE_POWER << MANTISSA_EXPLICIT_BITS;
+		return (power2 << MANTISSA_EXPLICIT_BITS) | (int) mantissa;
+	}
+
+	/**
+	 * Parses a decimal int from a range of characters.
+	 *
+	 * @param chars - (char[]) Characters holding the number.
+	 * @param start - (int) Index of the first character of the number.
+	 * @param end - (int) Index after the last character of the number.
+	 * @return The parsed number.
+	 * @throws NumberFormatException Thrown if the characters are not a valid int.
+	 */
+	public static int parseInt( char[] chars, int start, int end ){
+		int i = start;
+		boolean negative = false;
+		if( i < end && (chars[i] == '-' || chars[i] == '+') )
+			negative = chars[i++] == '-';
+		if( i == end )
+			throw numberFormatException(chars, start, end);
+		while( end - i > 1 && chars[i] == '0' )
+			i++;
+		if( end - i > 18 )
+			throw numberFormatException(chars, start, end);
+
+		long result = 0;
+
+		// Four digits at a time
+		while( end - i >= 4 ){
+			long chunk = chars[i] | (long) chars[i+1] << 16 | (long) chars[i+2] << 32 | (long) chars[i+3] << 48;
+			if( (chunk & LANE_HIGH_BITS) != DIGIT_LANES || ((chunk + LANE_SIX) & LANE_HIGH_BITS) != DIGIT_LANES )
+				throw numberFormatException(chars, start, end);
+			result = result * 10000 + parseFourDigits(chunk - DIGIT_LANES);
+			i += 4;
+		}
+
+		// Remaining digits
+		for( ; i < end ; i++ ){
+			int digit = chars[i] - '0';
+			if( digit < 0 || digit > 9 )
+				throw numberFormatException(chars, start, end);
+			result = result * 10 + digit;
+		}
+
+		result = negative ? -result : result;
+		if( result < Integer.MIN_VALUE || result > Integer.MAX_VALUE )
+			throw numberFormatException(chars, start, end);
+		return (int) result;
+	}
+
+	/**
+	 * Combines four digits held in the 16 bit lanes of a long, first digit in the lowest
+	 * lane, into their decimal value.
+	 */
+	private static long parseFourDigits( long digits ){
+		// Lane 0 becomes d0*10+d1 and lane 2 becomes d2*10+d3
+		long pairs = (digits * 10 + (digits >>> 16)) & 0x0000FFFF0000FFFFL;
+		return (pairs & 0xFFFF) * 100 + (pairs >>> 32);
+	}
+
+	private static NumberFormatException numberFormatException( char[] chars, int start, int end ){
+		return new NumberFormatException("For input string: \""+new String(chars, start, end - start)+"\"");
+	}
+
+	/**
+	 * @return The high 64 bits of the unsigned 128 bit product of a and b.
+	 */
+	private static long unsignedMultiplyHigh( long a, long b ){
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+
+	/**
+	 * Builds the truncated 128 bit powers of five used by {@link #computeFloatBits(long, long)}.
+	 * Negative powers are stored as a rounded up reciprocal.
+	 */
+	private static long[] createPowersOfFive(){
+		BigInteger two_128 = BigInteger.ONE.shiftLeft(128);
+		BigInteger two_127 = BigInteger.ONE.shiftLeft(127);
+		BigInteger mask_64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		long[] result = new long[ 2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1) ];
+
+		for( int q = SMALLEST_POWER_OF_TEN ; q <= LARGEST_POWER_OF_TEN ; q++ ){
+			BigInteger value;
+			if( q >= 0 ){
+				value = BigInteger.valueOf(5).pow(q);
+				while( value.compareTo(two_127) < 0 )
+					value = value.shiftLeft(1);
+				while( value.compareTo(two_128) >= 0 )
+					value = value.shiftRight(1);
+			}else{
+				BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+				int z = power5.subtract(BigInteger.ONE).bitLength();
+				int b = ( q >= -27 ) ? z + 127 : 2 * z + 128;
+				value = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+				while( value.compareTo(two_128) >= 0 )
+					value = value.shiftRight(1);
+			}
+			int index = 2 * (q - SMALLEST_POWER_OF_TEN);
+			result[index] = value.shiftRight(64).longValue();
+			result[index + 1] = value.and(mask_64).longValue();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,384 @@
+package com.viduus.util.models.util;
+
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * Reads whitespace separated numbers out of the text of a tag such as &lt;float_array&gt;,
+ * &lt;p&gt;, &lt;v&gt; or &lt;vcount&gt;. The text is copied in blocks into a reusable
+ * character buffer and every number is parsed straight from that buffer, so no String is
+ * created per number, see {@link NumberParser}. Any xml whitespace (spaces, tabs and line breaks, repeated or not)
+ * separates numbers.
+ *
+ * @author Ethan Toney
+ */
+public class NumberScanner {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final char[] NO_CHARS = new char[0];
+
+	/*
+	 * Buffer of the last scanner that read its tag to the end on each thread. The next
+	 * scanner on the thread takes it instead of allocating one, which adds up when loading
+	 * many small files. A buffer is only ever used by one scanner at a time.
+	 */
+	private static final ThreadLocal<char[]> spare_buffers = new ThreadLocal<>();
+
+	// Source when scanning a String
+	private final String text;
+	private int text_position = 0;
+
+	// Source when scanning the text of a tag from a stream
+	private final XMLStreamReader reader;
+	private int event_position = 0;
+	private boolean reader_done = false;
+
+	private char[] buffer;
+	private int position = 0, limit = 0;
+
+	/**
+	 * Creates a scanner over the given text. Used with the text content of DOM nodes.
+	 * @param text - (String) The text to read numbers from.
+	 */
+	public NumberScanner( String text ){
+		this.text = text;
+		this.reader = null;
+		this.buffer = takeBuffer( Math.max(16, Math.min(BUFFER_SIZE, text.length())) );
+	}
+
+	/**
+	 * Creates a scanner over the text of the tag a stream reader is positioned on. The
+	 * scanner consumes the stream up to and including the tag's end tag.
+	 * @param reader - (XMLStreamReader) Reader positioned on a start tag.
+	 */
+	public NumberScanner( XMLStreamReader reader ){
+		this.text = null;
+		this.reader = reader;
+		this.buffer = takeBuffer( BUFFER_SIZE );
+	}
+
+	/**
+	 * @return True if there is another number left to read.
+	 * @throws DaeParseException
+	 */
+	public boolean hasNext() throws DaeParseException {
+		while( true ){
+			while( position < limit && isWhitespace(buffer[position]) )
+				position++;
+			if( position < limit )
+				return true;
+			if( !fill() )
+				return false;
+		}
+	}
+
+	/**
+	 * Reads the next number as a float.
+	 * @return The parsed number.
+	 * @throws DaeParseException Thrown if there are no numbers left.
+	 */
+	public float nextFloat() throws DaeParseException {
+		if( !hasNext() )
+			throw new DaeParseException("Expected another number but reached the end of the tag.");
+		int end = findTokenEnd();
+		float result = NumberParser.parseFloat(buffer, position, end);
+		position = end;
+		return result;
+	}
+
+	/**
+	 * Reads the next number as an int.
+	 * @return The parsed number.
+	 * @throws DaeParseException Thrown if there are no numbers left.
+	 */
+	public int nextInt() throws DaeParseException {
+		if( !hasNext() )
+			throw new DaeParseException("Expected another number but reached the end of the tag.");
+		int end = findTokenEnd();
+		int result = NumberParser.parseInt(buffer, position, end);
+		position = end;
+		return result;
+	}
+
+	/**
+	 * Reads exactly <i>length</i> floats and then skips whatever is left in the tag.
+	 * @param length - (int) Number of floats to read.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the tag holds less than <i>length</i> numbers.
+	 */
+	public float[] readFloats( int length ) throws DaeParseException {
+		if( ParallelNumberParser.isWorthSplitting(length) ){
+			readRemainingText();
+			float[] result = ParallelNumberParser.parseFloats(buffer, position, limit, length);
+			skipRemaining();
+			return result;
+		}
+		
+		float[] result = new float[length];
+		for( int i=0 ; i<length ; i++ ){
+			if( !hasNext() )
+				throw new DaeParseException("Expected "+length+" numbers but only found "+i+".");
+			result[i] = nextFloat();
+		}
+		skipRemaining();
+		return result;
+	}
+
+	/**
+	 * Reads exactly <i>length</i> ints and then skips whatever is left in the tag.
+	 * @param length - (int) Number of ints to read.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the tag holds less than <i>length</i> numbers.
+	 */
+	public int[] readInts( int length ) throws DaeParseException {
+		if( ParallelNumberParser.isWorthSplitting(length) ){
+			readRemainingText();
+			int[] result = ParallelNumberParser.parseInts(buffer, position, limit, length);
+			skipRemaining();
+			return result;
+		}
+		
+		int[] result = new int[length];
+		for( int i=0 ; i<length ; i++ ){
+			if( !hasNext() )
+				throw new DaeParseException("Expected "+length+" numbers but only found "+i+".");
+			result[i] = nextInt();
+		}
+		skipRemaining();
+		return result;
+	}
+
+	/**
+	 * Reads exactly <i>length</i> ints, narrowed to shorts, and then skips whatever is left
+	 * in the tag.
+	 * @param length - (int) Number of shorts to read.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the tag holds less than <i>length</i> numbers.
+	 */
+	public short[] readShorts( int length ) throws DaeParseException {
+		if( ParallelNumberParser.isWorthSplitting(length) ){
+			readRemainingText();
+			short[] result = ParallelNumberParser.parseShorts(buffer, position, limit, length);
+			skipRemaining();
+			return result;
+		}
+		
+		short[] result = new short[length];
+		for( int i=0 ; i<length ; i++ ){
+			if( !hasNext() )
+				throw new DaeParseException("Expected "+length+" numbers but only found "+i+".");
+			result[i] = (short) nextInt();
+		}
+		skipRemaining();
+		return result;
+	}
+	
+	/**
+	 * Reads up to <i>length</i> floats into part of an array, so that a long tag can be read
+	 * a part at a time. The rest of the tag is left for the next call.
+	 * @param result - (float[]) Array receiving the numbers.
+	 * @param offset - (int) Position of the first number read in the array.
+	 * @param length - (int) Largest number of floats read.
+	 * @return The number of floats read, less than <i>length</i> only once the tag has no
+	 * numbers left.
+	 * @throws DaeParseException
+	 */
+	public int readFloats( float[] result, int offset, int length ) throws DaeParseException {
+		for( int i=0 ; i<length ; i++ ){
+			if( !hasNext() )
+				return i;
+			result[offset + i] = nextFloat();
+		}
+		return length;
+	}
+
+	/**
+	 * Reads up to <i>length</i> ints into part of an array, so that a long tag can be read
+	 * a part at a time. The rest of the tag is left for the next call.
+	 * @param result - (int[]) Array receiving the numbers.
+	 * @param offset - (int) Position of the first number read in the array.
+	 * @param length - (int) Largest number of ints read.
+	 * @return The number of ints read, less than <i>length</i> only once the tag has no
+	 * numbers left.
+	 * @throws DaeParseException
+	 */
+	public int readInts( int[] result, int offset, int length ) throws DaeParseException {
+		for( int i=0 ; i<length ; i++ ){
+			if( !hasNext() )
+				return i;
+			result[offset + i] = nextInt();
+		}
+		return length;
+	}
+
+	/**
+	 * Reads every float that is left in the tag.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException
+	 */
+	public float[] readAllFloats() throws DaeParseException {
+		float[] result = new float[64];
+		int size = 0;
+		while( hasNext() ){
+			if( size == result.length )
+				result = Arrays.copyOf(result, size * 2);
+			result[size++] = nextFloat();
+		}
+		releaseBuffer();
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * Reads every int that is left in the tag.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException
+	 */
+	public int[] readAllInts() throws DaeParseException {
+		int[] result = new int[64];
+		int size = 0;
+		while( hasNext() ){
+			if( size == result.length )
+				result = Arrays.copyOf(result, size * 2);
+			result[size++] = nextInt();
+		}
+		releaseBuffer();
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * Discards the rest of the text. When reading from a stream this leaves the reader on
+	 * the end tag of the tag that was being read.
+	 * @throws DaeParseException
+	 */
+	public void skipRemaining() throws DaeParseException {
+		releaseBuffer();
+		if( reader == null ){
+			text_position = text.length();
+			return;
+		}
+		try{
+			while( !reader_done )
+				advanceReader();
+		}catch( XMLStreamException e ){
+			throw new DaeParseException("Could not read number list.", e);
+		}
+	}
+
+	private static char[] takeBuffer( int length ){
+		char[] spare = spare_buffers.get();
+		if( spare != null && spare.length >= length ){
+			spare_buffers.set(null);
+			return spare;
+		}
+		return new char[length];
+	}
+
+	/**
+	 * Hands the buffer to the next scanner of this thread once nothing is left to read.
+	 */
+	private void releaseBuffer(){
+		// Buffers grown for very long tags are left to the garbage collector
+		if( buffer.length == BUFFER_SIZE )
+			spare_buffers.set(buffer);
+		buffer = NO_CHARS;
+		position = limit = 0;
+	}
+
+	/**
+	 * Pulls the rest of the text into the buffer so it can be split between threads. The
+	 * buffer grows to hold the whole rest of the tag, two bytes per character, and is
+	 * dropped by {@link #skipRemaining()} once the numbers are parsed.
+	 */
+	private void readRemainingText() throws DaeParseException {
+		if( reader == null && buffer.length - limit < text.length() - text_position ){
+			// The whole text is known up front, so grow the buffer only once
+			buffer = Arrays.copyOf(buffer, limit + text.length() - text_position);
+		}
+		while( fill() );
+	}
+
+	/**
+	 * Returns the index right after the number that starts at the current position.
+	 * Pulls more text into the buffer if the number continues past its end.
+	 */
+	private int findTokenEnd() throws DaeParseException {
+		int end = position;
+		while( true ){
+			while( end < limit && !isWhitespace(buffer[end]) )
+				end++;
+			if( end < limit )
+				return end;
+
+			// fill() moves the current token to the front of the buffer
+			int token_length = end - position;
+			boolean has_more = fill();
+			end = position + token_length;
+			if( !has_more )
+				return end;
+		}
+	}
+
+	/**
+	 * Moves the unread part of the buffer to the front and appends more text after it.
+	 * @return False if there is no more text to read.
+	 */
+	private boolean fill() throws DaeParseException {
+		if( position > 0 ){
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		if( limit == buffer.length )
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+		if( reader == null ){
+			int length = Math.min( buffer.length - limit, text.length() - text_position );
+			if( length <= 0 )
+				return false;
+			text.getChars(text_position, text_position + length, buffer, limit);
+			text_position += length;
+			limit += length;
+			return true;
+		}
+
+		try{
+			while( !reader_done ){
+				if( isTextEvent(reader.getEventType()) ){
+					int length = reader.getTextCharacters(event_position, buffer, limit, buffer.length - limit);
+					if( length > 0 ){
+						event_position += length;
+						limit += length;
+						return true;
+					}
+				}
+				advanceReader();
+			}
+		}catch( XMLStreamException e ){
+			throw new DaeParseException("Could not read number list.", e);
+		}
+		return false;
+	}
+
+	private void advanceReader() throws XMLStreamException, DaeParseException {
+		int event = reader.next();
+		event_position = 0;
+		if( event == XMLStreamConstants.END_ELEMENT )
+			reader_done = true;
+		else if( event == XMLStreamConstants.START_ELEMENT )
+			throw new DaeParseException("Unexpected <"+reader.getLocalName()+"> tag inside of a number list.");
+	}
+
+	private static boolean isTextEvent( int event ){
+		return event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE;
+	}
+
+	private static boolean isWhitespace( char c ){
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.viduus.util.models.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.loader.LoadCancelledException;
+import com.viduus.util.models.loader.LoadMonitor;
+
+/**
+ * Parses very large whitespace separated number lists, such as the &lt;float_array&gt; or
+ * &lt;p&gt; of a scanned mesh, on the common {@link ForkJoinPool}.
+ * <br><br>
+ * The text is cut into chunks at whitespace boundaries. The numbers in every chunk are
+ * counted in parallel, the counts give each chunk the index of its first number and then
+ * every chunk is parsed in parallel straight into the final array.
+ * <br><br>
+ * The tasks enter the monitor of the load that started the parse, and every chunk is
+ * skipped once that load is cancelled or past its deadline, so a cancelled load stops
+ * after the chunks already being parsed. The text has to be in memory whole to be split,
+ * so {@link NumberScanner} copies the rest of a tag into one char array first, which costs
+ * two bytes per character of the tag on top of the parsed array until the parse is done.
+ *
+ * @author Ethan Toney
+ */
+public class ParallelNumberParser {
+
+	/**
+	 * Lists with less numbers than this are parsed on the calling thread.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 17;
+
+	// Number of characters given to a single task
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private static final int COUNT = 0, FLOATS = 1, INTS = 2, SHORTS = 3;
+
+	/**
+	 * @param length - (int) Number of numbers that are going to be read.
+	 * @return True if a list of this length should be parsed in parallel.
+	 */
+	public static boolean isWorthSplitting( int length ){
+		return length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Parses the first <i>length</i> floats from a range of characters.
+	 *
+	 * @param text - (char[]) Characters holding the numbers.
+	 * @param start - (int) Index of the first character.
+	 * @param end - (int) Index after the last character.
+	 * @param length - (int) Number of floats to read. Any numbers after them are ignored.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the text holds less than <i>length</i> numbers.
+	 * @throws LoadCancelledException Thrown if the load of the calling thread was cancelled.
+	 */
+	public static float[] parseFloats( char[] text, int start, int end, int length ) throws DaeParseException {
+		float[] result = new float[length];
+		parse(text, start, end, length, FLOATS, result);
+		return result;
+	}
+
+	/**
+	 * Parses the first <i>length</i> ints from a range of characters.
+	 *
+	 * @param text - (char[]) Characters holding the numbers.
+	 * @param start - (int) Index of the first character.
+	 * @param end - (int) Index after the last character.
+	 * @param length - (int) Number of ints to read. Any numbers after them are ignored.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the text holds less than <i>length</i> numbers.
+	 * @throws LoadCancelledException Thrown if the load of the calling thread was cancelled.
+	 */
+	public static int[] parseInts( char[] text, int start, int end, int length ) throws DaeParseException {
+		int[] result = new int[length];
+		parse(text, start, end, length, INTS, result);
+		return result;
+	}
+
+	/**
+	 * Parses the first <i>length</i> ints from a range of characters, narrowed to shorts.
+	 *
+	 * @param text - (char[]) Characters holding the numbers.
+	 * @param start - (int) Index of the first character.
+	 * @param end - (int) Index after the last character.
+	 * @param length - (int) Number of shorts to read. Any numbers after them are ignored.
+	 * @return The parsed numbers.
+	 * @throws DaeParseException Thrown if the text holds less than <i>length</i> numbers.
+	 * @throws LoadCancelledException Thrown if the load of the calling thread was cancelled.
+	 */
+	public static short[] parseShorts( char[] text, int start, int end, int length ) throws DaeParseException {
+		short[] result = new short[length];
+		parse(text, start, end, length, SHORTS, result);
+		return result;
+	}
+
+	private static void parse( char[] text, int start, int end, int length, int mode, Object result ) throws DaeParseException {
+		// Cut the text at the first whitespace after every CHUNK_SIZE characters
+		int chunk_count = Math.max(1, (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		int[] bounds = new int[ chunk_count + 1 ];
+		bounds[0] = start;
+		int chunks = 1;
+		for( int i=1 ; i<chunk_count ; i++ ){
+			int split = Math.max(start + i * CHUNK_SIZE, bounds[chunks - 1] + 1);
+			while( split < end && !isWhitespace(text[split]) )
+				split++;
+			if( split >= end )
+				break;
+			bounds[chunks++] = split;
+		}
+		bounds[chunks] = end;
+
+		// Find the index of the first number in every chunk
+		LoadMonitor monitor = LoadMonitor.getCurrent();
+		int[] offsets = new int[ chunks + 1 ];
+		ForkJoinPool.commonPool().invoke(new ChunkTask(monitor, text, bounds, offsets, 0, chunks, COUNT, null));
+		// Chunks of a cancelled load are skipped, so the counts are only whole if it was not
+		LoadMonitor.checkCurrent();
+		for( int i=0 ; i<chunks ; i++ )
+			offsets[i + 1] += offsets[i];
+		if( offsets[chunks] < length )
+			throw new DaeParseException("Expected "+length+" numbers but only found "+offsets[chunks]+".");
+
+		ForkJoinPool.commonPool().invoke(new ChunkTask(monitor, text, bounds, offsets, 0, chunks, mode, result));
+		LoadMonitor.checkCurrent();
+	}
+
+	/**
+	 * Counts or parses the numbers of a range of chunks, splitting the range in half until
+	 * a single chunk is left. The chunk is parsed inside the monitor of the load, and is
+	 * skipped if the load was cancelled.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// Monitor of the load that started the parse, null if there is none
+		private final LoadMonitor monitor;
+		private final char[] text;
+		private final int[] bounds, offsets;
+		private final int first_chunk, last_chunk, mode;
+		private final Object result;
+
+		ChunkTask( LoadMonitor monitor, char[] text, int[] bounds, int[] offsets, int first_chunk, int last_chunk, int mode, Object result ){
+			this.monitor = monitor;
+			this.text = text;
+			this.bounds = bounds;
+			this.offsets = offsets;
+			this.first_chunk = first_chunk;
+			this.last_chunk = last_chunk;
+			this.mode = mode;
+			this.result = result;
+		}
+
+		@Override
+		protected void compute(){
+			if( last_chunk - first_chunk > 1 ){
+				int middle = (first_chunk + last_chunk) >>> 1;
+				invokeAll( new ChunkTask(monitor, text, bounds, offsets, first_chunk, middle, mode, result),
+						   new ChunkTask(monitor, text, bounds, offsets, middle, last_chunk, mode, result) );
+				return;
+			}
+
+			if( monitor != null && (monitor.isCancelled() || monitor.isPastDeadline()) )
+				return;
+			LoadMonitor previous = LoadMonitor.enter(monitor);
+			try{
+				parseChunk();
+			}finally{
+				LoadMonitor.exit(previous);
+			}
+		}
+
+		private void parseChunk(){
+
+			int position = bounds[first_chunk], end = bounds[first_chunk + 1];
+			int index = ( mode == COUNT ) ? 0 : offsets[first_chunk];
+			while( true ){
+				while( position < end && isWhitespace(text[position]) )
+					position++;
+				if( position >= end )
+					break;
+				int token_end = position;
+				while( token_end < end && !isWhitespace(text[token_end]) )
+					token_end++;
+
+				switch( mode ){
+				case COUNT:
+					break;
+				case FLOATS:
+					if( index >= ((float[]) result).length )
+						return;
+					((float[]) result)[index] = NumberParser.parseFloat(text, position, token_end);
+					break;
+				case INTS:
+					if( index >= ((int[]) result).length )
+						return;
+					((int[]) result)[index] = NumberParser.parseInt(text, position, token_end);
+					break;
+				case SHORTS:
+					if( index >= ((short[]) result).length )
+						return;
+					((short[]) result)[index] = (short) NumberParser.parseInt(text, position, token_end);
+					break;
+				}
+				index++;
+				position = token_end;
+			}
+
+			if( mode == COUNT )
+				offsets[first_chunk + 1] = index;
+		}
+
+	}
+
+	private static boolean isWhitespace( char c ){
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+}
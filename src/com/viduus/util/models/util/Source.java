@@ -3,13 +3,19 @@
  */
 package com.viduus.util.models.util;
 
+import java.io.IOException;
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
+import com.viduus.util.models.cache.ModelCacheReader;
+import com.viduus.util.models.cache.ModelCacheWriter;
 import com.viduus.util.models.controller.Joint;
 import com.viduus.util.models.controller.VertexWeights;
 import com.viduus.util.models.loader.DaeParseException;
@@ -21,8 +27,11 @@ import com.viduus.util.models.loader.DaeParseException;
  */
 public class Source {
 
+	// Type ids of the data arrays in a model cache
+	private static final int FLOAT_ARRAY = 0, MAT4_ARRAY = 1, NAME_ARRAY = 2;
+
 	private final String id;
-	public final DataArray<?> array;
+	public final DataArray array;
 
 	/**
 	 * @param curr_source
@@ -90,6 +99,98 @@ public class Source {
 		}
 	}
 
+	/**
+	 * Creates a source from a stream reader positioned on a &lt;source&gt; start tag. The
+	 * reader is left on the matching end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public Source(final XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		this( new SourceReader(reader).readWhole() );
+	}
+
+	private Source(final SourceReader read) throws DaeParseException {
+		id = read.getId();
+		array = read.getArray();
+	}
+
+	/**
+	 * Creates a source around a data array that was already read.
+	 * 
+	 * @param id - (String) Id of the source.
+	 * @param array - (DataArray) The data of the source.
+	 */
+	Source(final String id, final DataArray array) {
+		this.id = id;
+		this.array = array;
+	}
+
+	/**
+	 * Reads a source back from a model cache.
+	 * 
+	 * @param reader - (ModelCacheReader) The cache being read.
+	 * @throws DaeParseException
+	 */
+	public Source(final ModelCacheReader reader) throws DaeParseException {
+		id = reader.readString();
+		
+		int type = reader.readByte();
+		int count = reader.readInt();
+		int stride = reader.readInt();
+		if( type == FLOAT_ARRAY ){
+			float[] numbers = reader.readFloats();
+			checkLength( ( numbers == null ) ? -1 : numbers.length, count, stride );
+			array = new FloatArray( numbers, count, stride );
+		}else if( type == MAT4_ARRAY ){
+			float[] numbers = reader.readFloats();
+			checkLength( ( numbers == null ) ? -1 : numbers.length, count, stride );
+			array = new Mat4Array( numbers, count, stride );
+		}else if( type == NAME_ARRAY ){
+			String[] names = reader.readStrings();
+			checkLength( ( names == null ) ? -1 : names.length, count, stride );
+			array = new NameArray( names, count, stride );
+		}else{
+			throw new DaeParseException("Unknown data array type "+type+" in model cache.");
+		}
+	}
+
+	/**
+	 * Checks that a cached array holds the values of its count and stride.
+	 */
+	private static void checkLength( int length, int count, int stride ) throws DaeParseException {
+		if( count < 0 || stride < 0 || length < (long) count * stride )
+			throw new DaeParseException("Cached source holds "+length+" values instead of "+count+"x"+stride+".");
+	}
+
+	/**
+	 * Writes this source to a model cache.
+	 * 
+	 * @param writer - (ModelCacheWriter) The cache being written.
+	 * @throws IOException
+	 */
+	public void write(ModelCacheWriter writer) throws IOException {
+		writer.writeString(id);
+		
+		if( array instanceof Mat4Array ){
+			writer.writeByte(MAT4_ARRAY);
+			writer.writeInt(array.count);
+			writer.writeInt(array.stride);
+			writer.writeFloats( ((Mat4Array) array).data );
+		}else if( array instanceof FloatArray ){
+			writer.writeByte(FLOAT_ARRAY);
+			writer.writeInt(array.count);
+			writer.writeInt(array.stride);
+			writer.writeFloats( ((FloatArray) array).data );
+		}else{
+			writer.writeByte(NAME_ARRAY);
+			writer.writeInt(array.count);
+			writer.writeInt(array.stride);
+			writer.writeStrings( ((NameArray) array).data );
+		}
+	}
+
 	/**
 	 * TODO
 	 * @return
@@ -98,6 +199,13 @@ public class Source {
 		return id;
 	}
 	
+	/**
+	 * @return The number of bytes taken up by the values of this source.
+	 */
+	public long getByteSize() {
+		return array.getByteSize();
+	}
+	
 	/**
 	 * 
 	 */
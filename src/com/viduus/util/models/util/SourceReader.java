@@ -0,0 +1,170 @@
+package com.viduus.util.models.util;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * Reads a &lt;source&gt; tag from a stream a part at a time, so that a load done in steps
+ * can stop in the middle of a large &lt;float_array&gt; and go on with it on its next
+ * step. Sources read whole parse their numbers like {@link Source#Source(XMLStreamReader)}.
+ *
+ * @author Ethan Toney
+ */
+public class SourceReader {
+
+	// Stream being read, null when parsing the text of an UnparsedSource
+	private final XMLStreamReader reader;
+	private final String id;
+
+	private boolean has_technique = false;
+	private NumberListReader float_list = null;
+	private String name_text = null;
+	private int stride = 0;
+	private int count = 0;
+	private boolean done = false;
+
+	/**
+	 * Creates a reader of the source a stream reader is positioned on. The reader is left
+	 * on the matching end tag once the source is read.
+	 *
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;source&gt; start tag.
+	 * @throws DaeParseException
+	 */
+	public SourceReader( XMLStreamReader reader ) throws DaeParseException {
+		if( !reader.getLocalName().equals("source") )
+			throw new DaeParseException("Source constructor must take a <source> tag.");
+
+		this.reader = reader;
+		this.id = LoaderFunctions.getAttribute(reader, "id");
+	}
+
+	/**
+	 * Creates a reader parsing the numbers of a source whose tag was already read.
+	 *
+	 * @param float_text - (String) Text of the float array, <b>null</b> if the source holds
+	 * names.
+	 * @param name_text - (String) Text of the name array.
+	 */
+	SourceReader( String id, String float_text, String name_text, int count, int stride ){
+		this.reader = null;
+		this.id = id;
+		this.has_technique = true;
+		this.name_text = name_text;
+		this.count = count;
+		this.stride = stride;
+		if( float_text != null )
+			float_list = NumberListReader.ofFloats(new NumberScanner(float_text), count*stride);
+	}
+
+	/**
+	 * Reads the source until it is done or the deadline has passed.
+	 *
+	 * @param deadline - (long) {@link System#nanoTime()} after which the rest of the source
+	 * is left for the next call.
+	 * @return True once the source is read.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public boolean read( long deadline ) throws DaeParseException, XMLStreamException {
+		return read( deadline, false );
+	}
+
+	/**
+	 * Reads the rest of the source at once.
+	 *
+	 * @return This reader.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public SourceReader readWhole() throws DaeParseException, XMLStreamException {
+		read( 0, true );
+		return this;
+	}
+
+	private boolean read( long deadline, boolean whole ) throws DaeParseException, XMLStreamException {
+		while( !done ){
+			if( float_list != null && !float_list.isDone() ){
+				if( whole )
+					float_list.readWhole();
+				else if( !float_list.read(deadline) )
+					return false;
+			}
+
+			if( reader != null && LoaderFunctions.nextChildElement(reader) ){
+				readElement();
+			}else{
+				// Check to make sure that all required Nodes exist
+				if( !has_technique || (float_list == null && name_text == null) )
+					throw new DaeParseException("Could not parse input data into a DataArray");
+				done = true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the child of the source the stream is positioned on, except for the numbers of
+	 * a float array which are read by the next calls.
+	 */
+	private void readElement() throws DaeParseException, XMLStreamException {
+		String element_name = reader.getLocalName();
+
+		if( element_name.equals("float_array") ){
+			String array_count = LoaderFunctions.getAttribute(reader, "count");
+			float_list = NumberListReader.ofFloats(new NumberScanner(reader), ( array_count != null ) ? Integer.parseInt(array_count) : -1);
+
+		}else if( element_name.equals("Name_array") ){
+			name_text = reader.getElementText();
+
+		}else if( element_name.equals("technique_common") ){
+			has_technique = true;
+			while( LoaderFunctions.nextChildElement(reader) ){
+				if( reader.getLocalName().equals("accessor") ){
+					stride = Integer.parseInt(LoaderFunctions.getAttribute(reader, "stride"));
+					count = Integer.parseInt(LoaderFunctions.getAttribute(reader, "count"));
+				}
+				LoaderFunctions.skipElement(reader);
+			}
+
+		}else{
+			LoaderFunctions.skipElement(reader);
+		}
+	}
+
+	/**
+	 * @return The id of the source.
+	 */
+	public String getId(){
+		return id;
+	}
+
+	/**
+	 * @return The source, once it is read.
+	 * @throws DaeParseException Thrown if the source holds less numbers than its accessor.
+	 */
+	public Source getSource() throws DaeParseException {
+		return new Source( id, getArray() );
+	}
+
+	/**
+	 * @return The data array of the source, once it is read.
+	 * @throws DaeParseException Thrown if the source holds less numbers than its accessor.
+	 */
+	DataArray getArray() throws DaeParseException {
+		if( !done )
+			throw new IllegalStateException("Source "+id+" is not read yet.");
+
+		// Read in the data into the float array
+		if( float_list != null ){
+			if( stride == 16 ){ // FIXME replace with actual float4x4 check
+				return new Mat4Array( float_list.getFloats(), count, stride );
+			}else{
+				return new FloatArray( float_list.getFloats(), count, stride );
+			}
+		}
+		return new NameArray( name_text, count, stride );
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.viduus.util.models.util;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.viduus.util.models.loader.DaeParseException;
+
+/**
+ * A &lt;source&gt; tag read from a stream whose numbers are not parsed yet. Used when it is
+ * only known after reading a source whether it is needed, so that skipped sources are
+ * never parsed into arrays.
+ *
+ * @author Ethan Toney
+ */
+public class UnparsedSource {
+
+	private final String id;
+	private final String float_text;
+	private final String name_text;
+	private final int stride;
+	private final int count;
+
+	/**
+	 * Reads a source from a stream reader positioned on a &lt;source&gt; start tag. The
+	 * reader is left on the matching end tag.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public UnparsedSource(final XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("source") )
+			throw new DaeParseException("Source constructor must take a <source> tag.");
+		
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		boolean has_technique = false;
+		String float_text = null;
+		String name_text = null;
+		int stride = 0;
+		int count = 0;
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String element_name = reader.getLocalName();
+			
+			if( element_name.equals("float_array") ){
+				float_text = reader.getElementText();
+				
+			}else if( element_name.equals("Name_array") ){
+				name_text = reader.getElementText();
+				
+			}else if( element_name.equals("technique_common") ){
+				has_technique = true;
+				while( LoaderFunctions.nextChildElement(reader) ){
+					if( reader.getLocalName().equals("accessor") ){
+						stride = Integer.parseInt(LoaderFunctions.getAttribute(reader, "stride"));
+						count = Integer.parseInt(LoaderFunctions.getAttribute(reader, "count"));
+					}
+					LoaderFunctions.skipElement(reader);
+				}
+				
+			}else{
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+		
+		// Check to make sure that all required Nodes exist
+		if( !has_technique || (float_text == null && name_text == null) ){
+			throw new DaeParseException("Could not parse input data into a DataArray");
+		}
+		
+		this.float_text = float_text;
+		this.name_text = name_text;
+		this.stride = stride;
+		this.count = count;
+	}
+	
+	/**
+	 * @return The id of the source.
+	 */
+	public String getId() {
+		return id;
+	}
+	
+	/**
+	 * Parses the numbers of the source.
+	 * 
+	 * @return The parsed source.
+	 * @throws DaeParseException
+	 */
+	public Source parse() throws DaeParseException {
+		DataArray array;
+		if( float_text != null ){
+			if( stride == 16 ){ // FIXME replace with actual float4x4 check
+				array = new Mat4Array( float_text, count, stride );
+			}else{
+				array = new FloatArray( float_text, count, stride );
+			}
+		}else{
+			array = new NameArray( name_text, count, stride );
+		}
+		return new Source( id, array );
+	}
+	
+	/**
+	 * @return A reader parsing the numbers of the source a part at a time.
+	 */
+	public SourceReader newParser() {
+		return new SourceReader( id, float_text, name_text, count, stride );
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.viduus.util.models.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The 64 bit xxHash function. Hashes several gigabytes per second which makes it cheap
+ * enough to fingerprint whole Collada files before loading them from a cache.
+ *
+ * @author Ethan Toney
+ */
+public class XxHash64 {
+
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+	private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+	private XxHash64(){}
+
+	/**
+	 * Hashes the remaining bytes of a buffer without changing its position.
+	 *
+	 * @param buffer - (ByteBuffer) The bytes to hash.
+	 * @param seed - (long) Seed of the hash.
+	 * @return The hash of the bytes.
+	 */
+	public static long hash( ByteBuffer buffer, long seed ){
+		ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		int length = in.remaining();
+		int i = 0;
+		long hash;
+
+		if( length >= 32 ){
+			long v1 = seed + PRIME_1 + PRIME_2;
+			long v2 = seed + PRIME_2;
+			long v3 = seed;
+			long v4 = seed - PRIME_1;
+			for( ; i <= length - 32 ; i += 32 ){
+				v1 = round(v1, in.getLong(i));
+				v2 = round(v2, in.getLong(i + 8));
+				v3 = round(v3, in.getLong(i + 16));
+				v4 = round(v4, in.getLong(i + 24));
+			}
+			hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			hash = mergeRound(hash, v1);
+			hash = mergeRound(hash, v2);
+			hash = mergeRound(hash, v3);
+			hash = mergeRound(hash, v4);
+		}else{
+			hash = seed + PRIME_5;
+		}
+		hash += length;
+
+		for( ; i <= length - 8 ; i += 8 )
+			hash = Long.rotateLeft(hash ^ round(0, in.getLong(i)), 27) * PRIME_1 + PRIME_4;
+		if( i <= length - 4 ){
+			hash = Long.rotateLeft(hash ^ ((in.getInt(i) & 0xFFFFFFFFL) * PRIME_1), 23) * PRIME_2 + PRIME_3;
+			i += 4;
+		}
+		for( ; i < length ; i++ )
+			hash = Long.rotateLeft(hash ^ ((in.get(i) & 0xFFL) * PRIME_5), 11) * PRIME_1;
+
+		return avalanche(hash);
+	}
+
+	/**
+	 * Hashes a single value, used to combine several hashes into one key.
+	 *
+	 * @param value - (long) The value to hash.
+	 * @param seed - (long) Seed of the hash, usually the hash of the values before it.
+	 * @return The hash of the value.
+	 */
+	public static long hash( long value, long seed ){
+		long hash = seed + PRIME_5 + 8;
+		hash = Long.rotateLeft(hash ^ round(0, value), 27) * PRIME_1 + PRIME_4;
+		return avalanche(hash);
+	}
+
+	private static long round( long accumulator, long input ){
+		accumulator += input * PRIME_2;
+		accumulator = Long.rotateLeft(accumulator, 31);
+		return accumulator * PRIME_1;
+	}
+
+	private static long mergeRound( long hash, long value ){
+		hash ^= round(0, value);
+		return hash * PRIME_1 + PRIME_4;
+	}
+
+	private static long avalanche( long hash ){
+		hash ^= hash >>> 33;
+		hash *= PRIME_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME_3;
+		hash ^= hash >>> 32;
+		return hash;
+	}
+
+}
@@ -5,6 +5,9 @@ package com.viduus.util.models.visual_scene;
 
 import java.util.HashMap;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -48,6 +51,37 @@ public class BindMaterial {
 		}
 	}
 	
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on a &lt;bind_material&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public BindMaterial(XMLStreamReader reader) throws DaeParseException, XMLStreamException{
+		if( !reader.getLocalName().equals("bind_material") )
+			throw new DaeParseException("BindMaterial must take a <bind_material> tag.");
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("technique_common") ){
+				processTechniqueCommon(reader);
+			}else{
+				// TODO Implement <technique>, <param> and <extra>
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+	}
+	
+	private void processTechniqueCommon(XMLStreamReader reader) throws XMLStreamException{
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("instance_material") ){
+				String symbol = LoaderFunctions.getAttribute(reader, "symbol");
+				String target = LoaderFunctions.getAttribute(reader, "target").substring(1);
+				if( symbol != null && target != null )
+					instance_materials.put(symbol, target);
+			}
+			LoaderFunctions.skipElement(reader);
+		}
+	}
+	
 	private void processTechniqueCommon(Node technique_common) throws DaeParseException{
 		if( technique_common.getNodeName().equals("bind_material") )
 			throw new DaeParseException("BindMaterial::processTechniqueCommon() must take a <technique_common> tag.");
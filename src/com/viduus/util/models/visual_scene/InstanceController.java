@@ -3,12 +3,16 @@
  */
 package com.viduus.util.models.visual_scene;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -44,6 +48,33 @@ public class InstanceController extends Instance {
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on an &lt;instance_controller&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public InstanceController(XMLStreamReader reader) throws DaeParseException, XMLStreamException{
+		if( !reader.getLocalName().equals("instance_controller") )
+			throw new DaeParseException("InstanceController must take a <instance_controller> tag.");
+		
+		reference_url = LoaderFunctions.getAttribute(reader, "url").substring(1);
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			
+			if( child_name.equals("skeleton") ){
+				skeleton_id = reader.getElementText().substring(1);
+				
+			}else if( child_name.equals("bind_material") ){
+				bind_material = new BindMaterial(reader);
+				
+			}else{
+				// TODO Implement <extra>
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.viduus.util.models.visual_scene.Instance#printData()
 	 */
@@ -3,12 +3,16 @@
  */
 package com.viduus.util.models.visual_scene;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.models.loader.DaeParseException;
+import com.viduus.util.models.util.LoaderFunctions;
 
 /**
  * 
@@ -40,6 +44,27 @@ public class InstanceGeometry extends Instance {
 		}
 	}
 
+	/**
+	 * @param reader - (XMLStreamReader) Stream positioned on an &lt;instance_geometry&gt; start tag.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public InstanceGeometry(XMLStreamReader reader) throws DaeParseException, XMLStreamException{
+		if( !reader.getLocalName().equals("instance_geometry") )
+			throw new DaeParseException("InstanceController must take a <instance_geometry> tag.");
+		
+		reference_url = LoaderFunctions.getAttribute(reader, "url").substring(1);
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			if( reader.getLocalName().equals("bind_material") ){
+				bind_material = new BindMaterial(reader);
+			}else{
+				// TODO Implement <extra>
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see com.viduus.util.models.visual_scene.Instance#printData()
 	 */
@@ -8,6 +8,9 @@ import java.util.List;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -16,6 +19,7 @@ import com.viduus.util.debug.OutputHandler;
 import com.viduus.util.math.Mat4;
 import com.viduus.util.models.loader.DaeParseException;
 import com.viduus.util.models.util.LoaderFunctions;
+import com.viduus.util.models.util.NumberScanner;
 
 /**
  * A scene node is the transformation that is necessary to get a normalized
@@ -47,7 +51,7 @@ public class SceneNode {
 		HashMap<String, HashMap<String, Node>> child_nodes = LoaderFunctions.loadAllChildNodes(curr_node);
 		
 		transform = new Mat4();
-		loadTransforms(child_nodes);
+		loadTransforms(getTransformNumbers(child_nodes));
 		
 		loadInstances(child_nodes);
 		
@@ -66,6 +70,63 @@ public class SceneNode {
 		}
 	}
 	
+	/**
+	 * Parses a new SceneNode from a stream reader positioned on a &lt;node&gt; start tag.
+	 * Children are keyed the same way {@link LoaderFunctions#loadAllChildNodes(Node)}
+	 * keys them so that instances and sub nodes end up in the same order as when parsed
+	 * from a DOM tree.
+	 * 
+	 * @param reader - (XMLStreamReader) The stream being parsed.
+	 * @throws DaeParseException
+	 * @throws XMLStreamException
+	 */
+	public SceneNode(XMLStreamReader reader) throws DaeParseException, XMLStreamException {
+		if( !reader.getLocalName().equals("node") )
+			throw new DaeParseException("SceneNode contructor must take a <node> tag.");
+		
+		name = LoaderFunctions.getAttribute(reader, "name");
+		id = LoaderFunctions.getAttribute(reader, "id");
+		
+		HashMap<String, HashMap<String, float[]>> transform_numbers = new HashMap<>();
+		HashMap<String, InstanceController> instance_controllers = new HashMap<>(1);
+		HashMap<String, InstanceGeometry> instance_geometries = new HashMap<>(1);
+		HashMap<String, SceneNode> nodes = new HashMap<>(1);
+		
+		while( LoaderFunctions.nextChildElement(reader) ){
+			String child_name = reader.getLocalName();
+			String child_id = LoaderFunctions.getAttribute(reader, "id");
+			if( child_id == null )
+				child_id = LoaderFunctions.getAttribute(reader, "sid");
+			
+			if( child_name.equals("matrix") || child_name.equals("translate") || child_name.equals("scale") || child_name.equals("rotate") ){
+				if( !transform_numbers.containsKey(child_name) )
+					transform_numbers.put(child_name, new HashMap<>(1));
+				HashMap<String, float[]> numbers = transform_numbers.get(child_name);
+				numbers.put( child_id != null ? child_id : child_name+"#"+numbers.size(), new NumberScanner(reader).readAllFloats() );
+				
+			}else if( child_name.equals("instance_controller") ){
+				instance_controllers.put( child_id != null ? child_id : child_name+"#"+instance_controllers.size(), new InstanceController(reader) );
+				
+			}else if( child_name.equals("instance_geometry") ){
+				instance_geometries.put( child_id != null ? child_id : child_name+"#"+instance_geometries.size(), new InstanceGeometry(reader) );
+				
+			}else if( child_name.equals("node") ){
+				nodes.put( child_id != null ? child_id : child_name+"#"+nodes.size(), new SceneNode(reader) );
+				
+			}else{
+				// TODO Implement <asset>, <extra> and the remaining instance tags
+				LoaderFunctions.skipElement(reader);
+			}
+		}
+		
+		transform = new Mat4();
+		loadTransforms(transform_numbers);
+		
+		instances.addAll(instance_controllers.values());
+		instances.addAll(instance_geometries.values());
+		sub_nodes.addAll(nodes.values());
+	}
+	
 	/**
 	 * @param child_nodes
 	 * @throws DaeParseException 
@@ -95,32 +156,41 @@ public class SceneNode {
 	}
 
 	/**
+	 * Parses the numbers of the transformation tags so that they can be applied by
+	 * {@link #loadTransforms(HashMap)}.
+	 * 
 	 * @param child_nodes
+	 * @throws DaeParseException 
+	 */
+	private static HashMap<String, HashMap<String, float[]>> getTransformNumbers(HashMap<String, HashMap<String, Node>> child_nodes) throws DaeParseException {
+		HashMap<String, HashMap<String, float[]>> transform_numbers = new HashMap<>();
+		for( String tag : new String[]{ "matrix", "translate", "scale", "rotate" } ){
+			if( child_nodes.containsKey(tag) ){
+				HashMap<String, float[]> numbers = new HashMap<>(1);
+				for( String key : child_nodes.get(tag).keySet() )
+					numbers.put(key, new NumberScanner(child_nodes.get(tag).get(key).getTextContent()).readAllFloats());
+				transform_numbers.put(tag, numbers);
+			}
+		}
+		return transform_numbers;
+	}
+
+	/**
+	 * @param child_nodes - Numbers of the transformation tags keyed by tag name and then sid.
 	 */
-	private void loadTransforms(HashMap<String, HashMap<String, Node>> child_nodes) {
+	private void loadTransforms(HashMap<String, HashMap<String, float[]>> child_nodes) {
 		if( child_nodes.containsKey("matrix") ){
-			Node matrix_node = child_nodes.get("matrix").get("transform");
-			String[] s_numbs = matrix_node.getTextContent().split(" ");
-			float[] f_numbs = new float[16];
-			for( int i=0 ; i<16 ; i++ )
-				f_numbs[i] = Float.parseFloat(s_numbs[i]);
-			transform.multiply(new Mat4(f_numbs));
+			transform.multiply(new Mat4(child_nodes.get("matrix").get("transform")));
 		}
 		
 		if( child_nodes.containsKey("translate") ){
-			String[] s_loc_nums = child_nodes.get("translate").get("location").getTextContent().split(" ");
-			float[] f_loc_nums = new float[3];
-			for( int i=0 ; i<3 ; i++ )
-				f_loc_nums[i] = Float.parseFloat(s_loc_nums[i]);
-			transform.translate(f_loc_nums);
+			float[] location = child_nodes.get("translate").get("location");
+			transform.translate(location[0], location[1], location[2]);
 		}
 		
 		if( child_nodes.containsKey("scale") ){
-			String[] s_scale_nums = child_nodes.get("scale").get("scale").getTextContent().split(" ");
-			float[] f_scale_nums = new float[3];
-			for( int i=0 ; i<3 ; i++ )
-				f_scale_nums[i] = Float.parseFloat(s_scale_nums[i]);
-			transform.scale(f_scale_nums);
+			float[] scale = child_nodes.get("scale").get("scale");
+			transform.scale(scale[0], scale[1], scale[2]);
 		}
 		
 		if( child_nodes.containsKey("skew") ){
@@ -132,30 +202,21 @@ public class SceneNode {
 		}
 		
 		if( child_nodes.containsKey("rotate") ){
-			HashMap<String, Node> rotations = child_nodes.get("rotate");
+			HashMap<String, float[]> rotations = child_nodes.get("rotate");
 			
 			if( rotations.containsKey("rotationX") ){
-				String[] s_rot_x_nums = rotations.get("rotationX").getTextContent().split(" ");
-				float[] f_rot_x_nums = new float[4];
-				for( int i=0 ; i<4 ; i++ )
-					f_rot_x_nums[i] = Float.parseFloat(s_rot_x_nums[i]);
-				transform.rotate(f_rot_x_nums[0], f_rot_x_nums[1], f_rot_x_nums[2], (float) Math.toRadians(f_rot_x_nums[3]));
+				float[] rot_x = rotations.get("rotationX");
+				transform.rotate(rot_x[0], rot_x[1], rot_x[2], (float) Math.toRadians(rot_x[3]));
 			}
 			
 			if( rotations.containsKey("rotationY") ){
-				String[] s_rot_y_nums = rotations.get("rotationY").getTextContent().split(" ");
-				float[] f_rot_y_nums = new float[4];
-				for( int i=0 ; i<4 ; i++ )
-					f_rot_y_nums[i] = Float.parseFloat(s_rot_y_nums[i]);
-				transform.rotate(f_rot_y_nums[0], f_rot_y_nums[1], f_rot_y_nums[2], (float) Math.toRadians(f_rot_y_nums[3]));
+				float[] rot_y = rotations.get("rotationY");
+				transform.rotate(rot_y[0], rot_y[1], rot_y[2], (float) Math.toRadians(rot_y[3]));
 			}
 			
 			if( rotations.containsKey("rotationZ") ){
-				String[] s_rot_z_nums = rotations.get("rotationZ").getTextContent().split(" ");
-				float[] f_rot_z_nums = new float[4];
-				for( int i=0 ; i<4 ; i++ )
-					f_rot_z_nums[i] = Float.parseFloat(s_rot_z_nums[i]);
-				transform.rotate(f_rot_z_nums[0], f_rot_z_nums[1], f_rot_z_nums[2], (float) Math.toRadians(f_rot_z_nums[3]));
+				float[] rot_z = rotations.get("rotationZ");
+				transform.rotate(rot_z[0], rot_z[1], rot_z[2], (float) Math.toRadians(rot_z[3]));
 			}
 		}
 	}